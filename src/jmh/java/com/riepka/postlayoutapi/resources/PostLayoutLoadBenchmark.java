@@ -0,0 +1,140 @@
+package com.riepka.postlayoutapi.resources;
+
+import com.riepka.postlayoutapi.PostLayoutApiApplication;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Load benchmark comparing platform request threads pool with virtual request threads (calculations are limited by
+ * CPU guard in both modes). 64 clients: 58 send cheap requests, 6 send heavy ones; throughput and latency
+ * percentiles are reported for each request kind. Every request is calculated (results caches are disabled).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class PostLayoutLoadBenchmark {
+
+  private static final String HEAVY_INPUT = input(1710, IntStream.rangeClosed(1, 18)
+      .mapToObj(i -> mustAvoid(i * 90))
+      .collect(Collectors.joining(",", "[", "]")));
+
+  @Param({"false", "true"})
+  public boolean virtualThreads;
+
+  private ConfigurableApplicationContext context;
+  private HttpClient client;
+  private URI uri;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = new SpringApplicationBuilder(PostLayoutApiApplication.class)
+        .properties(
+            "server.port=0",
+            "spring.threads.virtual.enabled=" + virtualThreads,
+            "post-layout.cache.enabled=false",
+            "post-layout.segment-cache.enabled=false",
+            "post-layout.coalescing.enabled=false"
+        )
+        .run();
+    client = HttpClient.newHttpClient();
+    uri = URI.create("http://localhost:%d/api/v1/post-layout".formatted(
+        ((WebServerApplicationContext) context).getWebServer().getPort()));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    client.close();
+    context.close();
+  }
+
+  /**
+   * Two "Must avoid" obstructions, run length differs for each request of the client
+   */
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(58)
+  public int cheap(Client clientState) throws IOException, InterruptedException {
+    final var requestNumber = clientState.requests++;
+
+    return send(input(270 + requestNumber % 100, "[%s,%s]".formatted(mustAvoid(90), mustAvoid(180))), clientState);
+  }
+
+  /**
+   * Posts of +1 post layout fall on all "Must avoid" obstructions
+   */
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(6)
+  public int heavy(Client clientState) throws IOException, InterruptedException {
+    return send(HEAVY_INPUT, clientState);
+  }
+
+  private int send(String body, Client clientState) throws IOException, InterruptedException {
+    final var request = HttpRequest.newBuilder(uri)
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(body))
+        .build();
+    final var status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+
+    if (status != 200) {
+      clientState.rejected++;
+    }
+
+    return status;
+  }
+
+  private static String input(double runLength, String obstructions) {
+    return """
+        {"postSize":4,"panelMaxLength":96,"runHorLength":%s,"obstructions":%s}""".formatted(runLength, obstructions);
+  }
+
+  private static String mustAvoid(double location) {
+    return """
+        {"size":2,"location":%s,"type":"MUST_AVOID"}""".formatted(location);
+  }
+
+  /**
+   * Client requests counter and number of not successful (rejected by admission) responses, reported by JMH
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Client {
+
+    public long rejected;
+
+    long requests;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      rejected = 0;
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package com.riepka.postlayoutapi.resources;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.riepka.postlayoutapi.entity.LayoutCalculationInput;
+import com.riepka.postlayoutapi.entity.Obstruction;
+import com.riepka.postlayoutapi.entity.ObstructionInput;
+import com.riepka.postlayoutapi.entity.ObstructionType;
+import com.riepka.postlayoutapi.entity.PostLayoutOption;
+import com.riepka.postlayoutapi.services.calculators.PostLayoutCalculator;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Benchmarks of JSON and {@link PostLayoutBinaryCodec} encoding and decoding of layout request and calculated
+ * options. JSON mapper is configured the same way as application one. Payload sizes of both formats are printed
+ * at the start of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+  private static final long SEED = 20_241_201L;
+  private static final TypeReference<List<PostLayoutOption>> OPTIONS_TYPE = new TypeReference<>() {
+  };
+
+  @Param({"1000", "10000"})
+  public double runLength;
+
+  @Param({"10", "200"})
+  public int obstructionsNumber;
+
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+  private LayoutCalculationInput input;
+  private List<PostLayoutOption> options;
+  private byte[] inputJson;
+  private byte[] inputBinary;
+  private byte[] optionsJson;
+  private byte[] optionsBinary;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    input = input(runLength, obstructionsNumber);
+    options = new PostLayoutCalculator(4, 96, runLength, input.getObstructions().stream()
+        .map(obstruction -> new Obstruction(obstruction.getSize(), obstruction.getLocation(), obstruction.getType()))
+        .sorted(Comparator.comparingDouble(Obstruction::location))
+        .toList()
+    ).calculate();
+
+    inputJson = objectMapper.writeValueAsBytes(input);
+    inputBinary = PostLayoutBinaryCodec.encodeInput(input);
+    optionsJson = objectMapper.writeValueAsBytes(options);
+    optionsBinary = PostLayoutBinaryCodec.encodeOptions(options);
+
+    System.out.printf(
+        "%nrequest bytes: JSON %d, binary %d; options bytes: JSON %d, binary %d%n",
+        inputJson.length,
+        inputBinary.length,
+        optionsJson.length,
+        optionsBinary.length
+    );
+  }
+
+  @Benchmark
+  public byte[] encodeInputJson() throws IOException {
+    return objectMapper.writeValueAsBytes(input);
+  }
+
+  @Benchmark
+  public byte[] encodeInputBinary() {
+    return PostLayoutBinaryCodec.encodeInput(input);
+  }
+
+  @Benchmark
+  public LayoutCalculationInput decodeInputJson() throws IOException {
+    return objectMapper.readValue(inputJson, LayoutCalculationInput.class);
+  }
+
+  @Benchmark
+  public LayoutCalculationInput decodeInputBinary() {
+    return PostLayoutBinaryCodec.decodeInput(inputBinary);
+  }
+
+  @Benchmark
+  public byte[] encodeOptionsJson() throws IOException {
+    return objectMapper.writeValueAsBytes(options);
+  }
+
+  @Benchmark
+  public byte[] encodeOptionsBinary() {
+    return PostLayoutBinaryCodec.encodeOptions(options);
+  }
+
+  @Benchmark
+  public List<PostLayoutOption> decodeOptionsJson() throws IOException {
+    return objectMapper.readValue(optionsJson, OPTIONS_TYPE);
+  }
+
+  @Benchmark
+  public List<PostLayoutOption> decodeOptionsBinary() {
+    return PostLayoutBinaryCodec.decodeOptions(optionsBinary);
+  }
+
+  /**
+   * @return reproducible request with randomly located "Must avoid"/"Try to avoid" obstructions
+   */
+  private static LayoutCalculationInput input(double runLength, int obstructionsNumber) {
+    final var random = new Random(SEED);
+    final List<ObstructionInput> obstructions = new ArrayList<>();
+
+    for (int i = 0; i < obstructionsNumber; i++) {
+      final var size = 2 + random.nextInt(11);
+
+      obstructions.add(ObstructionInput.builder()
+          .size(size)
+          .location(Math.rint(size + random.nextDouble() * (runLength - 2 * size)))
+          .type(random.nextBoolean() ? ObstructionType.MUST_AVOID : ObstructionType.TRY_TO_AVOID)
+          .build());
+    }
+
+    return LayoutCalculationInput.builder()
+        .postSize(4)
+        .panelMaxLength(96)
+        .runHorLength(runLength)
+        .obstructions(obstructions)
+        .build();
+  }
+}
@@ -0,0 +1,60 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+import com.riepka.postlayoutapi.entity.Obstruction;
+import com.riepka.postlayoutapi.entity.ObstructionType;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates reproducible runs for benchmarks.
+ */
+final class BenchmarkSites {
+
+  static final double POST_SIZE = 4;
+  static final double PANEL_MAX_LENGTH = 96;
+
+  private static final long SEED = 20_241_201L;
+
+  private BenchmarkSites() {
+  }
+
+  /**
+   * Generates obstructions for run. The same parameters always give the same obstructions.
+   *
+   * @param runLength          run length
+   * @param obstructionsNumber number of "Must avoid"/"Try to avoid" obstructions, randomly located
+   * @param mix                types of "Must avoid"/"Try to avoid" obstructions
+   * @param placePostsNumber   number of PLACE_POST obstructions, evenly located
+   * @return obstructions sorted by location
+   */
+  static List<Obstruction> obstructions(
+      double runLength,
+      int obstructionsNumber,
+      ObstructionsMix mix,
+      int placePostsNumber
+  ) {
+    final var random = new Random(SEED);
+    final List<Obstruction> obstructions = new ArrayList<>();
+
+    for (int i = 0; i < obstructionsNumber; i++) {
+      final var size = 2 + random.nextInt(11);
+      final var location = Math.rint(size + random.nextDouble() * (runLength - 2 * size));
+
+      obstructions.add(new Obstruction(size, location, mix.nextType(random)));
+    }
+
+    for (int i = 1; i <= placePostsNumber; i++) {
+      obstructions.add(new Obstruction(
+          POST_SIZE,
+          Math.rint(runLength * i / (placePostsNumber + 1)),
+          ObstructionType.PLACE_POST
+      ));
+    }
+
+    obstructions.sort(Comparator.comparingDouble(Obstruction::location));
+
+    return obstructions;
+  }
+}
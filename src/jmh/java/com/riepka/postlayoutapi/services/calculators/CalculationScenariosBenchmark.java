@@ -0,0 +1,120 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+import static com.riepka.postlayoutapi.services.calculators.BenchmarkSites.PANEL_MAX_LENGTH;
+import static com.riepka.postlayoutapi.services.calculators.BenchmarkSites.POST_SIZE;
+
+import com.riepka.postlayoutapi.entity.Obstruction;
+import com.riepka.postlayoutapi.entity.ObstructionType;
+import com.riepka.postlayoutapi.entity.PostLayoutOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End to end calculation of typical request shapes, complementing generated sites of
+ * {@link PostLayoutCalculatorBenchmark}. Time and bytes allocated per calculation (gc profiler) are reported.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculationScenariosBenchmark {
+
+  @Param({"TWO_MUST_AVOID", "MANY_SEGMENTS", "DENSE_MUST_AVOID", "SURVEYED_SITE"})
+  public Scenario scenario;
+
+  private double runLength;
+  private List<Obstruction> obstructions;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    runLength = scenario.runLength;
+    obstructions = scenario.obstructions().stream()
+        .sorted(Comparator.comparingDouble(Obstruction::location))
+        .toList();
+  }
+
+  @Benchmark
+  public List<PostLayoutOption> calculate() {
+    return new PostLayoutCalculator(POST_SIZE, PANEL_MAX_LENGTH, runLength, obstructions).calculate();
+  }
+
+  public enum Scenario {
+    // cheap request: 2 "Must avoid" obstructions
+    TWO_MUST_AVOID(270),
+    // 13 segments with 2 "Must avoid" obstructions each
+    MANY_SEGMENTS(13 * 270),
+    // posts of +1 post layout fall on all "Must avoid" obstructions, posts of +2 posts layout too
+    DENSE_MUST_AVOID(1710),
+    // 3000 small "Try to avoid" obstructions and 20 segments
+    SURVEYED_SITE(20_000);
+
+    private final double runLength;
+
+    Scenario(double runLength) {
+      this.runLength = runLength;
+    }
+
+    double getRunLength() {
+      return runLength;
+    }
+
+    List<Obstruction> obstructions() {
+      final List<Obstruction> obstructions = new ArrayList<>();
+
+      switch (this) {
+        case TWO_MUST_AVOID -> {
+          obstructions.add(mustAvoid(4, 90));
+          obstructions.add(mustAvoid(4, 180));
+        }
+        case MANY_SEGMENTS -> {
+          for (int i = 1; i < 13; i++) {
+            obstructions.add(new Obstruction(POST_SIZE, i * 270, ObstructionType.PLACE_POST));
+            obstructions.add(mustAvoid(4, i * 270 - 180));
+            obstructions.add(mustAvoid(4, i * 270 - 90));
+          }
+        }
+        case DENSE_MUST_AVOID -> {
+          for (int i = 1; i <= 18; i++) {
+            obstructions.add(mustAvoid(2, i * 90));
+          }
+          for (int i = 1; i <= 19; i++) {
+            obstructions.add(mustAvoid(2, i * 1710.0 / 20));
+          }
+        }
+        case SURVEYED_SITE -> {
+          final var random = new Random(5);
+          for (int i = 0; i < 3000; i++) {
+            final var location = 1 + random.nextDouble() * 19998;
+            obstructions.add(new Obstruction(1 + random.nextInt(3), location, ObstructionType.TRY_TO_AVOID));
+          }
+          for (int i = 1; i < 20; i++) {
+            obstructions.add(new Obstruction(POST_SIZE, i * 1000 + 3, ObstructionType.PLACE_POST));
+          }
+        }
+      }
+
+      return obstructions;
+    }
+
+    private static Obstruction mustAvoid(double size, double location) {
+      return new Obstruction(size, location, ObstructionType.MUST_AVOID);
+    }
+  }
+}
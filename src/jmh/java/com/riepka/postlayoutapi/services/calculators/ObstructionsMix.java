@@ -0,0 +1,21 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+import com.riepka.postlayoutapi.entity.ObstructionType;
+import java.util.Random;
+
+/**
+ * Types of generated (not PLACE_POST) obstructions.
+ */
+public enum ObstructionsMix {
+  TRY_TO_AVOID,
+  MUST_AVOID,
+  MIXED;
+
+  ObstructionType nextType(Random random) {
+    return switch (this) {
+      case TRY_TO_AVOID -> ObstructionType.TRY_TO_AVOID;
+      case MUST_AVOID -> ObstructionType.MUST_AVOID;
+      case MIXED -> random.nextBoolean() ? ObstructionType.TRY_TO_AVOID : ObstructionType.MUST_AVOID;
+    };
+  }
+}
@@ -0,0 +1,112 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+import static com.riepka.postlayoutapi.services.calculators.BenchmarkSites.PANEL_MAX_LENGTH;
+import static com.riepka.postlayoutapi.services.calculators.BenchmarkSites.POST_SIZE;
+
+import com.riepka.postlayoutapi.entity.Obstruction;
+import com.riepka.postlayoutapi.entity.PostLayoutOption;
+import com.riepka.postlayoutapi.services.calculators.PostLayoutCalculator.CombinedSolution;
+import com.riepka.postlayoutapi.services.calculators.PostLayoutCalculator.SegmentBounds;
+import com.riepka.postlayoutapi.services.calculators.PostLayoutCalculator.SegmentResult;
+import com.riepka.postlayoutapi.services.calculators.PostLayoutCalculator.SegmentSolution;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of calculation as a whole and of its phases separately:
+ * - calculate: end to end calculation (including obstructions indexing)
+ * - solveSegments: solutions search for all segments
+ * - shiftPosts: posts shifting search for the longest segment base layout
+ * - combineSegments: combination of segments solutions
+ * - rankSolutions: final prioritization of combined solutions
+ * Phase inputs are prepared once per trial, so each phase is measured on its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PostLayoutCalculatorBenchmark {
+
+  @Param({"1000", "10000"})
+  public double runLength;
+
+  @Param({"10", "50"})
+  public int obstructionsNumber;
+
+  @Param({"TRY_TO_AVOID", "MUST_AVOID", "MIXED"})
+  public ObstructionsMix obstructionsMix;
+
+  @Param({"0", "8"})
+  public int placePostsNumber;
+
+  private List<Obstruction> obstructions;
+  private PostLayoutCalculator calculator;
+  private List<SegmentBounds> segments;
+  private List<SegmentResult> segmentResults;
+  private List<CombinedSolution> combinedSolutions;
+
+  private double longestSegmentLength;
+  private ObstructionIndex longestSegmentObstructions;
+  private double[] longestSegmentBaseLayout;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    obstructions = BenchmarkSites.obstructions(runLength, obstructionsNumber, obstructionsMix, placePostsNumber);
+    calculator = new PostLayoutCalculator(POST_SIZE, PANEL_MAX_LENGTH, runLength, obstructions);
+    segments = calculator.splitIntoSegments();
+    segmentResults = calculator.solveSegments(segments);
+    combinedSolutions = calculator.combineSegmentResults(segmentResults);
+
+    final var longestSegment = segments.stream()
+        .max(Comparator.comparingDouble(segment -> segment.greenPostLocation() - segment.redPostLocation()))
+        .orElseThrow();
+    longestSegmentLength = longestSegment.greenPostLocation() - longestSegment.redPostLocation();
+    longestSegmentObstructions = calculator.findSegmentObstructions(longestSegment);
+    longestSegmentBaseLayout = calculator.getPostsEvenLayout(longestSegmentLength, 0);
+  }
+
+  @Benchmark
+  public List<PostLayoutOption> calculate() {
+    return new PostLayoutCalculator(POST_SIZE, PANEL_MAX_LENGTH, runLength, obstructions).calculate();
+  }
+
+  @Benchmark
+  public List<SegmentResult> solveSegments() {
+    return calculator.solveSegments(segments);
+  }
+
+  @Benchmark
+  public List<SegmentSolution> shiftPosts() {
+    return calculator.findSolutionsByShiftingPosts(
+        longestSegmentLength,
+        longestSegmentBaseLayout,
+        longestSegmentObstructions,
+        longestSegmentBaseLayout.length
+    );
+  }
+
+  @Benchmark
+  public List<CombinedSolution> combineSegments() {
+    return calculator.combineSegmentResults(segmentResults);
+  }
+
+  @Benchmark
+  public List<PostLayoutOption> rankSolutions() {
+    return calculator.rankSolutions(combinedSolutions);
+  }
+}
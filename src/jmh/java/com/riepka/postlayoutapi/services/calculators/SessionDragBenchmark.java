@@ -0,0 +1,89 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+import static com.riepka.postlayoutapi.services.calculators.BenchmarkSites.PANEL_MAX_LENGTH;
+import static com.riepka.postlayoutapi.services.calculators.BenchmarkSites.POST_SIZE;
+
+import com.riepka.postlayoutapi.entity.Obstruction;
+import com.riepka.postlayoutapi.entity.ObstructionType;
+import com.riepka.postlayoutapi.entity.PostLayoutOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Layout session drag pattern: every calculation moves the obstruction nearest to the run middle by 1 back and
+ * forth, as session edits sent while obstruction is dragged. Incremental segments reuse solutions of segments that
+ * aren't changed only, so the single segment of {@code DENSE_MUST_AVOID} run is recalculated completely on every
+ * edit, while {@code MANY_SEGMENTS} run recalculates the dragged obstruction segment and combinations after it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionDragBenchmark {
+
+  private static final int DRAG_DISTANCE = 20;
+
+  @Param({"DENSE_MUST_AVOID", "MANY_SEGMENTS"})
+  public CalculationScenariosBenchmark.Scenario scenario;
+
+  @Param({"false", "true"})
+  public boolean incremental;
+
+  private double runLength;
+  private List<Obstruction> obstructions;
+  private int draggedIndex;
+  private double draggedStart;
+  private int step;
+  private IncrementalSegments incrementalSegments;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    runLength = scenario.getRunLength();
+    obstructions = new ArrayList<>(scenario.obstructions());
+
+    for (int i = 0; i < obstructions.size(); i++) {
+      final var obstruction = obstructions.get(i);
+
+      if (obstruction.type() != ObstructionType.PLACE_POST
+          && Math.abs(obstruction.location() - runLength / 2)
+          < Math.abs(obstructions.get(draggedIndex).location() - runLength / 2)) {
+        draggedIndex = i;
+      }
+    }
+    draggedStart = obstructions.get(draggedIndex).location();
+    incrementalSegments = incremental ? new IncrementalSegments() : null;
+  }
+
+  @Benchmark
+  public List<PostLayoutOption> drag() {
+    final var dragged = obstructions.get(draggedIndex);
+    final var offset = step++ % (2 * DRAG_DISTANCE);
+    final var location = draggedStart + (offset < DRAG_DISTANCE ? offset : 2 * DRAG_DISTANCE - offset);
+    obstructions.set(draggedIndex, new Obstruction(dragged.size(), location, dragged.type()));
+
+    return PostLayoutCalculator.builder()
+        .postSize(POST_SIZE)
+        .panelMaxLength(PANEL_MAX_LENGTH)
+        .runLength(runLength)
+        .obstructions(obstructions.stream().sorted(Comparator.comparingDouble(Obstruction::location)).toList())
+        .incrementalSegments(incrementalSegments)
+        .build()
+        .calculate();
+  }
+}
@@ -0,0 +1,99 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+import static com.riepka.postlayoutapi.services.calculators.BenchmarkSites.PANEL_MAX_LENGTH;
+import static com.riepka.postlayoutapi.services.calculators.BenchmarkSites.POST_SIZE;
+
+import com.riepka.postlayoutapi.entity.Obstruction;
+import com.riepka.postlayoutapi.entity.PostLayoutOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares posts shifting heuristic with optimal search (posts on grid, see {@link OptimalSegmentSolver}):
+ * latency is measured by benchmarks, quality of the best options of both strategies is printed at the start of each
+ * trial (posts on "Must avoid"/"Try to avoid" obstructions, extra posts, dispersion).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverStrategyBenchmark {
+
+  @Param({"1000", "10000"})
+  public double runLength;
+
+  @Param({"10", "50", "200"})
+  public int obstructionsNumber;
+
+  @Param({"0", "8"})
+  public int placePostsNumber;
+
+  @Param({"0.5"})
+  public double resolution;
+
+  private List<Obstruction> obstructions;
+  private OptimalSearch optimalSearch;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    obstructions = BenchmarkSites.obstructions(runLength, obstructionsNumber, ObstructionsMix.MIXED, placePostsNumber);
+    optimalSearch = new OptimalSearch(resolution, 2);
+
+    System.out.printf(
+        "%nbest options: heuristic %s, optimal %s%n",
+        describe(heuristic().getFirst()),
+        describe(optimal().getFirst())
+    );
+  }
+
+  @Benchmark
+  public List<PostLayoutOption> heuristic() {
+    return new PostLayoutCalculator(POST_SIZE, PANEL_MAX_LENGTH, runLength, obstructions).calculate();
+  }
+
+  @Benchmark
+  public List<PostLayoutOption> optimal() {
+    return PostLayoutCalculator.builder()
+        .postSize(POST_SIZE)
+        .panelMaxLength(PANEL_MAX_LENGTH)
+        .runLength(runLength)
+        .obstructions(obstructions)
+        .optimalSearch(optimalSearch)
+        .build()
+        .calculate();
+  }
+
+  private static String describe(PostLayoutOption option) {
+    final var description = option.getDescription();
+    final var locations = option.getPostLocations();
+    final var panelsNumber = locations.size() - 1;
+    final var average = locations.getLast() / panelsNumber;
+
+    double deviationSum = 0;
+    for (int i = 1; i < locations.size(); i++) {
+      final var deviation = locations.get(i) - locations.get(i - 1) - average;
+      deviationSum += deviation * deviation;
+    }
+
+    return "must avoid %d, try to avoid %d, extra posts %d, dispersion %.2f".formatted(
+        description.getPostsFallOnMustAvoid(),
+        description.getPostsFallOnTryToAvoid(),
+        description.getAdditionalPosts(),
+        panelsNumber > 1 ? Math.sqrt(deviationSum / (panelsNumber - 1)) : 0
+    );
+  }
+}
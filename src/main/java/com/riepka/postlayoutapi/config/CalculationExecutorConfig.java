@@ -0,0 +1,76 @@
+package com.riepka.postlayoutapi.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(PostLayoutProperties.class)
+public class CalculationExecutorConfig {
+
+  public static final String SEGMENT_EXECUTOR = "segmentExecutor";
+  public static final String BATCH_EXECUTOR = "batchExecutor";
+  public static final String STREAM_EXECUTOR = "streamExecutor";
+  public static final String SHADOW_EXECUTOR = "shadowExecutor";
+
+  /**
+   * Executor for solving run segments in parallel. Tasks are CPU bound, so fork-join pool is sized by processors
+   * number unless parallelism is configured explicitly.
+   */
+  @Bean(name = SEGMENT_EXECUTOR, destroyMethod = "close")
+  public ExecutorService segmentExecutor(PostLayoutProperties properties) {
+    final var parallel = properties.getParallel();
+
+    return switch (parallel.getExecutor()) {
+      case FORK_JOIN -> parallel.getParallelism() > 0
+          ? new ForkJoinPool(parallel.getParallelism())
+          : new ForkJoinPool();
+      case VIRTUAL_THREADS -> Executors.newVirtualThreadPerTaskExecutor();
+    };
+  }
+
+  /**
+   * Executor for batch runs. Runs mostly wait for in-flight permits and segment executor, so virtual threads are used.
+   */
+  @Bean(name = BATCH_EXECUTOR, destroyMethod = "close")
+  public ExecutorService batchExecutor() {
+    return Executors.newVirtualThreadPerTaskExecutor();
+  }
+
+  /**
+   * Executor for streamed calculations, so request thread is released while events are sent.
+   * Calculations are limited by admission and CPU guard, so virtual threads are used.
+   */
+  @Bean(name = STREAM_EXECUTOR, destroyMethod = "close")
+  public ExecutorService streamExecutor() {
+    return Executors.newVirtualThreadPerTaskExecutor();
+  }
+
+  /**
+   * Executor for shadow calculations. Threads and queue are bounded, shadow calculations that don't fit are rejected,
+   * so they never hold request calculations. Threads have minimal priority and don't keep application running.
+   */
+  @Bean(name = SHADOW_EXECUTOR, destroyMethod = "shutdownNow")
+  public ExecutorService shadowExecutor(PostLayoutProperties properties) {
+    final var shadow = properties.getShadow();
+
+    return new ThreadPoolExecutor(
+        shadow.getMaxRunning(),
+        shadow.getMaxRunning(),
+        0,
+        TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(shadow.getMaxWaiting()),
+        Thread.ofPlatform()
+            .name("layout-shadow-", 0)
+            .daemon(true)
+            .priority(Thread.MIN_PRIORITY)
+            .factory()
+    );
+  }
+}
@@ -0,0 +1,54 @@
+package com.riepka.postlayoutapi.config;
+
+import com.riepka.postlayoutapi.config.PostLayoutProperties.SolverStrategy;
+import com.riepka.postlayoutapi.services.PostLayoutCalculatorFactory;
+import com.riepka.postlayoutapi.services.calculators.CalculationMetrics;
+import com.riepka.postlayoutapi.services.calculators.OptimalSearch;
+import com.riepka.postlayoutapi.services.calculators.SegmentSolutionsCache;
+import java.util.concurrent.ExecutorService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Solvers available to calculations, strategy of each calculation is selected by client or configuration.
+ */
+@Configuration
+public class LayoutSolverConfig {
+
+  @Bean
+  public PostLayoutCalculatorFactory heuristicLayoutSolver(
+      PostLayoutProperties properties,
+      SegmentSolutionsCache segmentCache,
+      CalculationMetrics metrics,
+      @Qualifier(CalculationExecutorConfig.SEGMENT_EXECUTOR) ExecutorService segmentExecutor
+  ) {
+    return new PostLayoutCalculatorFactory(
+        SolverStrategy.HEURISTIC,
+        null,
+        properties,
+        segmentCache,
+        metrics,
+        segmentExecutor
+    );
+  }
+
+  @Bean
+  public PostLayoutCalculatorFactory optimalLayoutSolver(
+      PostLayoutProperties properties,
+      SegmentSolutionsCache segmentCache,
+      CalculationMetrics metrics,
+      @Qualifier(CalculationExecutorConfig.SEGMENT_EXECUTOR) ExecutorService segmentExecutor
+  ) {
+    final var solver = properties.getSolver();
+
+    return new PostLayoutCalculatorFactory(
+        SolverStrategy.OPTIMAL,
+        new OptimalSearch(solver.getResolution(), solver.getMaxExtraPosts()),
+        properties,
+        segmentCache,
+        metrics,
+        segmentExecutor
+    );
+  }
+}
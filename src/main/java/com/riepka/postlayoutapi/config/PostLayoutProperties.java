@@ -0,0 +1,202 @@
+package com.riepka.postlayoutapi.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@ConfigurationProperties(prefix = "post-layout")
+public class PostLayoutProperties {
+
+  private final Parallel parallel = new Parallel();
+  private final Batch batch = new Batch();
+  private final Cache cache = new Cache();
+  private final SegmentCache segmentCache = new SegmentCache();
+  private final TimeBudget timeBudget = new TimeBudget();
+  private final Admission admission = new Admission();
+  private final Cpu cpu = new Cpu();
+  private final Session session = new Session();
+  private final Coalescing coalescing = new Coalescing();
+  private final Sweep sweep = new Sweep();
+  private final Engine engine = new Engine();
+  private final Solver solver = new Solver();
+  private final Shadow shadow = new Shadow();
+
+  @Data
+  public static class Parallel {
+
+    // segments are solved in parallel only if enabled
+    private boolean enabled = true;
+    // executor segments are solved on
+    private ExecutorType executor = ExecutorType.FORK_JOIN;
+    // fork-join pool parallelism, available processors number if not positive
+    private int parallelism = 0;
+    // minimal number of segments (PLACE_POST obstructions + 1) to solve them in parallel
+    private int minSegments = 4;
+  }
+
+  @Data
+  public static class Batch {
+
+    // maximal number of runs in one batch request
+    private int maxRuns = 100;
+    // maximal number of runs of one batch request calculated at the same time
+    private int maxParallelRuns = 8;
+  }
+
+  @Data
+  public static class Cache {
+
+    // calculation results are cached only if enabled
+    private boolean enabled = true;
+    // maximal number of cached results
+    private long maxSize = 10_000;
+    // time cached result lives after calculation
+    private Duration ttl = Duration.ofMinutes(30);
+    // inputs are quantized with this precision for cache key, so inputs differing less are treated as equal
+    // (with fixed-point engine coordinates inputs are quantized to engine resolution units instead)
+    private double precision = 1e-6;
+  }
+
+  @Data
+  public static class SegmentCache {
+
+    // segment solutions are shared between calculations only if enabled
+    private boolean enabled = true;
+    // maximal number of cached segments
+    private long maxSize = 50_000;
+  }
+
+  @Data
+  public static class TimeBudget {
+
+    // calculation time if client doesn't set it, best options found so far are returned after it
+    private Duration defaultBudget = Duration.ofSeconds(2);
+    // maximal calculation time client can set
+    private Duration maxBudget = Duration.ofSeconds(10);
+  }
+
+  @Data
+  public static class Admission {
+
+    // heavy calculations are limited only if enabled
+    private boolean enabled = true;
+    // minimal estimated work (number of evaluated layouts or optimal search grid transitions) of heavy calculation
+    private long heavyWork = 100_000;
+    // maximal number of heavy calculations running at the same time
+    private int maxHeavyRunning = 2;
+    // maximal number of heavy calculations waiting for their turn, others are rejected at once (429)
+    private int maxHeavyWaiting = 8;
+    // maximal time heavy calculation waits for its turn, it is rejected after it (503)
+    private Duration maxWait = Duration.ofSeconds(1);
+    // time client is asked to retry rejected calculation after
+    private Duration retryAfter = Duration.ofSeconds(2);
+  }
+
+  @Data
+  public static class Cpu {
+
+    // maximal number of calculations running at the same time (on any request or executor thread),
+    // available processors number if not positive
+    private int maxCalculations = 0;
+  }
+
+  @Data
+  public static class Session {
+
+    // maximal number of layout sessions kept at the same time
+    private long maxSessions = 10_000;
+    // session is evicted after it isn't used this long
+    private Duration idleTimeout = Duration.ofMinutes(15);
+  }
+
+  @Data
+  public static class Coalescing {
+
+    // concurrent requests with the same input share one calculation if enabled
+    private boolean enabled = true;
+  }
+
+  @Data
+  public static class Sweep {
+
+    // maximal number of configurations (post sizes x panel max lengths) in one sweep request
+    private int maxConfigurations = 50;
+    // maximal number of configurations of one sweep request calculated at the same time
+    private int maxParallelConfigurations = 4;
+    // number of the best options returned for each configuration if request doesn't set it
+    private int defaultTopOptions = 3;
+  }
+
+  @Data
+  public static class Engine {
+
+    // coordinates the search is run with
+    private CoordinatesType coordinates = CoordinatesType.DOUBLE;
+    // length of one unit of fixed-point coordinates, length unit has to be a whole number of units
+    private double resolution = 0.001;
+  }
+
+  @Data
+  public static class Solver {
+
+    // strategy segments are solved with
+    private SolverStrategy strategy = SolverStrategy.HEURISTIC;
+    // grid step of post locations checked by optimal strategy
+    private double resolution = 0.5;
+    // maximal number of posts added to even layout posts number by optimal strategy
+    private int maxExtraPosts = 2;
+    // maximal run length auto strategy solves with optimal strategy, longer runs are solved with heuristic
+    private double autoOptimalMaxLength = 2000;
+  }
+
+  @Data
+  public static class Shadow {
+
+    // sampled calculations are repeated by shadow strategy and compared only if enabled
+    private boolean enabled = false;
+    // strategy calculations are repeated with (auto is resolved by run length)
+    private SolverStrategy strategy = SolverStrategy.OPTIMAL;
+    // fraction of calculations repeated by shadow strategy
+    private double sampleRate = 0.01;
+    // number of the best options compared
+    private int topOptions = 3;
+    // posts locations differing less are treated as equal
+    private double tolerance = 1e-6;
+    // shadow calculation time, best options found so far aren't compared after it
+    private Duration timeBudget = Duration.ofSeconds(10);
+    // maximal number of shadow calculations running at the same time
+    private int maxRunning = 1;
+    // maximal number of shadow calculations waiting for their turn, others are dropped
+    private int maxWaiting = 16;
+    // file mismatches are appended to (one JSON line each)
+    private Path mismatchFile = Path.of("logs", "shadow-mismatches.jsonl");
+    // mismatches file is rolled over when it reaches this size
+    private DataSize maxFileSize = DataSize.ofMegabytes(10);
+    // number of rolled over mismatches files kept (file.1 is the newest)
+    private int maxHistory = 5;
+  }
+
+  public enum ExecutorType {
+    FORK_JOIN,
+    VIRTUAL_THREADS
+  }
+
+  public enum CoordinatesType {
+    // lengths are used as is
+    DOUBLE,
+    // lengths are rounded to whole resolution units, layouts are calculated on units grid
+    FIXED_POINT
+  }
+
+  public enum SolverStrategy {
+    // even layouts, +1 post layouts and posts shifted around obstructions
+    HEURISTIC,
+    // the best layouts with posts on grid of solver resolution (slower)
+    OPTIMAL,
+    // optimal for runs not longer than solver auto optimal max length, heuristic for longer ones
+    AUTO
+  }
+}
@@ -0,0 +1,14 @@
+package com.riepka.postlayoutapi.config;
+
+import com.riepka.postlayoutapi.services.calculators.SegmentSolutionsCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SegmentCacheConfig {
+
+  @Bean
+  public SegmentSolutionsCache segmentSolutionsCache(PostLayoutProperties properties) {
+    return new SegmentSolutionsCache(properties.getSegmentCache().getMaxSize());
+  }
+}
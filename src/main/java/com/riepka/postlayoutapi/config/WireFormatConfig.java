@@ -0,0 +1,19 @@
+package com.riepka.postlayoutapi.config;
+
+import com.riepka.postlayoutapi.resources.PostLayoutBinaryMessageConverter;
+import java.util.List;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WireFormatConfig implements WebMvcConfigurer {
+
+  /**
+   * Binary converter is added after the default ones, so JSON is used unless client asks for binary format.
+   */
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    converters.add(new PostLayoutBinaryMessageConverter());
+  }
+}
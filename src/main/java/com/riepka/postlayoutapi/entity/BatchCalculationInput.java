@@ -0,0 +1,16 @@
+package com.riepka.postlayoutapi.entity;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class BatchCalculationInput {
+
+  @Valid
+  @NotEmpty
+  private final List<BatchRunInput> runs;
+}
@@ -0,0 +1,15 @@
+package com.riepka.postlayoutapi.entity;
+
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class BatchCalculationResult {
+
+  // run results by run id (in request order)
+  private final Map<String, BatchRunResult> results;
+}
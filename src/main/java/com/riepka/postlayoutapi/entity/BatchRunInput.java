@@ -0,0 +1,19 @@
+package com.riepka.postlayoutapi.entity;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class BatchRunInput {
+
+  // client supplied run id, results are keyed by it
+  @NotBlank
+  private final String id;
+
+  // validated per run, so invalid run doesn't fail the whole batch
+  @NotNull
+  private final LayoutCalculationInput input;
+}
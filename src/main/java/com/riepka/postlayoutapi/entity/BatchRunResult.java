@@ -0,0 +1,31 @@
+package com.riepka.postlayoutapi.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchRunResult {
+
+  // found layout options, null if run failed
+  private final List<PostLayoutOption> options;
+
+  // true if calculation time was over and options are the best found so far, null if run failed
+  private final Boolean truncated;
+
+  // error description, null if run succeeded
+  private final String error;
+
+  public static BatchRunResult success(List<PostLayoutOption> options, boolean truncated) {
+    return new BatchRunResult(options, truncated, null);
+  }
+
+  public static BatchRunResult failure(String error) {
+    return new BatchRunResult(null, null, error);
+  }
+}
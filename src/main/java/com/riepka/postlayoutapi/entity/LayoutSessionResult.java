@@ -0,0 +1,17 @@
+package com.riepka.postlayoutapi.entity;
+
+import java.util.List;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class LayoutSessionResult {
+
+  private final String sessionId;
+  private final double runHorLength;
+  private final List<SessionObstruction> obstructions;
+  private final List<PostLayoutOption> options;
+  // true if calculation time was over and options are the best found so far
+  private final boolean truncated;
+}
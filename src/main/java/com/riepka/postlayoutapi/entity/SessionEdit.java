@@ -0,0 +1,30 @@
+package com.riepka.postlayoutapi.entity;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class SessionEdit {
+
+  @NotNull
+  private final SessionOperation operation;
+
+  // id of moved or removed obstruction
+  private final String obstructionId;
+
+  // added obstruction
+  @Valid
+  private final ObstructionInput obstruction;
+
+  // new location of moved obstruction
+  @Positive
+  private final Double location;
+
+  // new run length
+  @Positive
+  private final Double runHorLength;
+}
@@ -0,0 +1,17 @@
+package com.riepka.postlayoutapi.entity;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class SessionEditsInput {
+
+  // applied in order and all together, layout is recalculated once
+  @Valid
+  @NotEmpty
+  private final List<SessionEdit> edits;
+}
@@ -0,0 +1,15 @@
+package com.riepka.postlayoutapi.entity;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class SessionObstruction {
+
+  // id obstruction is moved or removed by
+  private final String id;
+  private final double size;
+  private final double location;
+  private final ObstructionType type;
+}
@@ -0,0 +1,8 @@
+package com.riepka.postlayoutapi.entity;
+
+public enum SessionOperation {
+  ADD_OBSTRUCTION,
+  MOVE_OBSTRUCTION,
+  REMOVE_OBSTRUCTION,
+  SET_RUN_LENGTH
+}
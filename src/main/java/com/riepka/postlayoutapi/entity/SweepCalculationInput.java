@@ -0,0 +1,35 @@
+package com.riepka.postlayoutapi.entity;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import java.util.List;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class SweepCalculationInput {
+
+  @Positive
+  private final double runHorLength;
+
+  @Valid
+  @NotNull
+  private final List<ObstructionInput> obstructions;
+
+  // post sizes to compare (matrix rows)
+  @NotEmpty
+  private final List<@NotNull @Positive Double> postSizes;
+
+  // panel max lengths to compare (matrix columns)
+  @NotEmpty
+  private final List<@NotNull @Positive Double> panelMaxLengths;
+
+  // number of the best options returned for each configuration, configured default is used if null
+  @Positive
+  @Max(10)
+  private final Integer topOptions;
+}
@@ -0,0 +1,17 @@
+package com.riepka.postlayoutapi.entity;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class SweepCalculationResult {
+
+  private final List<Double> postSizes;
+  private final List<Double> panelMaxLengths;
+  // configuration results, results[i][j] is for postSizes[i] and panelMaxLengths[j]
+  private final List<List<SweepConfigurationResult>> results;
+}
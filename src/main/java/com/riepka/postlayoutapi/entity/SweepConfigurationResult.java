@@ -0,0 +1,35 @@
+package com.riepka.postlayoutapi.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SweepConfigurationResult {
+
+  private final double postSize;
+  private final double panelMaxLength;
+
+  // the best options (not more than requested number), null if calculation failed
+  private final List<PostLayoutOption> options;
+
+  // summary of all found options, null if calculation failed
+  private final Integer optionsFound;
+  // posts number (with run end posts) of the best option
+  private final Integer bestPostsNumber;
+  // minimal and maximal posts number of found options
+  private final Integer minPostsNumber;
+  private final Integer maxPostsNumber;
+  // true if any option has even layout
+  private final Boolean evenLayoutFound;
+  // true if any option has no posts on obstructions
+  private final Boolean obstructionFreeFound;
+  // true if calculation time was over and options are the best found so far
+  private final Boolean truncated;
+
+  // error description, null if calculation succeeded
+  private final String error;
+}
@@ -4,10 +4,14 @@ import static org.mapstruct.MappingConstants.ComponentModel.SPRING;
 
 import com.riepka.postlayoutapi.entity.CalculationData;
 import com.riepka.postlayoutapi.entity.LayoutCalculationInput;
+import com.riepka.postlayoutapi.entity.Obstruction;
+import com.riepka.postlayoutapi.entity.ObstructionInput;
 import org.mapstruct.Mapper;
 
 @Mapper(componentModel = SPRING)
 public interface CalculationDataMapper {
 
   CalculationData toCalculationData(LayoutCalculationInput input);
+
+  Obstruction toObstruction(ObstructionInput input);
 }
@@ -0,0 +1,55 @@
+package com.riepka.postlayoutapi.resources;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import com.riepka.postlayoutapi.services.PostLayoutResultCache;
+import com.riepka.postlayoutapi.services.calculators.SegmentSolutionsCache;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint (/actuator/layoutcache) with result and segment caches statistics.
+ */
+@Component
+@Endpoint(id = "layoutcache")
+@RequiredArgsConstructor
+public class LayoutCacheEndpoint {
+
+  private final PostLayoutResultCache resultCache;
+  private final SegmentSolutionsCache segmentCache;
+  private final PostLayoutProperties properties;
+
+  @ReadOperation
+  public Map<String, Object> cacheStats() {
+    final Map<String, Object> resultStats = new LinkedHashMap<>();
+    final var resultCacheStats = resultCache.stats();
+
+    resultStats.put("enabled", resultCacheStats.isPresent());
+    resultCacheStats.ifPresent(stats -> resultStats.putAll(toMap(stats, resultCache.size())));
+
+    final Map<String, Object> segmentStats = new LinkedHashMap<>();
+    segmentStats.put("enabled", properties.getSegmentCache().isEnabled());
+    segmentStats.putAll(toMap(segmentCache.stats(), segmentCache.size()));
+
+    return Map.of(
+        "results", resultStats,
+        "segments", segmentStats
+    );
+  }
+
+  private Map<String, Object> toMap(CacheStats stats, long size) {
+    final Map<String, Object> values = new LinkedHashMap<>();
+
+    values.put("size", size);
+    values.put("hits", stats.hitCount());
+    values.put("misses", stats.missCount());
+    values.put("hitRate", stats.hitRate());
+    values.put("evictions", stats.evictionCount());
+
+    return values;
+  }
+}
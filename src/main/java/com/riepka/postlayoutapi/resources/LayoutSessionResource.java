@@ -0,0 +1,59 @@
+package com.riepka.postlayoutapi.resources;
+
+import com.riepka.postlayoutapi.entity.LayoutCalculationInput;
+import com.riepka.postlayoutapi.entity.LayoutSessionResult;
+import com.riepka.postlayoutapi.entity.SessionEditsInput;
+import com.riepka.postlayoutapi.services.LayoutSessionService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Layout sessions API: run is created once and then edited by delta operations, each edit returns recalculated
+ * options. Edit recalculates segments (parts of run between PLACE_POST obstructions) it changes, so edits of a run
+ * split by PLACE_POST obstructions are cheaper than full calculation, while edits of a run without them cost
+ * the same as full calculation.
+ */
+@CrossOrigin
+@RestController
+@RequestMapping("/api/v1/post-layout/sessions")
+@RequiredArgsConstructor
+public class LayoutSessionResource {
+
+  private final LayoutSessionService sessionService;
+
+  @PostMapping
+  @ResponseStatus(HttpStatus.CREATED)
+  public LayoutSessionResult createSession(@RequestBody @Valid LayoutCalculationInput input) {
+    return sessionService.createSession(input);
+  }
+
+  @GetMapping("/{sessionId}")
+  public LayoutSessionResult getSession(@PathVariable String sessionId) {
+    return sessionService.getSession(sessionId);
+  }
+
+  @PatchMapping("/{sessionId}")
+  public LayoutSessionResult editSession(
+      @PathVariable String sessionId,
+      @RequestBody @Valid SessionEditsInput input
+  ) {
+    return sessionService.editSession(sessionId, input.getEdits());
+  }
+
+  @DeleteMapping("/{sessionId}")
+  @ResponseStatus(HttpStatus.NO_CONTENT)
+  public void deleteSession(@PathVariable String sessionId) {
+    sessionService.deleteSession(sessionId);
+  }
+}
@@ -0,0 +1,269 @@
+package com.riepka.postlayoutapi.resources;
+
+import com.riepka.postlayoutapi.entity.LayoutCalculationInput;
+import com.riepka.postlayoutapi.entity.ObstructionInput;
+import com.riepka.postlayoutapi.entity.ObstructionType;
+import com.riepka.postlayoutapi.entity.PostLayoutDescription;
+import com.riepka.postlayoutapi.entity.PostLayoutOption;
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary format of layout request and options (media type "application/x-post-layout").
+ * <p>
+ * Both messages start with format version byte (1). Integers are unsigned LEB128 varints (7 bits per byte,
+ * the least significant group first), doubles are IEEE 754 big-endian 8 bytes.
+ * <p>
+ * Request ({@link LayoutCalculationInput}), values are kept exactly:
+ * <pre>
+ * version: byte
+ * postSize, panelMaxLength, runHorLength: double
+ * obstructions number: varint
+ * each obstruction - size, location: double, type: byte (0 - MUST_AVOID, 1 - TRY_TO_AVOID, 2 - PLACE_POST)
+ * </pre>
+ * Response (list of {@link PostLayoutOption}):
+ * <pre>
+ * version: byte
+ * options number: varint
+ * each option:
+ *   posts number: varint
+ *   each post - zigzag varint delta of fixed-point location from the previous post location (0 for the first post)
+ *   additionalPosts: varint
+ *   flags: byte (bit 0 - evenLayout)
+ *   postsFallOnTryToAvoid, postsFallOnMustAvoid: varint
+ * </pre>
+ * Fixed-point location is location multiplied by {@link #LOCATION_SCALE} and rounded, so post locations are
+ * transferred with 0.0001 precision (posts of typical option take 2-3 bytes instead of 8 of packed double).
+ */
+public final class PostLayoutBinaryCodec {
+
+  public static final String MEDIA_TYPE = "application/x-post-layout";
+
+  public static final int LOCATION_SCALE = 10_000;
+
+  private static final byte VERSION = 1;
+  private static final int EVEN_LAYOUT_FLAG = 1;
+  private static final int OBSTRUCTION_BYTES = 2 * Double.BYTES + 1;
+  private static final ObstructionType[] OBSTRUCTION_TYPES = {
+      ObstructionType.MUST_AVOID,
+      ObstructionType.TRY_TO_AVOID,
+      ObstructionType.PLACE_POST
+  };
+
+  private PostLayoutBinaryCodec() {
+  }
+
+  public static byte[] encodeInput(LayoutCalculationInput input) {
+    final var obstructions = input.getObstructions();
+    final var buffer = ByteBuffer.allocate(1 + 3 * Double.BYTES + 5 + obstructions.size() * OBSTRUCTION_BYTES);
+
+    buffer.put(VERSION);
+    buffer.putDouble(input.getPostSize());
+    buffer.putDouble(input.getPanelMaxLength());
+    buffer.putDouble(input.getRunHorLength());
+    putVarint(buffer, obstructions.size());
+
+    for (final ObstructionInput obstruction : obstructions) {
+      buffer.putDouble(obstruction.getSize());
+      buffer.putDouble(obstruction.getLocation());
+      buffer.put(typeCode(obstruction.getType()));
+    }
+
+    return toBytes(buffer);
+  }
+
+  /**
+   * @throws IllegalArgumentException if data isn't request of supported format version
+   */
+  public static LayoutCalculationInput decodeInput(byte[] data) {
+    final var buffer = ByteBuffer.wrap(data);
+
+    try {
+      checkVersion(buffer);
+      final var postSize = buffer.getDouble();
+      final var panelMaxLength = buffer.getDouble();
+      final var runHorLength = buffer.getDouble();
+      final var obstructionsNumber = getCount(buffer, OBSTRUCTION_BYTES);
+
+      final List<ObstructionInput> obstructions = new ArrayList<>(obstructionsNumber);
+      for (int i = 0; i < obstructionsNumber; i++) {
+        obstructions.add(ObstructionInput.builder()
+            .size(buffer.getDouble())
+            .location(buffer.getDouble())
+            .type(obstructionType(buffer.get()))
+            .build());
+      }
+      checkFullyRead(buffer);
+
+      return LayoutCalculationInput.builder()
+          .postSize(postSize)
+          .panelMaxLength(panelMaxLength)
+          .runHorLength(runHorLength)
+          .obstructions(obstructions)
+          .build();
+    } catch (BufferUnderflowException e) {
+      throw new IllegalArgumentException("Unexpected end of layout request data", e);
+    }
+  }
+
+  public static byte[] encodeOptions(List<PostLayoutOption> options) {
+    final var output = new ByteArrayOutputStream(64 + options.size() * 32);
+
+    output.write(VERSION);
+    writeVarint(output, options.size());
+
+    for (final PostLayoutOption option : options) {
+      final var postLocations = option.getPostLocations();
+      writeVarint(output, postLocations.size());
+
+      long previous = 0;
+      for (final Double location : postLocations) {
+        final var fixedPoint = Math.round(location * LOCATION_SCALE);
+        writeVarint(output, zigzag(fixedPoint - previous));
+        previous = fixedPoint;
+      }
+
+      final var description = option.getDescription();
+      writeVarint(output, description.getAdditionalPosts());
+      output.write(description.isEvenLayout() ? EVEN_LAYOUT_FLAG : 0);
+      writeVarint(output, description.getPostsFallOnTryToAvoid());
+      writeVarint(output, description.getPostsFallOnMustAvoid());
+    }
+
+    return output.toByteArray();
+  }
+
+  /**
+   * @throws IllegalArgumentException if data isn't options of supported format version
+   */
+  public static List<PostLayoutOption> decodeOptions(byte[] data) {
+    final var buffer = ByteBuffer.wrap(data);
+
+    try {
+      checkVersion(buffer);
+      // every option takes at least 5 bytes (no posts)
+      final var optionsNumber = getCount(buffer, 5);
+
+      final List<PostLayoutOption> options = new ArrayList<>(optionsNumber);
+      for (int i = 0; i < optionsNumber; i++) {
+        final var postsNumber = getCount(buffer, 1);
+
+        final List<Double> postLocations = new ArrayList<>(postsNumber);
+        long fixedPoint = 0;
+        for (int j = 0; j < postsNumber; j++) {
+          fixedPoint += unzigzag(getVarint(buffer));
+          postLocations.add((double) fixedPoint / LOCATION_SCALE);
+        }
+
+        options.add(PostLayoutOption.builder()
+            .postLocations(postLocations)
+            .description(PostLayoutDescription.builder()
+                .additionalPosts((int) getVarint(buffer))
+                .evenLayout((buffer.get() & EVEN_LAYOUT_FLAG) != 0)
+                .postsFallOnTryToAvoid((int) getVarint(buffer))
+                .postsFallOnMustAvoid((int) getVarint(buffer))
+                .build())
+            .build());
+      }
+      checkFullyRead(buffer);
+
+      return options;
+    } catch (BufferUnderflowException e) {
+      throw new IllegalArgumentException("Unexpected end of layout options data", e);
+    }
+  }
+
+  private static void checkVersion(ByteBuffer buffer) {
+    final var version = buffer.get();
+
+    if (version != VERSION) {
+      throw new IllegalArgumentException("Unsupported format version: " + version);
+    }
+  }
+
+  private static void checkFullyRead(ByteBuffer buffer) {
+    if (buffer.hasRemaining()) {
+      throw new IllegalArgumentException("Unexpected %d bytes after the end of data".formatted(buffer.remaining()));
+    }
+  }
+
+  /**
+   * Reads elements number, checking that data is long enough for it (so malformed number doesn't allocate memory)
+   *
+   * @param minElementBytes minimal number of bytes element takes
+   */
+  private static int getCount(ByteBuffer buffer, int minElementBytes) {
+    final var count = getVarint(buffer);
+
+    if (count < 0 || count > buffer.remaining() / minElementBytes) {
+      throw new IllegalArgumentException("Elements number %d exceeds data length".formatted(count));
+    }
+
+    return (int) count;
+  }
+
+  private static byte typeCode(ObstructionType type) {
+    return switch (type) {
+      case MUST_AVOID -> 0;
+      case TRY_TO_AVOID -> 1;
+      case PLACE_POST -> 2;
+    };
+  }
+
+  private static ObstructionType obstructionType(byte code) {
+    if (code < 0 || code >= OBSTRUCTION_TYPES.length) {
+      throw new IllegalArgumentException("Unknown obstruction type code: " + code);
+    }
+
+    return OBSTRUCTION_TYPES[code];
+  }
+
+  private static void putVarint(ByteBuffer buffer, long value) {
+    while ((value & ~0x7FL) != 0) {
+      buffer.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buffer.put((byte) value);
+  }
+
+  private static void writeVarint(ByteArrayOutputStream output, long value) {
+    while ((value & ~0x7FL) != 0) {
+      output.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    output.write((int) value);
+  }
+
+  private static long getVarint(ByteBuffer buffer) {
+    long value = 0;
+
+    for (int shift = 0; shift < Long.SIZE; shift += 7) {
+      final var b = buffer.get();
+      value |= (long) (b & 0x7F) << shift;
+
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+
+    throw new IllegalArgumentException("Malformed varint");
+  }
+
+  private static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static byte[] toBytes(ByteBuffer buffer) {
+    final var bytes = new byte[buffer.position()];
+    buffer.flip().get(bytes);
+
+    return bytes;
+  }
+}
@@ -0,0 +1,81 @@
+package com.riepka.postlayoutapi.resources;
+
+import com.riepka.postlayoutapi.entity.LayoutCalculationInput;
+import com.riepka.postlayoutapi.entity.PostLayoutOption;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+/**
+ * Reads layout request and writes layout options in {@link PostLayoutBinaryCodec} format, so clients choose
+ * JSON or binary format with Content-Type and Accept headers. Other types are left to JSON converter.
+ * Converter has to follow JSON converter, so JSON stays default format of clients accepting any media type.
+ */
+public class PostLayoutBinaryMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+  public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(PostLayoutBinaryCodec.MEDIA_TYPE);
+
+  private static final ResolvableType OPTIONS_TYPE = ResolvableType.forClassWithGenerics(
+      List.class,
+      PostLayoutOption.class
+  );
+
+  public PostLayoutBinaryMessageConverter() {
+    super(MEDIA_TYPE);
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return LayoutCalculationInput.class == clazz;
+  }
+
+  @Override
+  public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+    return LayoutCalculationInput.class == type && canRead(mediaType);
+  }
+
+  @Override
+  public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+    // options type can be checked only with generic type
+    return false;
+  }
+
+  @Override
+  public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+    return type != null && OPTIONS_TYPE.isAssignableFrom(ResolvableType.forType(type)) && canWrite(mediaType);
+  }
+
+  @Override
+  public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+    return getSupportedMediaTypes();
+  }
+
+  @Override
+  public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+    return readInternal(LayoutCalculationInput.class, inputMessage);
+  }
+
+  @Override
+  protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+    try {
+      return PostLayoutBinaryCodec.decodeInput(inputMessage.getBody().readAllBytes());
+    } catch (IllegalArgumentException e) {
+      throw new HttpMessageNotReadableException("Malformed layout request: " + e.getMessage(), e, inputMessage);
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  protected void writeInternal(Object options, Type type, HttpOutputMessage outputMessage) throws IOException {
+    final var data = PostLayoutBinaryCodec.encodeOptions((List<PostLayoutOption>) options);
+
+    outputMessage.getHeaders().setContentLength(data.length);
+    outputMessage.getBody().write(data);
+  }
+}
@@ -1,27 +1,101 @@
 package com.riepka.postlayoutapi.resources;
 
+import com.riepka.postlayoutapi.config.PostLayoutProperties.SolverStrategy;
+import com.riepka.postlayoutapi.entity.BatchCalculationInput;
+import com.riepka.postlayoutapi.entity.BatchCalculationResult;
 import com.riepka.postlayoutapi.entity.LayoutCalculationInput;
 import com.riepka.postlayoutapi.entity.PostLayoutOption;
+import com.riepka.postlayoutapi.entity.SweepCalculationInput;
+import com.riepka.postlayoutapi.entity.SweepCalculationResult;
+import com.riepka.postlayoutapi.services.BatchPostLayoutService;
 import com.riepka.postlayoutapi.services.PostLayoutService;
+import com.riepka.postlayoutapi.services.PostLayoutStreamService;
+import com.riepka.postlayoutapi.services.SweepPostLayoutService;
 import jakarta.validation.Valid;
+import java.time.Duration;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-@CrossOrigin
+@CrossOrigin(exposedHeaders = PostLayoutResource.RESULT_TRUNCATED_HEADER)
 @RestController
 @RequestMapping("/api/v1/post-layout")
 @RequiredArgsConstructor
 public class PostLayoutResource {
 
+  // calculation time budget in milliseconds set by client
+  public static final String TIME_BUDGET_HEADER = "X-Time-Budget-Ms";
+  // true if calculation time was over and options are the best found so far
+  public static final String RESULT_TRUNCATED_HEADER = "X-Result-Truncated";
+  // solver strategy (HEURISTIC, OPTIMAL, AUTO) chosen by client, configured strategy is used without it
+  public static final String SOLVER_PARAMETER = "solver";
+
   private final PostLayoutService service;
+  private final BatchPostLayoutService batchService;
+  private final PostLayoutStreamService streamService;
+  private final SweepPostLayoutService sweepService;
 
+  /**
+   * Calculates layout options. Request and options are sent as JSON or in compact binary format
+   * ({@link PostLayoutBinaryCodec#MEDIA_TYPE}) according to Content-Type and Accept headers.
+   * Solver strategy can be chosen with "solver" parameter.
+   * Errors are written as problem details (application/problem+json) whatever format client accepts.
+   */
   @PostMapping
-  public List<PostLayoutOption> calculateLayout(@RequestBody @Valid LayoutCalculationInput input) {
-    return service.calcPostLayout(input);
+  public ResponseEntity<List<PostLayoutOption>> calculateLayout(
+      @RequestBody @Valid LayoutCalculationInput input,
+      @RequestHeader(name = TIME_BUDGET_HEADER, required = false) Long timeBudgetMs,
+      @RequestParam(name = SOLVER_PARAMETER, required = false) SolverStrategy solver
+  ) {
+    final var result = service.calcPostLayout(input, toBudget(timeBudgetMs), null, solver);
+
+    return ResponseEntity.ok()
+        .header(RESULT_TRUNCATED_HEADER, String.valueOf(result.truncated()))
+        .body(result.options());
+  }
+
+  /**
+   * Streams options as server-sent events: "progress" events with the best options found so far (the first one is
+   * sent at once), then "result" event with final options and truncation flag. Calculation rejected after the stream
+   * is started ends it with "error" event with problem detail (and reconnect time of Retry-After).
+   */
+  @PostMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamLayout(
+      @RequestBody @Valid LayoutCalculationInput input,
+      @RequestHeader(name = TIME_BUDGET_HEADER, required = false) Long timeBudgetMs,
+      @RequestParam(name = SOLVER_PARAMETER, required = false) SolverStrategy solver
+  ) {
+    return streamService.streamPostLayout(input, toBudget(timeBudgetMs), solver);
+  }
+
+  @PostMapping("/batch")
+  public BatchCalculationResult calculateLayouts(@RequestBody @Valid BatchCalculationInput input) {
+    return batchService.calcPostLayouts(input);
+  }
+
+  /**
+   * Calculates the run for every combination of post sizes and panel max lengths within one time budget.
+   */
+  @PostMapping("/sweep")
+  public SweepCalculationResult calculateSweep(
+      @RequestBody @Valid SweepCalculationInput input,
+      @RequestHeader(name = TIME_BUDGET_HEADER, required = false) Long timeBudgetMs
+  ) {
+    return sweepService.calcSweep(input, toBudget(timeBudgetMs));
+  }
+
+  private Duration toBudget(Long timeBudgetMs) {
+    return timeBudgetMs == null
+        ? null
+        : Duration.ofMillis(timeBudgetMs);
   }
 }
@@ -0,0 +1,110 @@
+package com.riepka.postlayoutapi.services;
+
+import com.riepka.postlayoutapi.config.CalculationExecutorConfig;
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import com.riepka.postlayoutapi.entity.BatchCalculationInput;
+import com.riepka.postlayoutapi.entity.BatchCalculationResult;
+import com.riepka.postlayoutapi.entity.BatchRunInput;
+import com.riepka.postlayoutapi.entity.BatchRunResult;
+import jakarta.validation.Validator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+@Component
+@RequiredArgsConstructor
+public class BatchPostLayoutService {
+
+  private final PostLayoutService service;
+  private final PostLayoutProperties properties;
+  private final Validator validator;
+  @Qualifier(CalculationExecutorConfig.BATCH_EXECUTOR)
+  private final Executor batchExecutor;
+
+  /**
+   * Calculates layouts for all runs of the batch concurrently (not more than configured number at the same time).
+   * Failure of one run (invalid input, rejected or failed calculation) is reported only in this run result.
+   *
+   * @param input batch of runs with client ids
+   * @return run results keyed by run id (in request order)
+   */
+  public BatchCalculationResult calcPostLayouts(BatchCalculationInput input) {
+    final var runs = input.getRuns();
+    validateBatch(runs);
+
+    final var inFlightPermits = new Semaphore(properties.getBatch().getMaxParallelRuns());
+    final var futureResults = runs.stream()
+        .map(run -> CompletableFuture.supplyAsync(() -> calcRunWithPermit(run, inFlightPermits), batchExecutor))
+        .toList();
+
+    final Map<String, BatchRunResult> results = new LinkedHashMap<>();
+    for (int i = 0; i < runs.size(); i++) {
+      results.put(runs.get(i).getId(), futureResults.get(i).join());
+    }
+
+    return new BatchCalculationResult(results);
+  }
+
+  private void validateBatch(List<BatchRunInput> runs) {
+    final var maxRuns = properties.getBatch().getMaxRuns();
+
+    if (runs.size() > maxRuns) {
+      throw new ResponseStatusException(
+          HttpStatus.PAYLOAD_TOO_LARGE,
+          "Batch contains %d runs, maximum is %d".formatted(runs.size(), maxRuns)
+      );
+    }
+
+    final var ids = new HashSet<String>();
+    for (final BatchRunInput run : runs) {
+      if (!ids.add(run.getId())) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Duplicate run id: " + run.getId());
+      }
+    }
+  }
+
+  private BatchRunResult calcRunWithPermit(BatchRunInput run, Semaphore inFlightPermits) {
+    try {
+      inFlightPermits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return BatchRunResult.failure("Calculation interrupted");
+    }
+
+    try {
+      return calcRun(run);
+    } finally {
+      inFlightPermits.release();
+    }
+  }
+
+  private BatchRunResult calcRun(BatchRunInput run) {
+    final var violations = validator.validate(run.getInput());
+
+    if (!violations.isEmpty()) {
+      return BatchRunResult.failure(violations.stream()
+          .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+          .sorted()
+          .collect(Collectors.joining(", ")));
+    }
+
+    try {
+      final var result = service.calcPostLayout(run.getInput());
+      return BatchRunResult.success(result.options(), result.truncated());
+    } catch (CalculationRejectedException e) {
+      return BatchRunResult.failure(e.getReason());
+    } catch (RuntimeException e) {
+      return BatchRunResult.failure("Calculation failed: " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package com.riepka.postlayoutapi.services;
+
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import com.riepka.postlayoutapi.services.calculators.CalculationCost;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * Admission control in front of the calculator.
+ * Cheap calculations run at once. Heavy calculations (by estimated cost) go through a separate bounded lane:
+ * not more than configured number of them run at the same time and wait for their turn, others are rejected.
+ * So a burst of heavy calculations can't take all request threads and cheap calculations keep low latency.
+ */
+@Component
+public class CalculationAdmission {
+
+  private final PostLayoutProperties.Admission properties;
+  private final Semaphore heavyLane;
+  private final AtomicInteger heavyWaiting = new AtomicInteger();
+  private final Counter cheapAdmitted;
+  private final Counter heavyAdmitted;
+  private final Counter rejectedLaneFull;
+  private final Counter rejectedWaitTimeout;
+
+  public CalculationAdmission(PostLayoutProperties properties, MeterRegistry registry) {
+    this.properties = properties.getAdmission();
+    this.heavyLane = new Semaphore(this.properties.getMaxHeavyRunning(), true);
+
+    cheapAdmitted = admissionCounter(registry, "cheap", "admitted");
+    heavyAdmitted = admissionCounter(registry, "heavy", "admitted");
+    rejectedLaneFull = admissionCounter(registry, "heavy", "rejected_lane_full");
+    rejectedWaitTimeout = admissionCounter(registry, "heavy", "rejected_wait_timeout");
+    registry.gauge("post.layout.admission.heavy.waiting", heavyWaiting);
+  }
+
+  /**
+   * Runs calculation if it is admitted.
+   *
+   * @param cost        estimated calculation cost
+   * @param calculation calculation
+   * @return calculation result
+   * @throws CalculationRejectedException 429 if too many heavy calculations wait for their turn,
+   *                                      503 if heavy calculation hasn't got its turn in time
+   */
+  public <T> T admit(CalculationCost cost, Supplier<T> calculation) {
+    if (!isHeavy(cost)) {
+      cheapAdmitted.increment();
+      return calculation.get();
+    }
+
+    acquireHeavyLane();
+    heavyAdmitted.increment();
+
+    try {
+      return calculation.get();
+    } finally {
+      heavyLane.release();
+    }
+  }
+
+  /**
+   * @return true if calculation goes through the heavy lane
+   */
+  public boolean isHeavy(CalculationCost cost) {
+    return properties.isEnabled() && cost.work() >= properties.getHeavyWork();
+  }
+
+  private void acquireHeavyLane() {
+    if (heavyLane.tryAcquire()) {
+      return;
+    }
+
+    if (heavyWaiting.incrementAndGet() > properties.getMaxHeavyWaiting()) {
+      heavyWaiting.decrementAndGet();
+      rejectedLaneFull.increment();
+
+      throw new CalculationRejectedException(
+          HttpStatus.TOO_MANY_REQUESTS,
+          "Too many heavy calculations, try again later",
+          properties.getRetryAfter()
+      );
+    }
+
+    try {
+      if (!heavyLane.tryAcquire(properties.getMaxWait().toNanos(), TimeUnit.NANOSECONDS)) {
+        rejectedWaitTimeout.increment();
+
+        throw new CalculationRejectedException(
+            HttpStatus.SERVICE_UNAVAILABLE,
+            "Heavy calculations lane is busy, try again later",
+            properties.getRetryAfter()
+        );
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+
+      throw new CalculationRejectedException(
+          HttpStatus.SERVICE_UNAVAILABLE,
+          "Calculation interrupted",
+          properties.getRetryAfter()
+      );
+    } finally {
+      heavyWaiting.decrementAndGet();
+    }
+  }
+
+  private Counter admissionCounter(MeterRegistry registry, String lane, String outcome) {
+    return Counter.builder("post.layout.admission")
+        .description("Calculations admission decisions")
+        .tag("lane", lane)
+        .tag("outcome", outcome)
+        .register(registry);
+  }
+}
@@ -0,0 +1,145 @@
+package com.riepka.postlayoutapi.services;
+
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import com.riepka.postlayoutapi.config.PostLayoutProperties.SolverStrategy;
+import com.riepka.postlayoutapi.entity.CalculationData;
+import com.riepka.postlayoutapi.services.calculators.CalculationResult;
+import com.riepka.postlayoutapi.services.calculators.Deadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.DoubleToLongFunction;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Single-flight calculations: concurrent requests with the same canonical input and time budget share one
+ * calculation in progress. The first request (leader) calculates, requests coming while it runs wait for its result
+ * or error. Requests with budgets of different buckets don't share calculation, so a request with long budget doesn't
+ * get result truncated by budget of another request. Requests wait for leader till their own deadline at most,
+ * then calculate themselves (getting the best options found before their deadline).
+ * Calculations in progress are kept in concurrent map, so requests with different inputs don't block each other.
+ */
+@Component
+public class CalculationCoalescer {
+
+  // requests with time budgets in the same bucket share calculation
+  private static final long BUDGET_BUCKET_MILLIS = 100;
+
+  private final boolean enabled;
+  private final DoubleToLongFunction quantizer;
+  private final ConcurrentMap<FlightKey, CompletableFuture<CalculationResult>> inFlight = new ConcurrentHashMap<>();
+  private final Counter leaders;
+  private final Counter coalesced;
+  private final Counter expired;
+
+  public CalculationCoalescer(PostLayoutProperties properties, MeterRegistry registry) {
+    this.enabled = properties.getCoalescing().isEnabled();
+    this.quantizer = LayoutCacheKey.quantizer(properties);
+
+    leaders = coalescingCounter(registry, "leader");
+    coalesced = coalescingCounter(registry, "coalesced");
+    expired = coalescingCounter(registry, "expired");
+    registry.gaugeMapSize("post.layout.coalescing.in.flight", Tags.empty(), inFlight);
+  }
+
+  /**
+   * Runs calculation or joins the same calculation already in progress.
+   *
+   * @param data        calculation input
+   * @param solver      strategy the input is solved with
+   * @param budget      effective time budget of the request
+   * @param deadline    deadline of the request, coalesced request waits for leader till it
+   * @param calculation calculation of result for the input within the request deadline
+   * @return calculation result, shared with requests coalesced with this one
+   */
+  public CalculationResult calculate(
+      CalculationData data,
+      SolverStrategy solver,
+      Duration budget,
+      Deadline deadline,
+      Supplier<CalculationResult> calculation
+  ) {
+    if (!enabled) {
+      return calculation.get();
+    }
+
+    final var key = new FlightKey(LayoutCacheKey.of(data, solver, quantizer), budget.toMillis() / BUDGET_BUCKET_MILLIS);
+    final var future = new CompletableFuture<CalculationResult>();
+    final var inFlightFuture = inFlight.putIfAbsent(key, future);
+
+    if (inFlightFuture != null) {
+      coalesced.increment();
+      return join(inFlightFuture, deadline, calculation);
+    }
+
+    leaders.increment();
+
+    try {
+      final var result = calculation.get();
+      future.complete(result);
+
+      return result;
+    } catch (RuntimeException | Error e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, future);
+    }
+  }
+
+  /**
+   * @return number of calculations in progress
+   */
+  public int inFlight() {
+    return inFlight.size();
+  }
+
+  /**
+   * Waits for leader result till the request deadline. Leader error is rethrown as is, so coalesced requests get
+   * the same response. If deadline is reached first, the request calculates itself.
+   */
+  private CalculationResult join(
+      CompletableFuture<CalculationResult> future,
+      Deadline deadline,
+      Supplier<CalculationResult> calculation
+  ) {
+    try {
+      return future.get(Math.max(deadline.remainingNanos(), 0), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      expired.increment();
+      return calculation.get();
+    } catch (InterruptedException e) {
+      // interrupted request is rejected by CPU guard of its own calculation
+      Thread.currentThread().interrupt();
+      return calculation.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error cause) {
+        throw cause;
+      }
+
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private Counter coalescingCounter(MeterRegistry registry, String role) {
+    return Counter.builder("post.layout.coalescing")
+        .description("Calculations run by leader request, shared with coalesced requests or not waited for till"
+            + " coalesced request deadline")
+        .tag("role", role)
+        .register(registry);
+  }
+
+  private record FlightKey(LayoutCacheKey layout, long budgetBucket) {
+  }
+}
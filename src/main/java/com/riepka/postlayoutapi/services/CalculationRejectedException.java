@@ -0,0 +1,35 @@
+package com.riepka.postlayoutapi.services;
+
+import java.io.Serial;
+import java.time.Duration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Calculation isn't admitted because heavy calculations lane is saturated. Response has Retry-After header.
+ */
+public class CalculationRejectedException extends ResponseStatusException {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  private final Duration retryAfter;
+
+  public CalculationRejectedException(HttpStatus status, String reason, Duration retryAfter) {
+    super(status, reason);
+    this.retryAfter = retryAfter;
+  }
+
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+
+  @Override
+  public HttpHeaders getHeaders() {
+    final var headers = new HttpHeaders();
+    headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(retryAfter.toSeconds(), 1)));
+
+    return headers;
+  }
+}
@@ -0,0 +1,203 @@
+package com.riepka.postlayoutapi.services;
+
+import com.riepka.postlayoutapi.config.CalculationExecutorConfig;
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import com.riepka.postlayoutapi.config.PostLayoutProperties.SolverStrategy;
+import com.riepka.postlayoutapi.entity.CalculationData;
+import com.riepka.postlayoutapi.entity.PostLayoutOption;
+import com.riepka.postlayoutapi.services.ShadowMismatchLog.Mismatch;
+import com.riepka.postlayoutapi.services.calculators.CalculationResult;
+import com.riepka.postlayoutapi.services.calculators.Deadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Differential comparison of solver strategies on live traffic. Sampled calculations are repeated in background
+ * by shadow strategy, their top options are compared and mismatches are written to {@link ShadowMismatchLog}.
+ * Difference of shadow and calculation strategies times is exported as histogram. Request calculation time isn't
+ * comparable (it uses shared segments cache and parallel segments solving), so calculation strategy is timed again
+ * on shadow thread in the same conditions as shadow strategy: isolated, with segments solved on calling thread.
+ * Shadow calculations run on their own bounded executor, calculations that don't fit are dropped, so calculation
+ * never waits for its shadow.
+ */
+@Component
+public class CalculationShadow {
+
+  private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+  private final PostLayoutProperties properties;
+  private final LayoutSolverSelector solverSelector;
+  private final ShadowMismatchLog mismatchLog;
+  private final Executor shadowExecutor;
+  private final Counter matches;
+  private final Counter mismatches;
+  private final Counter truncated;
+  private final Counter failed;
+  private final Counter dropped;
+  private final Timer slowerDelta;
+  private final Timer fasterDelta;
+
+  public CalculationShadow(
+      PostLayoutProperties properties,
+      LayoutSolverSelector solverSelector,
+      ShadowMismatchLog mismatchLog,
+      MeterRegistry registry,
+      @Qualifier(CalculationExecutorConfig.SHADOW_EXECUTOR) Executor shadowExecutor
+  ) {
+    this.properties = properties;
+    this.solverSelector = solverSelector;
+    this.mismatchLog = mismatchLog;
+    this.shadowExecutor = shadowExecutor;
+
+    matches = shadowCounter(registry, "match");
+    mismatches = shadowCounter(registry, "mismatch");
+    truncated = shadowCounter(registry, "truncated");
+    failed = shadowCounter(registry, "failed");
+    dropped = shadowCounter(registry, "dropped");
+    slowerDelta = latencyDeltaTimer(registry, "slower");
+    fasterDelta = latencyDeltaTimer(registry, "faster");
+  }
+
+  /**
+   * Repeats calculation by shadow strategy in background if it is sampled. Returns at once.
+   * Truncated calculations aren't repeated, their options depend on time budget.
+   *
+   * @param calcData      calculation data with sorted obstructions
+   * @param primarySolver strategy the calculation was run with
+   * @param primary       calculation result
+   */
+  public void submit(CalculationData calcData, SolverStrategy primarySolver, CalculationResult primary) {
+    final var shadow = properties.getShadow();
+
+    if (!shadow.isEnabled()
+        || primary.truncated()
+        || ThreadLocalRandom.current().nextDouble() >= shadow.getSampleRate()) {
+      return;
+    }
+
+    final var primaryOptions = top(primary.options(), shadow.getTopOptions());
+
+    try {
+      shadowExecutor.execute(() -> {
+        try {
+          compare(calcData, primarySolver, primaryOptions);
+        } catch (RuntimeException e) {
+          failed.increment();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      dropped.increment();
+    }
+  }
+
+  /**
+   * Calculates options by shadow strategy and compares them with calculation options.
+   * Calculations already run by shadow strategy aren't repeated.
+   */
+  private void compare(CalculationData calcData, SolverStrategy primarySolver, List<PostLayoutOption> primaryOptions) {
+    final var shadow = properties.getShadow();
+    final var shadowSolver = solverSelector.resolve(shadow.getStrategy(), calcData);
+
+    if (shadowSolver == primarySolver) {
+      return;
+    }
+
+    final var primaryStart = System.nanoTime();
+    final var primary = calculateIsolated(primarySolver, calcData);
+    final var primaryNanos = System.nanoTime() - primaryStart;
+
+    final var shadowStart = System.nanoTime();
+    final var result = calculateIsolated(shadowSolver, calcData);
+    final var shadowNanos = System.nanoTime() - shadowStart;
+
+    if (primary.truncated() || result.truncated()) {
+      truncated.increment();
+      return;
+    }
+
+    final var delta = shadowNanos - primaryNanos;
+    if (delta >= 0) {
+      slowerDelta.record(delta, TimeUnit.NANOSECONDS);
+    } else {
+      fasterDelta.record(-delta, TimeUnit.NANOSECONDS);
+    }
+
+    final var shadowOptions = top(result.options(), shadow.getTopOptions());
+
+    if (areSame(primaryOptions, shadowOptions, shadow.getTolerance())) {
+      matches.increment();
+      return;
+    }
+
+    mismatches.increment();
+    mismatchLog.write(new Mismatch(
+        Instant.now(),
+        primarySolver,
+        shadowSolver,
+        primaryNanos / NANOS_PER_MILLI,
+        shadowNanos / NANOS_PER_MILLI,
+        calcData,
+        primaryOptions,
+        shadowOptions
+    ));
+  }
+
+  private CalculationResult calculateIsolated(SolverStrategy solver, CalculationData calcData) {
+    return solverSelector.factory(solver)
+        .createIsolated(calcData, Deadline.after(properties.getShadow().getTimeBudget()))
+        .calculateWithStatus(null);
+  }
+
+  private static List<PostLayoutOption> top(List<PostLayoutOption> options, int number) {
+    return List.copyOf(options.subList(0, Math.min(number, options.size())));
+  }
+
+  /**
+   * Options are the same if they are in the same order and their posts locations differ less than tolerance
+   */
+  static boolean areSame(List<PostLayoutOption> options, List<PostLayoutOption> otherOptions, double tolerance) {
+    if (options.size() != otherOptions.size()) {
+      return false;
+    }
+
+    for (int i = 0; i < options.size(); i++) {
+      final var locations = options.get(i).getPostLocations();
+      final var otherLocations = otherOptions.get(i).getPostLocations();
+
+      if (locations.size() != otherLocations.size()) {
+        return false;
+      }
+      for (int j = 0; j < locations.size(); j++) {
+        if (Math.abs(locations.get(j) - otherLocations.get(j)) > tolerance) {
+          return false;
+        }
+      }
+    }
+
+    return true;
+  }
+
+  private Counter shadowCounter(MeterRegistry registry, String result) {
+    return Counter.builder("post.layout.shadow")
+        .description("Shadow calculations by result of comparison with calculation options")
+        .tag("result", result)
+        .register(registry);
+  }
+
+  private Timer latencyDeltaTimer(MeterRegistry registry, String shadow) {
+    return Timer.builder("post.layout.shadow.latency.delta")
+        .description("Difference of shadow strategy and calculation strategy times of isolated calculations")
+        .tag("shadow", shadow)
+        .publishPercentileHistogram()
+        .register(registry);
+  }
+}
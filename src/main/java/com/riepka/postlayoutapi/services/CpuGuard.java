@@ -0,0 +1,65 @@
+package com.riepka.postlayoutapi.services;
+
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits CPU bound calculations running at the same time.
+ * Calculations are started on request threads and on virtual threads of stream, batch and sweep executors (and on
+ * virtual request threads with spring.threads.virtual), none of them is bounded by CPU cores number. Without the
+ * limit every started calculation would run at once and all of them would share (and oversubscribe) CPU.
+ * Waiting virtual threads are unmounted, so they don't hold carriers.
+ */
+@Component
+public class CpuGuard {
+
+  private final Semaphore permits;
+  private final Duration retryAfter;
+
+  public CpuGuard(PostLayoutProperties properties) {
+    final var maxCalculations = properties.getCpu().getMaxCalculations() > 0
+        ? properties.getCpu().getMaxCalculations()
+        : Runtime.getRuntime().availableProcessors();
+
+    this.permits = new Semaphore(maxCalculations, true);
+    this.retryAfter = properties.getAdmission().getRetryAfter();
+  }
+
+  /**
+   * Runs calculation when CPU permit is available.
+   *
+   * @param calculation CPU bound calculation
+   * @return calculation result
+   * @throws CalculationRejectedException 503 if thread is interrupted while waiting for permit
+   */
+  public <T> T run(Supplier<T> calculation) {
+    try {
+      permits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+
+      throw new CalculationRejectedException(
+          HttpStatus.SERVICE_UNAVAILABLE,
+          "Calculation interrupted",
+          retryAfter
+      );
+    }
+
+    try {
+      return calculation.get();
+    } finally {
+      permits.release();
+    }
+  }
+
+  /**
+   * @return number of calculations that can be started at once
+   */
+  public int availablePermits() {
+    return permits.availablePermits();
+  }
+}
@@ -0,0 +1,74 @@
+package com.riepka.postlayoutapi.services;
+
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import com.riepka.postlayoutapi.config.PostLayoutProperties.CoordinatesType;
+import com.riepka.postlayoutapi.config.PostLayoutProperties.SolverStrategy;
+import com.riepka.postlayoutapi.entity.CalculationData;
+import com.riepka.postlayoutapi.entity.Obstruction;
+import com.riepka.postlayoutapi.entity.ObstructionType;
+import com.riepka.postlayoutapi.services.calculators.FixedPointScale;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.DoubleToLongFunction;
+
+/**
+ * Canonical calculation input with solver strategy used as cache key.
+ * All sizes and locations are quantized, obstructions are sorted, so inputs that differ only by obstructions order or
+ * less than quantization step have equal keys.
+ */
+record LayoutCacheKey(
+    SolverStrategy solver,
+    long postSize,
+    long panelMaxLength,
+    long runLength,
+    List<ObstructionKey> obstructions
+) {
+
+  private static final Comparator<ObstructionKey> OBSTRUCTIONS_ORDER = Comparator
+      .comparingLong(ObstructionKey::location)
+      .thenComparingLong(ObstructionKey::size)
+      .thenComparing(ObstructionKey::type);
+
+  /**
+   * Fixed-point engine calculates with lengths rounded to whole resolution units, so inputs rounded to the same units
+   * have the same result and are quantized the same way. Otherwise lengths are quantized with cache precision.
+   *
+   * @return quantization of lengths for cache keys
+   */
+  static DoubleToLongFunction quantizer(PostLayoutProperties properties) {
+    final var engine = properties.getEngine();
+
+    if (engine.getCoordinates() == CoordinatesType.FIXED_POINT) {
+      return FixedPointScale.ofResolution(engine.getResolution())::toUnits;
+    }
+
+    final var precision = properties.getCache().getPrecision();
+    return value -> Math.round(value / precision);
+  }
+
+  static LayoutCacheKey of(CalculationData data, SolverStrategy solver, DoubleToLongFunction quantizer) {
+    final var obstructions = data.getObstructions().stream()
+        .map(obstruction -> ObstructionKey.of(obstruction, quantizer))
+        .sorted(OBSTRUCTIONS_ORDER)
+        .toList();
+
+    return new LayoutCacheKey(
+        solver,
+        quantizer.applyAsLong(data.getPostSize()),
+        quantizer.applyAsLong(data.getPanelMaxLength()),
+        quantizer.applyAsLong(data.getRunHorLength()),
+        obstructions
+    );
+  }
+
+  record ObstructionKey(long size, long location, ObstructionType type) {
+
+    static ObstructionKey of(Obstruction obstruction, DoubleToLongFunction quantizer) {
+      return new ObstructionKey(
+          quantizer.applyAsLong(obstruction.size()),
+          quantizer.applyAsLong(obstruction.location()),
+          obstruction.type()
+      );
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package com.riepka.postlayoutapi.services;
+
+import com.riepka.postlayoutapi.entity.CalculationData;
+import com.riepka.postlayoutapi.entity.LayoutSessionResult;
+import com.riepka.postlayoutapi.entity.Obstruction;
+import com.riepka.postlayoutapi.entity.SessionObstruction;
+import com.riepka.postlayoutapi.services.calculators.CalculationResult;
+import com.riepka.postlayoutapi.services.calculators.IncrementalSegments;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Run state kept on server between edits with the state of its last calculation.
+ * All access goes under the session lock (calculation included), so edits of the same session are applied one by one.
+ */
+class LayoutSession {
+
+  private final String id;
+  private final double postSize;
+  private final double panelMaxLength;
+  private final IncrementalSegments incrementalSegments = new IncrementalSegments();
+  // lock (not synchronized) doesn't pin virtual thread carrier while layout is calculated
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private double runLength;
+  // obstructions by their ids in order they were added
+  private Map<String, Obstruction> obstructions = new LinkedHashMap<>();
+  private long lastObstructionId;
+  private CalculationResult result;
+
+  LayoutSession(String id, double postSize, double panelMaxLength, double runLength) {
+    this.id = id;
+    this.postSize = postSize;
+    this.panelMaxLength = panelMaxLength;
+    this.runLength = runLength;
+  }
+
+  String getId() {
+    return id;
+  }
+
+  ReentrantLock getLock() {
+    return lock;
+  }
+
+  IncrementalSegments getIncrementalSegments() {
+    return incrementalSegments;
+  }
+
+  double getRunLength() {
+    return runLength;
+  }
+
+  Map<String, Obstruction> getObstructions() {
+    return obstructions;
+  }
+
+  /**
+   * @return number of the last added obstruction id (ids of added obstructions are numbers following it)
+   */
+  long getLastObstructionId() {
+    return lastObstructionId;
+  }
+
+  /**
+   * Replaces run state with edited one and its calculation result
+   *
+   * @param lastObstructionId number of the last obstruction id given to edited obstructions
+   */
+  void update(
+      double runLength,
+      Map<String, Obstruction> obstructions,
+      long lastObstructionId,
+      CalculationResult result
+  ) {
+    this.runLength = runLength;
+    this.obstructions = obstructions;
+    this.lastObstructionId = lastObstructionId;
+    this.result = result;
+  }
+
+  /**
+   * @return calculation data for the session run with given (edited) run length and obstructions
+   */
+  CalculationData toCalculationData(double runLength, Map<String, Obstruction> obstructions) {
+    return CalculationData.builder()
+        .postSize(postSize)
+        .panelMaxLength(panelMaxLength)
+        .runHorLength(runLength)
+        .obstructions(List.copyOf(obstructions.values()))
+        .build();
+  }
+
+  LayoutSessionResult toResult() {
+    final List<SessionObstruction> sessionObstructions = new ArrayList<>(obstructions.size());
+
+    obstructions.forEach((obstructionId, obstruction) -> sessionObstructions.add(SessionObstruction.builder()
+        .id(obstructionId)
+        .size(obstruction.size())
+        .location(obstruction.location())
+        .type(obstruction.type())
+        .build()));
+
+    return LayoutSessionResult.builder()
+        .sessionId(id)
+        .runHorLength(runLength)
+        .obstructions(sessionObstructions)
+        .options(result.options())
+        .truncated(result.truncated())
+        .build();
+  }
+}
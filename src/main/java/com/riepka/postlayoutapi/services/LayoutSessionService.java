@@ -0,0 +1,189 @@
+package com.riepka.postlayoutapi.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import com.riepka.postlayoutapi.entity.LayoutCalculationInput;
+import com.riepka.postlayoutapi.entity.LayoutSessionResult;
+import com.riepka.postlayoutapi.entity.Obstruction;
+import com.riepka.postlayoutapi.entity.ObstructionInput;
+import com.riepka.postlayoutapi.entity.SessionEdit;
+import com.riepka.postlayoutapi.mapper.CalculationDataMapper;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Layout sessions: run state kept on server and edited by delta operations.
+ * Every edit recalculates only segments with changed bounds or obstructions, other segments solutions and
+ * combinations are taken from the previous session calculation.
+ * Segments are bounded by PLACE_POST obstructions, so reuse granularity is a whole segment: edit of a run without
+ * PLACE_POST obstructions (or of a long segment) recalculates it completely, as the first calculation does.
+ */
+@Component
+public class LayoutSessionService {
+
+  private final PostLayoutService service;
+  private final CalculationDataMapper mapper;
+  // sessions are evicted when they aren't used for idle timeout
+  private final Cache<String, LayoutSession> sessions;
+
+  public LayoutSessionService(
+      PostLayoutService service,
+      CalculationDataMapper mapper,
+      PostLayoutProperties properties
+  ) {
+    this.service = service;
+    this.mapper = mapper;
+    this.sessions = Caffeine.newBuilder()
+        .maximumSize(properties.getSession().getMaxSessions())
+        .expireAfterAccess(properties.getSession().getIdleTimeout())
+        .build();
+  }
+
+  /**
+   * Creates session with given run and calculates its layout
+   *
+   * @param input run
+   * @return session state with calculated options
+   */
+  public LayoutSessionResult createSession(LayoutCalculationInput input) {
+    final var session = new LayoutSession(
+        UUID.randomUUID().toString(),
+        input.getPostSize(),
+        input.getPanelMaxLength(),
+        input.getRunHorLength()
+    );
+
+    final Map<String, Obstruction> obstructions = new LinkedHashMap<>();
+    for (final ObstructionInput obstruction : input.getObstructions()) {
+      obstructions.put(String.valueOf(obstructions.size() + 1), mapper.toObstruction(obstruction));
+    }
+
+    return withLock(session, locked -> {
+      recalculate(locked, input.getRunHorLength(), obstructions, obstructions.size());
+      sessions.put(locked.getId(), locked);
+
+      return locked.toResult();
+    });
+  }
+
+  /**
+   * @param sessionId session id
+   * @return session state with options of its last calculation
+   */
+  public LayoutSessionResult getSession(String sessionId) {
+    return withLock(findSession(sessionId), LayoutSession::toResult);
+  }
+
+  /**
+   * Applies edits and recalculates layout. Session isn't changed if any edit is invalid or calculation fails
+   * (ids of obstructions added by rejected edits aren't used up either).
+   *
+   * @param sessionId session id
+   * @param edits     edits applied in order
+   * @return session state with recalculated options
+   */
+  public LayoutSessionResult editSession(String sessionId, List<SessionEdit> edits) {
+    return withLock(findSession(sessionId), session -> {
+      final Map<String, Obstruction> obstructions = new LinkedHashMap<>(session.getObstructions());
+      var runLength = session.getRunLength();
+      var lastObstructionId = session.getLastObstructionId();
+
+      for (final SessionEdit edit : edits) {
+        switch (edit.getOperation()) {
+          case ADD_OBSTRUCTION -> obstructions.put(
+              String.valueOf(++lastObstructionId),
+              mapper.toObstruction(required(edit.getObstruction(), "obstruction", edit))
+          );
+          case MOVE_OBSTRUCTION -> {
+            final var obstructionId = existingObstructionId(obstructions, edit);
+            final var obstruction = obstructions.get(obstructionId);
+            final var location = required(edit.getLocation(), "location", edit);
+
+            obstructions.put(obstructionId, new Obstruction(obstruction.size(), location, obstruction.type()));
+          }
+          case REMOVE_OBSTRUCTION -> obstructions.remove(existingObstructionId(obstructions, edit));
+          case SET_RUN_LENGTH -> runLength = required(edit.getRunHorLength(), "runHorLength", edit);
+        }
+      }
+
+      recalculate(session, runLength, obstructions, lastObstructionId);
+
+      return session.toResult();
+    });
+  }
+
+  public void deleteSession(String sessionId) {
+    sessions.invalidate(sessionId);
+  }
+
+  /**
+   * @return approximate number of sessions
+   */
+  public long size() {
+    return sessions.estimatedSize();
+  }
+
+  /**
+   * Calculates edited run and saves it to session, session isn't changed if calculation fails
+   */
+  private void recalculate(
+      LayoutSession session,
+      double runLength,
+      Map<String, Obstruction> obstructions,
+      long lastObstructionId
+  ) {
+    final var result = service.calcPostLayout(
+        session.toCalculationData(runLength, obstructions),
+        session.getIncrementalSegments()
+    );
+
+    session.update(runLength, obstructions, lastObstructionId, result);
+  }
+
+  private LayoutSession findSession(String sessionId) {
+    final var session = sessions.getIfPresent(sessionId);
+
+    if (session == null) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Session not found: " + sessionId);
+    }
+
+    return session;
+  }
+
+  private <T> T withLock(LayoutSession session, Function<LayoutSession, T> action) {
+    session.getLock().lock();
+    try {
+      return action.apply(session);
+    } finally {
+      session.getLock().unlock();
+    }
+  }
+
+  private String existingObstructionId(Map<String, Obstruction> obstructions, SessionEdit edit) {
+    final var obstructionId = required(edit.getObstructionId(), "obstructionId", edit);
+
+    if (!obstructions.containsKey(obstructionId)) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown obstruction id: " + obstructionId);
+    }
+
+    return obstructionId;
+  }
+
+  private <T> T required(T value, String name, SessionEdit edit) {
+    if (value == null) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST,
+          "%s is required for %s".formatted(name, edit.getOperation())
+      );
+    }
+
+    return value;
+  }
+}
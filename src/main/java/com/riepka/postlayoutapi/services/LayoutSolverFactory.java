@@ -0,0 +1,50 @@
+package com.riepka.postlayoutapi.services;
+
+import com.riepka.postlayoutapi.config.PostLayoutProperties.SolverStrategy;
+import com.riepka.postlayoutapi.entity.CalculationData;
+import com.riepka.postlayoutapi.services.calculators.Deadline;
+import com.riepka.postlayoutapi.services.calculators.IncrementalSegments;
+import com.riepka.postlayoutapi.services.calculators.LayoutSolver;
+import com.riepka.postlayoutapi.services.calculators.OptimalSearch;
+import com.riepka.postlayoutapi.services.calculators.PreparedObstructions;
+
+/**
+ * Creates solvers of one strategy. Factories registered as beans are selected by {@link LayoutSolverSelector}.
+ */
+public interface LayoutSolverFactory {
+
+  /**
+   * @return strategy of created solvers
+   */
+  SolverStrategy strategy();
+
+  /**
+   * @return optimal search settings of created solvers, null if segments are solved by posts shifting
+   */
+  OptimalSearch optimalSearch();
+
+  /**
+   * @param calcData             calculation data with sorted obstructions
+   * @param deadline             deadline searches are stopped at
+   * @param incrementalSegments  state of the previous calculation of the run, null if run isn't calculated
+   *                             incrementally
+   * @param preparedObstructions prepared obstructions of the run, null if they aren't prepared
+   * @return solver of the run
+   */
+  LayoutSolver create(
+      CalculationData calcData,
+      Deadline deadline,
+      IncrementalSegments incrementalSegments,
+      PreparedObstructions preparedObstructions
+  );
+
+  /**
+   * Creates solver for background calculation: segments are solved on calling thread, solutions aren't shared with
+   * other calculations and metrics aren't recorded, so request calculations aren't affected by it.
+   *
+   * @param calcData calculation data with sorted obstructions
+   * @param deadline deadline searches are stopped at
+   * @return solver of the run
+   */
+  LayoutSolver createIsolated(CalculationData calcData, Deadline deadline);
+}
@@ -0,0 +1,66 @@
+package com.riepka.postlayoutapi.services;
+
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import com.riepka.postlayoutapi.config.PostLayoutProperties.SolverStrategy;
+import com.riepka.postlayoutapi.entity.CalculationData;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Selects solver strategy of calculation: strategy requested by client, configured strategy otherwise.
+ * {@link SolverStrategy#AUTO} is resolved by run length: optimal search for short runs (its work grows with length),
+ * posts shifting heuristic for long ones.
+ */
+@Component
+public class LayoutSolverSelector {
+
+  private final PostLayoutProperties properties;
+  private final Map<SolverStrategy, LayoutSolverFactory> factories = new EnumMap<>(SolverStrategy.class);
+
+  public LayoutSolverSelector(PostLayoutProperties properties, List<LayoutSolverFactory> factories) {
+    this.properties = properties;
+
+    for (final LayoutSolverFactory factory : factories) {
+      if (this.factories.putIfAbsent(factory.strategy(), factory) != null) {
+        throw new IllegalStateException("Duplicate solver factory of strategy " + factory.strategy());
+      }
+    }
+  }
+
+  /**
+   * @param requested strategy requested by client, configured strategy is used if null
+   * @param calcData  calculation data
+   * @return strategy the run is calculated with (never {@link SolverStrategy#AUTO})
+   * @throws ResponseStatusException (400) if there is no solver of the strategy
+   */
+  public SolverStrategy resolve(SolverStrategy requested, CalculationData calcData) {
+    final var solver = properties.getSolver();
+    final var strategy = requested == null
+        ? solver.getStrategy()
+        : requested;
+
+    if (strategy == SolverStrategy.AUTO) {
+      return calcData.getRunHorLength() <= solver.getAutoOptimalMaxLength()
+          && factories.containsKey(SolverStrategy.OPTIMAL)
+          ? SolverStrategy.OPTIMAL
+          : SolverStrategy.HEURISTIC;
+    }
+    if (!factories.containsKey(strategy)) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Solver strategy isn't available: " + strategy);
+    }
+
+    return strategy;
+  }
+
+  /**
+   * @param strategy resolved strategy
+   * @return factory of solvers of the strategy
+   */
+  public LayoutSolverFactory factory(SolverStrategy strategy) {
+    return factories.get(strategy);
+  }
+}
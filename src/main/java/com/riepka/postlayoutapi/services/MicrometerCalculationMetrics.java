@@ -0,0 +1,83 @@
+package com.riepka.postlayoutapi.services;
+
+import com.riepka.postlayoutapi.services.calculators.CalculationMetrics;
+import com.riepka.postlayoutapi.services.calculators.CalculationPhase;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.springframework.stereotype.Component;
+
+/**
+ * Calculation metrics published to Micrometer registry.
+ * All meters are registered once on creation, so recording doesn't look meters up in registry.
+ */
+@Component
+public class MicrometerCalculationMetrics implements CalculationMetrics {
+
+  private final Map<CalculationPhase, Timer> phaseTimers = new EnumMap<>(CalculationPhase.class);
+  private final DistributionSummary candidateSolutions;
+  private final DistributionSummary prunedCandidates;
+  private final DistributionSummary shiftCombinations;
+  private final Counter fallbackSolutions;
+  private final Counter truncatedCalculations;
+
+  public MicrometerCalculationMetrics(MeterRegistry registry) {
+    for (final CalculationPhase phase : CalculationPhase.values()) {
+      phaseTimers.put(phase, Timer.builder("post.layout.phase")
+          .description("Post layout calculation phase duration")
+          .tag("phase", phase.name().toLowerCase(Locale.ROOT))
+          .register(registry));
+    }
+
+    candidateSolutions = DistributionSummary.builder("post.layout.segment.candidates")
+        .description("Candidate solutions generated for segment")
+        .register(registry);
+    prunedCandidates = DistributionSummary.builder("post.layout.segment.pruned")
+        .description("Candidate solutions dropped by segment search bound")
+        .register(registry);
+    shiftCombinations = DistributionSummary.builder("post.layout.shift.combinations")
+        .description("Evaluated combinations of posts shifted from \"Must avoid\" obstructions")
+        .register(registry);
+    fallbackSolutions = Counter.builder("post.layout.fallback.solutions")
+        .description("Segments without solutions, base layouts are returned as is")
+        .register(registry);
+    truncatedCalculations = Counter.builder("post.layout.truncated")
+        .description("Calculations stopped by deadline, best options found so far are returned")
+        .register(registry);
+  }
+
+  @Override
+  public void recordPhase(CalculationPhase phase, long durationNanos) {
+    phaseTimers.get(phase).record(durationNanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void recordCandidateSolutions(int number) {
+    candidateSolutions.record(number);
+  }
+
+  @Override
+  public void recordPrunedCandidates(int number) {
+    prunedCandidates.record(number);
+  }
+
+  @Override
+  public void recordShiftCombinations(int number) {
+    shiftCombinations.record(number);
+  }
+
+  @Override
+  public void recordFallbackSolution() {
+    fallbackSolutions.increment();
+  }
+
+  @Override
+  public void recordTruncatedCalculation() {
+    truncatedCalculations.increment();
+  }
+}
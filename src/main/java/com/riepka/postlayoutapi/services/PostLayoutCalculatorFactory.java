@@ -0,0 +1,99 @@
+package com.riepka.postlayoutapi.services;
+
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import com.riepka.postlayoutapi.config.PostLayoutProperties.CoordinatesType;
+import com.riepka.postlayoutapi.config.PostLayoutProperties.SolverStrategy;
+import com.riepka.postlayoutapi.entity.CalculationData;
+import com.riepka.postlayoutapi.services.calculators.CalculationMetrics;
+import com.riepka.postlayoutapi.services.calculators.Deadline;
+import com.riepka.postlayoutapi.services.calculators.FixedPointScale;
+import com.riepka.postlayoutapi.services.calculators.IncrementalSegments;
+import com.riepka.postlayoutapi.services.calculators.LayoutSolver;
+import com.riepka.postlayoutapi.services.calculators.OptimalSearch;
+import com.riepka.postlayoutapi.services.calculators.PostLayoutCalculator;
+import com.riepka.postlayoutapi.services.calculators.PreparedObstructions;
+import com.riepka.postlayoutapi.services.calculators.SegmentSolutionsCache;
+import java.util.concurrent.Executor;
+
+/**
+ * Creates {@link PostLayoutCalculator} configured by application properties.
+ * Segments are solved by posts shifting or, if optimal search is set, with posts placed on grid.
+ */
+public class PostLayoutCalculatorFactory implements LayoutSolverFactory {
+
+  private final SolverStrategy strategy;
+  // null if segments are solved by posts shifting
+  private final OptimalSearch optimalSearch;
+  private final PostLayoutProperties properties;
+  private final SegmentSolutionsCache segmentCache;
+  private final CalculationMetrics metrics;
+  private final Executor segmentExecutor;
+
+  public PostLayoutCalculatorFactory(
+      SolverStrategy strategy,
+      OptimalSearch optimalSearch,
+      PostLayoutProperties properties,
+      SegmentSolutionsCache segmentCache,
+      CalculationMetrics metrics,
+      Executor segmentExecutor
+  ) {
+    this.strategy = strategy;
+    this.optimalSearch = optimalSearch;
+    this.properties = properties;
+    this.segmentCache = segmentCache;
+    this.metrics = metrics;
+    this.segmentExecutor = segmentExecutor;
+  }
+
+  @Override
+  public SolverStrategy strategy() {
+    return strategy;
+  }
+
+  @Override
+  public OptimalSearch optimalSearch() {
+    return optimalSearch;
+  }
+
+  @Override
+  public LayoutSolver create(
+      CalculationData calcData,
+      Deadline deadline,
+      IncrementalSegments incrementalSegments,
+      PreparedObstructions preparedObstructions
+  ) {
+    final var parallel = properties.getParallel();
+
+    return builder(calcData, deadline)
+        .segmentExecutor(parallel.isEnabled() ? segmentExecutor : null)
+        .parallelSegmentsThreshold(parallel.getMinSegments())
+        .segmentCache(properties.getSegmentCache().isEnabled() ? segmentCache : null)
+        .metrics(metrics)
+        .incrementalSegments(incrementalSegments)
+        .preparedObstructions(preparedObstructions)
+        .build();
+  }
+
+  @Override
+  public LayoutSolver createIsolated(CalculationData calcData, Deadline deadline) {
+    return builder(calcData, deadline).build();
+  }
+
+  /**
+   * @return builder of calculator with run and engine settings
+   */
+  private PostLayoutCalculator.PostLayoutCalculatorBuilder builder(CalculationData calcData, Deadline deadline) {
+    final var engine = properties.getEngine();
+
+    return PostLayoutCalculator.builder()
+        .postSize(calcData.getPostSize())
+        .panelMaxLength(calcData.getPanelMaxLength())
+        .runLength(calcData.getRunHorLength())
+        .obstructions(calcData.getObstructions())
+        .deadline(deadline)
+        .fixedPoint(engine.getCoordinates() == CoordinatesType.FIXED_POINT
+            ? FixedPointScale.ofResolution(engine.getResolution())
+            : null)
+        .optimalSearch(optimalSearch);
+  }
+}
@@ -0,0 +1,91 @@
+package com.riepka.postlayoutapi.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import com.riepka.postlayoutapi.config.PostLayoutProperties.SolverStrategy;
+import com.riepka.postlayoutapi.entity.CalculationData;
+import com.riepka.postlayoutapi.services.calculators.CalculationResult;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.DoubleToLongFunction;
+import java.util.function.Function;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded in-process cache of calculation results keyed by canonical calculation input.
+ */
+@Component
+public class PostLayoutResultCache {
+
+  private final DoubleToLongFunction quantizer;
+  // null if cache is disabled
+  private final Cache<LayoutCacheKey, CalculationResult> cache;
+
+  public PostLayoutResultCache(PostLayoutProperties properties) {
+    final var cacheProperties = properties.getCache();
+
+    this.quantizer = LayoutCacheKey.quantizer(properties);
+    this.cache = cacheProperties.isEnabled()
+        ? Caffeine.newBuilder()
+            .maximumSize(cacheProperties.getMaxSize())
+            .expireAfterWrite(cacheProperties.getTtl())
+            .recordStats()
+            .build()
+        : null;
+  }
+
+  /**
+   * Returns cached result for the input or calculates (and caches) it.
+   * Calculation runs outside the cache, so long calculations don't block cache for other keys.
+   * Truncated results aren't cached, the next request with bigger time budget can find better options.
+   *
+   * @param data        calculation input
+   * @param solver      strategy the input is solved with
+   * @param calculation calculation of result for the input
+   * @return calculation result (with unmodifiable options list)
+   */
+  public CalculationResult getOrCalculate(
+      CalculationData data,
+      SolverStrategy solver,
+      Function<CalculationData, CalculationResult> calculation
+  ) {
+    if (cache == null) {
+      return calculation.apply(data);
+    }
+
+    final var key = LayoutCacheKey.of(data, solver, quantizer);
+    final var cachedResult = cache.getIfPresent(key);
+
+    if (cachedResult != null) {
+      return cachedResult;
+    }
+
+    final var calculatedResult = calculation.apply(data);
+    final var result = new CalculationResult(List.copyOf(calculatedResult.options()), calculatedResult.truncated());
+
+    if (!result.truncated()) {
+      cache.put(key, result);
+    }
+
+    return result;
+  }
+
+  /**
+   * @return cache statistics (hits, misses, evictions), empty if cache is disabled
+   */
+  public Optional<CacheStats> stats() {
+    return Optional.ofNullable(cache)
+        .map(Cache::stats);
+  }
+
+  /**
+   * @return approximate number of cached results
+   */
+  public long size() {
+    return cache == null
+        ? 0
+        : cache.estimatedSize();
+  }
+}
@@ -1,10 +1,21 @@
 package com.riepka.postlayoutapi.services;
 
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import com.riepka.postlayoutapi.config.PostLayoutProperties.SolverStrategy;
+import com.riepka.postlayoutapi.entity.CalculationData;
 import com.riepka.postlayoutapi.entity.LayoutCalculationInput;
-import com.riepka.postlayoutapi.entity.PostLayoutOption;
+import com.riepka.postlayoutapi.entity.Obstruction;
 import com.riepka.postlayoutapi.mapper.CalculationDataMapper;
-import com.riepka.postlayoutapi.services.calculators.PostLayoutCalculator;
-import java.util.List;
+import com.riepka.postlayoutapi.services.calculators.CalculationCostEstimator;
+import com.riepka.postlayoutapi.services.calculators.CalculationListener;
+import com.riepka.postlayoutapi.services.calculators.CalculationMetrics;
+import com.riepka.postlayoutapi.services.calculators.CalculationPhase;
+import com.riepka.postlayoutapi.services.calculators.CalculationResult;
+import com.riepka.postlayoutapi.services.calculators.Deadline;
+import com.riepka.postlayoutapi.services.calculators.IncrementalSegments;
+import com.riepka.postlayoutapi.services.calculators.PreparedObstructions;
+import java.time.Duration;
+import java.util.Comparator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
@@ -12,18 +23,200 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class PostLayoutService {
 
+  // canonical obstructions order, so result doesn't depend on order obstructions are sent in
+  static final Comparator<Obstruction> OBSTRUCTIONS_ORDER = Comparator
+      .comparingDouble(Obstruction::location)
+      .thenComparingDouble(Obstruction::size)
+      .thenComparing(Obstruction::type);
+
   private final CalculationDataMapper mapper;
+  private final PostLayoutProperties properties;
+  private final PostLayoutResultCache resultCache;
+  private final CalculationAdmission admission;
+  private final CpuGuard cpuGuard;
+  private final CalculationCoalescer coalescer;
+  private final CalculationMetrics metrics;
+  private final LayoutSolverSelector solverSelector;
+  private final CalculationShadow shadow;
+
+  /**
+   * Calculates layout options within default time budget.
+   */
+  public CalculationResult calcPostLayout(LayoutCalculationInput input) {
+    return calcPostLayout(input, null);
+  }
+
+  /**
+   * Calculates layout options. If time budget is over, best options found so far are returned as truncated result.
+   *
+   * @param input  calculation input
+   * @param budget client time budget (capped by configured maximum), default budget is used if null
+   * @return layout options with truncation flag
+   */
+  public CalculationResult calcPostLayout(LayoutCalculationInput input, Duration budget) {
+    return calcPostLayout(input, budget, null);
+  }
+
+  /**
+   * Calculates layout options with configured solver strategy reporting intermediate options to listener.
+   *
+   * @param input    calculation input
+   * @param budget   client time budget (capped by configured maximum), default budget is used if null
+   * @param listener listener of intermediate options, null if they aren't needed
+   * @return layout options with truncation flag
+   */
+  public CalculationResult calcPostLayout(LayoutCalculationInput input, Duration budget, CalculationListener listener) {
+    return calcPostLayout(input, budget, listener, null);
+  }
+
+  /**
+   * Calculates layout options reporting intermediate options to listener.
+   * Cached result is returned at once without intermediate options.
+   * Requests without listener coalesce with the same calculation in progress with time budget of the same bucket
+   * and get its result (waiting for it till their own deadline).
+   *
+   * @param input    calculation input
+   * @param budget   client time budget (capped by configured maximum), default budget is used if null
+   * @param listener listener of intermediate options, null if they aren't needed
+   * @param strategy solver strategy, configured strategy is used if null
+   * @return layout options with truncation flag
+   */
+  public CalculationResult calcPostLayout(
+      LayoutCalculationInput input,
+      Duration budget,
+      CalculationListener listener,
+      SolverStrategy strategy
+  ) {
+    final var mappingStart = System.nanoTime();
+    final var calcData = sortObstructions(mapper.toCalculationData(input));
+    metrics.recordPhase(CalculationPhase.MAPPING, System.nanoTime() - mappingStart);
+
+    final var effectiveBudget = effectiveBudget(budget);
+    final var deadline = Deadline.after(effectiveBudget);
+    final var solver = solverSelector.resolve(strategy, calcData);
+
+    if (listener != null) {
+      return resultCache.getOrCalculate(
+          calcData,
+          solver,
+          data -> calculate(data, solver, deadline, listener, null, null)
+      );
+    }
+
+    return coalescer.calculate(
+        calcData,
+        solver,
+        effectiveBudget,
+        deadline,
+        () -> resultCache.getOrCalculate(calcData, solver, data -> calculate(data, solver, deadline, null, null, null))
+    );
+  }
+
+  /**
+   * Resolves solver strategy the input is calculated with, so it can be rejected before calculation is started.
+   *
+   * @param input    calculation input
+   * @param strategy solver strategy, configured strategy is used if null
+   * @return strategy the input is calculated with (never {@link SolverStrategy#AUTO})
+   * @throws org.springframework.web.server.ResponseStatusException (400) if there is no solver of the strategy
+   */
+  public SolverStrategy resolveSolver(LayoutCalculationInput input, SolverStrategy strategy) {
+    return solverSelector.resolve(strategy, mapper.toCalculationData(input));
+  }
 
-  public List<PostLayoutOption> calcPostLayout(LayoutCalculationInput input) {
-    final var calcData = mapper.toCalculationData(input);
+  /**
+   * Calculates layout options for edited run within default time budget reusing segments solutions and
+   * combinations of its previous calculation. Result cache isn't used, incremental state has to follow
+   * every calculation of the run.
+   *
+   * @param calcData            calculation data
+   * @param incrementalSegments state of the previous calculation of the run
+   * @return layout options with truncation flag
+   */
+  public CalculationResult calcPostLayout(CalculationData calcData, IncrementalSegments incrementalSegments) {
+    final var deadline = Deadline.after(effectiveBudget(null));
+    final var sortedData = sortObstructions(calcData);
 
-    final var calculator = new PostLayoutCalculator(
+    return calculate(sortedData, solverSelector.resolve(null, sortedData), deadline, null, incrementalSegments, null);
+  }
+
+  /**
+   * Calculates layout options for one configuration of sweep. Obstructions are prepared (sorted and indexed) once
+   * for all configurations, calculation data has to contain the prepared obstructions.
+   *
+   * @param calcData     calculation data of configuration
+   * @param obstructions prepared obstructions of the run
+   * @param deadline     deadline of the configuration calculation
+   * @return layout options with truncation flag
+   */
+  public CalculationResult calcPostLayout(
+      CalculationData calcData,
+      PreparedObstructions obstructions,
+      Deadline deadline
+  ) {
+    final var solver = solverSelector.resolve(null, calcData);
+
+    return resultCache.getOrCalculate(
+        calcData,
+        solver,
+        data -> calculate(data, solver, deadline, null, null, obstructions)
+    );
+  }
+
+  /**
+   * @param budget client time budget, default budget is used if null or negative
+   * @return time budget capped by configured maximum
+   */
+  Duration effectiveBudget(Duration budget) {
+    final var timeBudget = properties.getTimeBudget();
+
+    if (budget == null || budget.isNegative()) {
+      return timeBudget.getDefaultBudget();
+    }
+
+    return budget.compareTo(timeBudget.getMaxBudget()) > 0
+        ? timeBudget.getMaxBudget()
+        : budget;
+  }
+
+  private CalculationResult calculate(
+      CalculationData calcData,
+      SolverStrategy solver,
+      Deadline deadline,
+      CalculationListener listener,
+      IncrementalSegments incrementalSegments,
+      PreparedObstructions preparedObstructions
+  ) {
+    final var solverFactory = solverSelector.factory(solver);
+    final var cost = CalculationCostEstimator.estimate(
         calcData.getPostSize(),
         calcData.getPanelMaxLength(),
         calcData.getRunHorLength(),
-        calcData.getObstructions()
+        calcData.getObstructions(),
+        solverFactory.optimalSearch()
     );
 
-    return calculator.calculate();
+    return admission.admit(
+        cost,
+        () -> cpuGuard.run(() -> {
+          final var result = solverFactory.create(calcData, deadline, incrementalSegments, preparedObstructions)
+              .calculateWithStatus(listener);
+
+          shadow.submit(calcData, solver, result);
+
+          return result;
+        })
+    );
+  }
+
+  private CalculationData sortObstructions(CalculationData calcData) {
+    return CalculationData.builder()
+        .postSize(calcData.getPostSize())
+        .panelMaxLength(calcData.getPanelMaxLength())
+        .runHorLength(calcData.getRunHorLength())
+        .obstructions(calcData.getObstructions().stream()
+            .sorted(OBSTRUCTIONS_ORDER)
+            .toList())
+        .build();
   }
 }
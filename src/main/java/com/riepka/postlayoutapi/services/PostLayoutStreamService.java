@@ -0,0 +1,180 @@
+package com.riepka.postlayoutapi.services;
+
+import com.riepka.postlayoutapi.config.CalculationExecutorConfig;
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import com.riepka.postlayoutapi.config.PostLayoutProperties.SolverStrategy;
+import com.riepka.postlayoutapi.entity.LayoutCalculationInput;
+import com.riepka.postlayoutapi.entity.PostLayoutOption;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.stereotype.Component;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@Component
+@RequiredArgsConstructor
+public class PostLayoutStreamService {
+
+  public static final String PROGRESS_EVENT = "progress";
+  public static final String RESULT_EVENT = "result";
+  public static final String ERROR_EVENT = "error";
+
+  // stream is kept open after the longest calculation time this long
+  private static final Duration STREAM_TIMEOUT_MARGIN = Duration.ofSeconds(5);
+
+  private final PostLayoutService service;
+  private final PostLayoutProperties properties;
+  @Qualifier(CalculationExecutorConfig.STREAM_EXECUTOR)
+  private final Executor streamExecutor;
+
+  /**
+   * Starts calculation sending intermediate options as "progress" events and final result as "result" event.
+   * Solver strategy is resolved before the stream is started, so unavailable strategy is rejected with 400 response.
+   * Errors after the stream is started (calculation rejected by admission or CPU guard) are sent as "error" event
+   * with problem detail, rejected calculation event has reconnect time of its Retry-After.
+   * Calculation is stopped if client is disconnected (event can't be sent).
+   *
+   * @param input    calculation input
+   * @param budget   client time budget, default budget is used if null
+   * @param strategy solver strategy, configured strategy is used if null
+   * @return emitter of calculation events
+   */
+  public SseEmitter streamPostLayout(LayoutCalculationInput input, Duration budget, SolverStrategy strategy) {
+    final var solver = service.resolveSolver(input, strategy);
+    final var emitter = new SseEmitter(streamTimeout().toMillis());
+    final var events = new StreamEvents(emitter);
+
+    streamExecutor.execute(() -> {
+      try {
+        final var result = service.calcPostLayout(input, budget, events::progress, solver);
+
+        events.finish(RESULT_EVENT, result, null);
+        emitter.complete();
+      } catch (UncheckedIOException e) {
+        emitter.completeWithError(e);
+      } catch (RuntimeException e) {
+        sendError(emitter, events, e);
+      }
+    });
+
+    return emitter;
+  }
+
+  private Duration streamTimeout() {
+    return properties.getTimeBudget().getMaxBudget()
+        .plus(properties.getAdmission().getMaxWait())
+        .plus(STREAM_TIMEOUT_MARGIN);
+  }
+
+  /**
+   * Response is already committed, so error is sent as the last event of the stream
+   */
+  private void sendError(SseEmitter emitter, StreamEvents events, RuntimeException error) {
+    final var problem = error instanceof ErrorResponse errorResponse
+        ? errorResponse.getBody()
+        : ProblemDetail.forStatus(HttpStatus.INTERNAL_SERVER_ERROR);
+    final var retryAfter = error instanceof CalculationRejectedException rejection
+        ? rejection.getRetryAfter()
+        : null;
+
+    try {
+      events.finish(ERROR_EVENT, problem, retryAfter);
+      emitter.complete();
+    } catch (UncheckedIOException e) {
+      emitter.completeWithError(error);
+    }
+  }
+
+  /**
+   * Sends events of one stream. Progress events are sent on stream executor, so calculating thread (holding CPU
+   * permit) doesn't wait for slow client: options reported while previous ones are sent replace each other, and only
+   * the latest of them are sent. The final event follows the latest reported progress, later progress is dropped.
+   */
+  private class StreamEvents {
+
+    private final SseEmitter emitter;
+    // lock (not synchronized) doesn't pin virtual thread carrier while event is sent
+    private final ReentrantLock sendLock = new ReentrantLock();
+    // the latest reported options not sent yet
+    private final AtomicReference<List<PostLayoutOption>> pendingProgress = new AtomicReference<>();
+    private boolean finished;
+    private volatile IOException disconnection;
+
+    StreamEvents(SseEmitter emitter) {
+      this.emitter = emitter;
+    }
+
+    /**
+     * Called by calculating thread.
+     *
+     * @throws UncheckedIOException if client is disconnected (calculation is stopped)
+     */
+    void progress(List<PostLayoutOption> options) {
+      if (disconnection != null) {
+        throw new UncheckedIOException("Event isn't sent, client is disconnected", disconnection);
+      }
+
+      if (pendingProgress.getAndSet(options) == null) {
+        streamExecutor.execute(this::sendProgress);
+      }
+    }
+
+    /**
+     * Sends progress not sent yet and final event, progress isn't sent after it.
+     *
+     * @param reconnectTime reconnect time sent with event, null if it isn't set
+     * @throws UncheckedIOException if client is disconnected
+     */
+    void finish(String eventName, Object data, Duration reconnectTime) {
+      sendLock.lock();
+      try {
+        finished = true;
+        final var options = pendingProgress.getAndSet(null);
+
+        if (options != null) {
+          send(PROGRESS_EVENT, options, null);
+        }
+        send(eventName, data, reconnectTime);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Event isn't sent, client is disconnected", e);
+      } finally {
+        sendLock.unlock();
+      }
+    }
+
+    private void sendProgress() {
+      sendLock.lock();
+      try {
+        final var options = pendingProgress.getAndSet(null);
+
+        if (!finished && options != null) {
+          send(PROGRESS_EVENT, options, null);
+        }
+      } catch (IOException e) {
+        disconnection = e;
+      } finally {
+        sendLock.unlock();
+      }
+    }
+
+    private void send(String eventName, Object data, Duration reconnectTime) throws IOException {
+      final var event = SseEmitter.event()
+          .name(eventName)
+          .data(data);
+
+      if (reconnectTime != null) {
+        event.reconnectTime(reconnectTime.toMillis());
+      }
+      emitter.send(event);
+    }
+  }
+}
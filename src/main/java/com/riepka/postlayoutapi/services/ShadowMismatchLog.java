@@ -0,0 +1,107 @@
+package com.riepka.postlayoutapi.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import com.riepka.postlayoutapi.config.PostLayoutProperties.SolverStrategy;
+import com.riepka.postlayoutapi.entity.CalculationData;
+import com.riepka.postlayoutapi.entity.PostLayoutOption;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local rolling file of shadow calculations mismatches, one JSON line per mismatch.
+ * When the file reaches max size it is renamed to file.1 (file.1 to file.2 and so on), the oldest file is deleted.
+ */
+@Component
+public class ShadowMismatchLog {
+
+  private final ObjectMapper objectMapper;
+  private final Path file;
+  private final long maxFileSize;
+  private final int maxHistory;
+
+  public ShadowMismatchLog(PostLayoutProperties properties, ObjectMapper objectMapper) {
+    final var shadow = properties.getShadow();
+
+    this.objectMapper = objectMapper;
+    this.file = shadow.getMismatchFile();
+    this.maxFileSize = shadow.getMaxFileSize().toBytes();
+    this.maxHistory = shadow.getMaxHistory();
+  }
+
+  /**
+   * Appends mismatch to the file, rolls the file over first if mismatch doesn't fit into it.
+   *
+   * @param mismatch mismatch of shadow calculation
+   */
+  public synchronized void write(Mismatch mismatch) {
+    try {
+      final var line = (objectMapper.writeValueAsString(mismatch) + "\n").getBytes(StandardCharsets.UTF_8);
+
+      if (file.getParent() != null) {
+        Files.createDirectories(file.getParent());
+      }
+      if (Files.exists(file) && Files.size(file) + line.length > maxFileSize) {
+        rollOver();
+      }
+
+      Files.write(file, line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Shifts rolled over files by one (the oldest one is deleted) and rolls the current file over
+   */
+  private void rollOver() throws IOException {
+    if (maxHistory <= 0) {
+      Files.delete(file);
+      return;
+    }
+
+    Files.deleteIfExists(rolledOver(maxHistory));
+    for (int i = maxHistory - 1; i >= 1; i--) {
+      if (Files.exists(rolledOver(i))) {
+        Files.move(rolledOver(i), rolledOver(i + 1));
+      }
+    }
+    Files.move(file, rolledOver(1));
+  }
+
+  private Path rolledOver(int index) {
+    return file.resolveSibling(file.getFileName() + "." + index);
+  }
+
+  /**
+   * Top options of calculation and of its shadow calculation that differ.
+   *
+   * @param time           time of comparison
+   * @param primarySolver  strategy of calculation
+   * @param shadowSolver   strategy of shadow calculation
+   * @param primaryMillis  isolated calculation time by calculation strategy
+   * @param shadowMillis   isolated calculation time by shadow strategy
+   * @param input          calculation data
+   * @param primaryOptions top options of calculation
+   * @param shadowOptions  top options of shadow calculation
+   */
+  public record Mismatch(
+      Instant time,
+      SolverStrategy primarySolver,
+      SolverStrategy shadowSolver,
+      double primaryMillis,
+      double shadowMillis,
+      CalculationData input,
+      List<PostLayoutOption> primaryOptions,
+      List<PostLayoutOption> shadowOptions
+  ) {
+
+  }
+}
@@ -0,0 +1,161 @@
+package com.riepka.postlayoutapi.services;
+
+import com.riepka.postlayoutapi.config.CalculationExecutorConfig;
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import com.riepka.postlayoutapi.entity.CalculationData;
+import com.riepka.postlayoutapi.entity.PostLayoutOption;
+import com.riepka.postlayoutapi.entity.SweepCalculationInput;
+import com.riepka.postlayoutapi.entity.SweepCalculationResult;
+import com.riepka.postlayoutapi.entity.SweepConfigurationResult;
+import com.riepka.postlayoutapi.mapper.CalculationDataMapper;
+import com.riepka.postlayoutapi.services.calculators.CalculationResult;
+import com.riepka.postlayoutapi.services.calculators.Deadline;
+import com.riepka.postlayoutapi.services.calculators.PreparedObstructions;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * What-if sweep: the same run calculated for several post sizes and panel max lengths.
+ * Obstructions are mapped, sorted and indexed once for all configurations, configurations are calculated
+ * concurrently (not more than configured number at the same time) within one time budget.
+ */
+@Component
+@RequiredArgsConstructor
+public class SweepPostLayoutService {
+
+  private final PostLayoutService service;
+  private final CalculationDataMapper mapper;
+  private final PostLayoutProperties properties;
+  @Qualifier(CalculationExecutorConfig.BATCH_EXECUTOR)
+  private final Executor batchExecutor;
+
+  /**
+   * Calculates layouts for all configurations of the sweep.
+   * Failure of one configuration (rejected or failed calculation) is reported only in this configuration result.
+   *
+   * @param input  run with post sizes and panel max lengths to compare
+   * @param budget client time budget for the whole sweep (capped by configured maximum), default budget if null
+   * @return configurations results matrix (post sizes x panel max lengths)
+   */
+  public SweepCalculationResult calcSweep(SweepCalculationInput input, Duration budget) {
+    validateSweep(input);
+
+    final var obstructions = new PreparedObstructions(input.getObstructions().stream()
+        .map(mapper::toObstruction)
+        .sorted(PostLayoutService.OBSTRUCTIONS_ORDER)
+        .toList());
+    final var topOptions = input.getTopOptions() == null
+        ? properties.getSweep().getDefaultTopOptions()
+        : input.getTopOptions();
+    final var deadline = Deadline.after(service.effectiveBudget(budget));
+    final var inFlightPermits = new Semaphore(properties.getSweep().getMaxParallelConfigurations());
+
+    final List<List<CompletableFuture<SweepConfigurationResult>>> futureResults = new ArrayList<>();
+    for (final Double postSize : input.getPostSizes()) {
+      futureResults.add(input.getPanelMaxLengths().stream()
+          .map(panelMaxLength -> CalculationData.builder()
+              .postSize(postSize)
+              .panelMaxLength(panelMaxLength)
+              .runHorLength(input.getRunHorLength())
+              .obstructions(obstructions.obstructions())
+              .build())
+          .map(calcData -> CompletableFuture.supplyAsync(
+              () -> calcConfigurationWithPermit(calcData, obstructions, deadline.fork(), topOptions, inFlightPermits),
+              batchExecutor
+          ))
+          .toList());
+    }
+
+    final List<List<SweepConfigurationResult>> results = futureResults.stream()
+        .map(row -> row.stream()
+            .map(CompletableFuture::join)
+            .toList())
+        .toList();
+
+    return new SweepCalculationResult(input.getPostSizes(), input.getPanelMaxLengths(), results);
+  }
+
+  private void validateSweep(SweepCalculationInput input) {
+    final var configurations = input.getPostSizes().size() * input.getPanelMaxLengths().size();
+    final var maxConfigurations = properties.getSweep().getMaxConfigurations();
+
+    if (configurations > maxConfigurations) {
+      throw new ResponseStatusException(
+          HttpStatus.PAYLOAD_TOO_LARGE,
+          "Sweep contains %d configurations, maximum is %d".formatted(configurations, maxConfigurations)
+      );
+    }
+  }
+
+  private SweepConfigurationResult calcConfigurationWithPermit(
+      CalculationData calcData,
+      PreparedObstructions obstructions,
+      Deadline deadline,
+      int topOptions,
+      Semaphore inFlightPermits
+  ) {
+    try {
+      inFlightPermits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return failure(calcData, "Calculation interrupted");
+    }
+
+    try {
+      return success(calcData, service.calcPostLayout(calcData, obstructions, deadline), topOptions);
+    } catch (CalculationRejectedException e) {
+      return failure(calcData, e.getReason());
+    } catch (RuntimeException e) {
+      return failure(calcData, "Calculation failed: " + e.getMessage());
+    } finally {
+      inFlightPermits.release();
+    }
+  }
+
+  /**
+   * Creates configuration result with the best options and summary of all found options
+   */
+  private SweepConfigurationResult success(CalculationData calcData, CalculationResult result, int topOptions) {
+    final var options = result.options();
+    final IntSummaryStatistics postsNumbers = options.stream()
+        .mapToInt(option -> option.getPostLocations().size())
+        .summaryStatistics();
+
+    return SweepConfigurationResult.builder()
+        .postSize(calcData.getPostSize())
+        .panelMaxLength(calcData.getPanelMaxLength())
+        .options(options.subList(0, Math.min(topOptions, options.size())))
+        .optionsFound(options.size())
+        .bestPostsNumber(options.isEmpty() ? null : options.get(0).getPostLocations().size())
+        .minPostsNumber(options.isEmpty() ? null : postsNumbers.getMin())
+        .maxPostsNumber(options.isEmpty() ? null : postsNumbers.getMax())
+        .evenLayoutFound(options.stream().anyMatch(option -> option.getDescription().isEvenLayout()))
+        .obstructionFreeFound(options.stream().anyMatch(this::isObstructionFree))
+        .truncated(result.truncated())
+        .build();
+  }
+
+  private SweepConfigurationResult failure(CalculationData calcData, String error) {
+    return SweepConfigurationResult.builder()
+        .postSize(calcData.getPostSize())
+        .panelMaxLength(calcData.getPanelMaxLength())
+        .error(error)
+        .build();
+  }
+
+  private boolean isObstructionFree(PostLayoutOption option) {
+    final var description = option.getDescription();
+
+    return description.getPostsFallOnTryToAvoid() == 0 && description.getPostsFallOnMustAvoid() == 0;
+  }
+}
@@ -0,0 +1,36 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+/**
+ * Estimated calculation work (upper estimate, real calculation usually does less work).
+ *
+ * @param segments          number of run segments (PLACE_POST obstructions + 1)
+ * @param posts             number of inner posts of segments base even layouts
+ * @param mustAvoidHits     number of "Must avoid" obstructions posts of even base and +1 post layouts fall on
+ * @param shiftCombinations number of combinations of posts shifted from "Must avoid" obstructions
+ * @param combinations      number of segments solutions combinations
+ * @param gridTransitions   number of grid states transitions of optimal segments search, 0 for posts shifting
+ */
+public record CalculationCost(
+    int segments,
+    int posts,
+    int mustAvoidHits,
+    long shiftCombinations,
+    long combinations,
+    long gridTransitions
+) {
+
+  /**
+   * @return estimated number of evaluated layouts and optimal search grid transitions
+   */
+  public long work() {
+    return saturatedAdd(saturatedAdd(posts + shiftCombinations, combinations), gridTransitions);
+  }
+
+  static long saturatedAdd(long a, long b) {
+    final var sum = a + b;
+
+    return sum < 0
+        ? Long.MAX_VALUE
+        : sum;
+  }
+}
@@ -0,0 +1,184 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+import static com.riepka.postlayoutapi.services.calculators.PostLayoutCalculator.MAX_ALLOWED_INTERSECTION;
+import static com.riepka.postlayoutapi.services.calculators.PostLayoutCalculator.POST_INSTALLATION_EXTENSION;
+import static com.riepka.postlayoutapi.services.calculators.PostLayoutCalculator.SHIFTED_LAYOUTS_LIMIT;
+import static com.riepka.postlayoutapi.services.calculators.PostLayoutCalculator.SOLUTIONS_DESIRED;
+
+import com.riepka.postlayoutapi.entity.Obstruction;
+import com.riepka.postlayoutapi.entity.ObstructionType;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Cheap pre-pass predicting calculation work before calculation runs.
+ * Only even base and +1 post layouts are checked (one pass over obstructions), no solutions are searched.
+ * Optimal search work doesn't depend on obstructions: it is estimated by grid states transitions of segments.
+ */
+public final class CalculationCostEstimator {
+
+  // max number of combined solutions kept after each segment (desired number for both "even" orders)
+  private static final int KEPT_COMBINATIONS = 2 * SOLUTIONS_DESIRED;
+  // max number of posts shifting combinations counted for segment (exponent of 2)
+  private static final int MAX_SHIFTED_POSTS = 40;
+
+  private CalculationCostEstimator() {
+  }
+
+  /**
+   * @param postSize       post style size
+   * @param panelMaxLength maximal allowed panel length
+   * @param runLength      run length
+   * @param obstructions   run obstructions
+   * @return estimated cost of calculation with posts shifting search
+   */
+  public static CalculationCost estimate(
+      double postSize,
+      double panelMaxLength,
+      double runLength,
+      List<Obstruction> obstructions
+  ) {
+    return estimate(postSize, panelMaxLength, runLength, obstructions, null);
+  }
+
+  /**
+   * @param postSize       post style size
+   * @param panelMaxLength maximal allowed panel length
+   * @param runLength      run length
+   * @param obstructions   run obstructions
+   * @param optimalSearch  optimal search settings, null if segments are solved by posts shifting
+   * @return estimated calculation cost
+   */
+  public static CalculationCost estimate(
+      double postSize,
+      double panelMaxLength,
+      double runLength,
+      List<Obstruction> obstructions,
+      OptimalSearch optimalSearch
+  ) {
+    final var placePostLocations = obstructions.stream()
+        .filter(obstruction -> obstruction.type() == ObstructionType.PLACE_POST)
+        .mapToDouble(Obstruction::location)
+        .filter(location -> location < runLength)
+        .sorted()
+        .toArray();
+    final var mustAvoidObstructions = obstructions.stream()
+        .filter(obstruction -> obstruction.type() == ObstructionType.MUST_AVOID)
+        .sorted(Comparator.comparingDouble(Obstruction::location))
+        .toList();
+
+    final var maxCenterToCenter = panelMaxLength + postSize;
+    final var postInstallationSize = postSize + POST_INSTALLATION_EXTENSION;
+
+    var posts = 0;
+    var mustAvoidHits = 0;
+    var shiftCombinations = 0L;
+    var combinations = 0L;
+    var keptCombinations = 0L;
+    var gridTransitions = 0L;
+    var obstructionIndex = 0;
+
+    for (int i = 0; i <= placePostLocations.length; i++) {
+      final var redPost = i == 0
+          ? 0
+          : placePostLocations[i - 1];
+      final var greenPost = i == placePostLocations.length
+          ? runLength
+          : placePostLocations[i];
+      final var segmentLength = greenPost - redPost;
+      final var innerPosts = Math.max((int) Math.ceil(segmentLength / maxCenterToCenter) - 1, 0);
+      final var centerToCenter = segmentLength / (innerPosts + 1);
+      final var extraPostCenterToCenter = segmentLength / (innerPosts + 2);
+
+      // "Must avoid" obstructions are sorted, so each of them is checked once (for the segment it is located in)
+      var baseLayoutHits = 0;
+      var extraPostLayoutHits = 0;
+      while (obstructionIndex < mustAvoidObstructions.size()
+          && (i == placePostLocations.length || mustAvoidObstructions.get(obstructionIndex).location() < greenPost)) {
+        final var obstruction = mustAvoidObstructions.get(obstructionIndex++);
+
+        if (isHitByEvenLayout(obstruction, redPost, centerToCenter, innerPosts, postInstallationSize)) {
+          baseLayoutHits++;
+        }
+        if (isHitByEvenLayout(obstruction, redPost, extraPostCenterToCenter, innerPosts + 1, postInstallationSize)) {
+          extraPostLayoutHits++;
+        }
+      }
+
+      final var segmentShiftCombinations = CalculationCost.saturatedAdd(
+          shiftCombinations(baseLayoutHits),
+          shiftCombinations(extraPostLayoutHits)
+      );
+      // even layouts solutions and found layouts with shifted posts
+      final var segmentSolutions = 2 + Math.min(segmentShiftCombinations, 2L * SHIFTED_LAYOUTS_LIMIT);
+
+      if (optimalSearch != null) {
+        gridTransitions = CalculationCost.saturatedAdd(
+            gridTransitions,
+            gridTransitions(segmentLength, maxCenterToCenter, optimalSearch)
+        );
+      }
+
+      posts += innerPosts;
+      mustAvoidHits += baseLayoutHits + extraPostLayoutHits;
+      shiftCombinations = CalculationCost.saturatedAdd(shiftCombinations, segmentShiftCombinations);
+
+      if (i == 0) {
+        keptCombinations = segmentSolutions;
+      } else {
+        combinations += Math.min(keptCombinations, KEPT_COMBINATIONS) * segmentSolutions;
+        keptCombinations = Math.min(keptCombinations * segmentSolutions, KEPT_COMBINATIONS);
+      }
+    }
+
+    return new CalculationCost(
+        placePostLocations.length + 1,
+        posts,
+        mustAvoidHits,
+        shiftCombinations,
+        combinations,
+        gridTransitions
+    );
+  }
+
+  /**
+   * Every grid location state (for each extra posts number) takes up to "maximal panel steps" previous states
+   */
+  private static long gridTransitions(double segmentLength, double maxCenterToCenter, OptimalSearch optimalSearch) {
+    final var positions = Math.floor(segmentLength / optimalSearch.resolution());
+    final var maxPanelSteps = Math.floor(maxCenterToCenter / optimalSearch.resolution());
+
+    // cast saturates at Long.MAX_VALUE
+    return (long) (positions * (optimalSearch.maxExtraPosts() + 1) * maxPanelSteps);
+  }
+
+  /**
+   * Each post falling on "Must avoid" obstruction is shifted to the left or to the right of it
+   */
+  private static long shiftCombinations(int shiftedPosts) {
+    return shiftedPosts == 0
+        ? 0
+        : 1L << Math.min(shiftedPosts, MAX_SHIFTED_POSTS);
+  }
+
+  /**
+   * Checks if nearest post of segment even layout falls on obstruction
+   */
+  private static boolean isHitByEvenLayout(
+      Obstruction obstruction,
+      double redPost,
+      double centerToCenter,
+      int innerPosts,
+      double postInstallationSize
+  ) {
+    if (innerPosts == 0) {
+      return false;
+    }
+
+    final var location = obstruction.location() - redPost;
+    final var nearestPost = Math.min(Math.max(Math.round(location / centerToCenter), 1), innerPosts);
+    final var zoneForIntersection = (0.5 - MAX_ALLOWED_INTERSECTION) * obstruction.size() + postInstallationSize / 2;
+
+    return Math.abs(nearestPost * centerToCenter - location) < zoneForIntersection;
+  }
+}
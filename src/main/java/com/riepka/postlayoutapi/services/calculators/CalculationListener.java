@@ -0,0 +1,16 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+import com.riepka.postlayoutapi.entity.PostLayoutOption;
+import java.util.List;
+
+/**
+ * Listener of intermediate calculation results. Called by calculating thread.
+ */
+@FunctionalInterface
+public interface CalculationListener {
+
+  /**
+   * @param options the best layout prioritized options found so far for the whole run
+   */
+  void onProgress(List<PostLayoutOption> options);
+}
@@ -0,0 +1,48 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+/**
+ * Receiver of calculation metrics. Methods are called from calculation threads (segments can be solved in parallel),
+ * so implementations must be thread-safe and cheap.
+ */
+public interface CalculationMetrics {
+
+  CalculationMetrics NOOP = new CalculationMetrics() {
+  };
+
+  /**
+   * @param phase         calculation phase
+   * @param durationNanos phase duration in nanoseconds
+   */
+  default void recordPhase(CalculationPhase phase, long durationNanos) {
+  }
+
+  /**
+   * @param number number of candidate solutions generated for segment (before duplicates removing)
+   */
+  default void recordCandidateSolutions(int number) {
+  }
+
+  /**
+   * @param number number of segment candidate solutions dropped by search bound (they can't get into results)
+   */
+  default void recordPrunedCandidates(int number) {
+  }
+
+  /**
+   * @param number number of evaluated combinations of posts shifted from "Must avoid" obstructions
+   */
+  default void recordShiftCombinations(int number) {
+  }
+
+  /**
+   * Called when no solution is found for segment and base layouts are used as is.
+   */
+  default void recordFallbackSolution() {
+  }
+
+  /**
+   * Called when calculation is stopped by deadline and best options found so far are returned.
+   */
+  default void recordTruncatedCalculation() {
+  }
+}
@@ -0,0 +1,14 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+public enum CalculationPhase {
+  // input mapping to calculation data
+  MAPPING,
+  // solutions search for all segments
+  SEGMENTS_SOLVING,
+  // posts shifting from "Must avoid" obstructions (part of segments solving)
+  SHIFT_ENUMERATION,
+  // combination of segments solutions
+  COMBINATION,
+  // final prioritization of solutions
+  RANKING
+}
@@ -0,0 +1,11 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+import com.riepka.postlayoutapi.entity.PostLayoutOption;
+import java.util.List;
+
+/**
+ * @param options   found layout prioritized options
+ * @param truncated true if search was stopped by deadline and options are the best found so far
+ */
+public record CalculationResult(List<PostLayoutOption> options, boolean truncated) {
+}
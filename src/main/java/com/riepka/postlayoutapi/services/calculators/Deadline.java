@@ -0,0 +1,76 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+import java.time.Duration;
+
+/**
+ * Calculation deadline checked cooperatively by search loops.
+ * When deadline is reached, searches are stopped and best solutions found so far are used.
+ * Thread-safe: segments solved in parallel share the same deadline.
+ */
+public final class Deadline {
+
+  // deadline that is never reached
+  public static final Deadline NONE = new Deadline(Long.MAX_VALUE, false);
+
+  private final long deadlineNanos;
+  private final boolean limited;
+  // true if any search has been stopped by the deadline
+  private volatile boolean reached;
+
+  private Deadline(long deadlineNanos, boolean limited) {
+    this.deadlineNanos = deadlineNanos;
+    this.limited = limited;
+  }
+
+  /**
+   * @param budget time budget starting from now
+   * @return deadline after given budget
+   */
+  public static Deadline after(Duration budget) {
+    return new Deadline(System.nanoTime() + budget.toNanos(), true);
+  }
+
+  /**
+   * @return deadline at the same time for another calculation (with its own flag of stopped searches)
+   */
+  public Deadline fork() {
+    return new Deadline(deadlineNanos, limited);
+  }
+
+  /**
+   * @return nanoseconds left till deadline (not positive if it has passed), Long.MAX_VALUE if deadline isn't limited
+   */
+  public long remainingNanos() {
+    return limited
+        ? deadlineNanos - System.nanoTime()
+        : Long.MAX_VALUE;
+  }
+
+  /**
+   * Checks if deadline is reached. Positive check is remembered, so caller must stop its search after it.
+   *
+   * @return true if search should be stopped
+   */
+  boolean isReached() {
+    if (!limited) {
+      return false;
+    }
+
+    if (reached) {
+      return true;
+    }
+
+    if (System.nanoTime() - deadlineNanos >= 0) {
+      reached = true;
+    }
+
+    return reached;
+  }
+
+  /**
+   * @return true if any search has been stopped by the deadline, so calculation result can be incomplete
+   */
+  public boolean wasReached() {
+    return reached;
+  }
+}
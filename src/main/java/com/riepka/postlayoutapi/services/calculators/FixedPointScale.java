@@ -0,0 +1,46 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+/**
+ * Scale of fixed-point calculation: lengths are converted to whole numbers of resolution units.
+ * Whole numbers (up to 2^53) are exact doubles, so sums, differences and comparisons of coordinates in units are
+ * exact integer operations, equal layouts always have equal coordinates. Coordinates produced by division are
+ * rounded to whole units.
+ *
+ * @param unitsPerLength number of units in length unit of calculation input
+ */
+public record FixedPointScale(long unitsPerLength) {
+
+  public FixedPointScale {
+    if (unitsPerLength <= 0) {
+      throw new IllegalArgumentException("Units number has to be positive: " + unitsPerLength);
+    }
+  }
+
+  /**
+   * @param resolution length of one unit, length unit has to be a whole number of them (e.g. 0.001)
+   * @return scale with given resolution
+   */
+  public static FixedPointScale ofResolution(double resolution) {
+    final var unitsPerLength = Math.round(1 / resolution);
+
+    if (unitsPerLength <= 0 || Math.abs(unitsPerLength * resolution - 1) > 1e-9) {
+      throw new IllegalArgumentException("Length unit has to be a whole number of resolution units: " + resolution);
+    }
+
+    return new FixedPointScale(unitsPerLength);
+  }
+
+  /**
+   * @return length rounded to whole units
+   */
+  public long toUnits(double length) {
+    return Math.round(length * unitsPerLength);
+  }
+
+  /**
+   * @return length of given number of units
+   */
+  double toLength(long units) {
+    return (double) units / unitsPerLength;
+  }
+}
@@ -0,0 +1,133 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+import com.riepka.postlayoutapi.services.calculators.PostLayoutCalculator.CombinedSolution;
+import com.riepka.postlayoutapi.services.calculators.PostLayoutCalculator.SegmentResult;
+import com.riepka.postlayoutapi.services.calculators.PostLayoutCalculator.SegmentSolution;
+import com.riepka.postlayoutapi.services.calculators.SegmentSolutionsCache.SegmentKey;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Segments solutions and combinations of the previous calculation of the same (edited) run.
+ * Next calculation solves only segments with changed bounds or obstructions and combines segments solutions
+ * starting from the first changed segment. Changed segment is solved from scratch (posts shifting search results
+ * aren't reused within segment).
+ * Only solutions of the last calculation are kept, so state size doesn't grow with number of edits.
+ * Calculations using the same state must not run at the same time.
+ */
+public final class IncrementalSegments {
+
+  // segments solutions of the previous calculation
+  private Map<SegmentKey, List<SegmentSolution>> previousSolutions = Map.of();
+  // segments solutions of the current calculation (segments can be solved in parallel)
+  private final Map<SegmentKey, List<SegmentSolution>> currentSolutions = new ConcurrentHashMap<>();
+  // segments results of the previous calculation in run order
+  private List<SegmentResult> previousResults = List.of();
+  // combined solutions of the previous calculation: combination of segments from the first one till current one
+  private List<List<CombinedSolution>> previousCombinations = List.of();
+  // number of segments solved by the current calculation
+  private final AtomicInteger currentSolvedSegments = new AtomicInteger();
+  // number of segments solved by the last calculation
+  private int solvedSegments;
+
+  /**
+   * @return solutions of the segment from the previous calculation, null if segment wasn't solved in it
+   */
+  List<SegmentSolution> get(SegmentKey key) {
+    final var solutions = previousSolutions.get(key);
+
+    if (solutions != null) {
+      currentSolutions.put(key, solutions);
+    }
+
+    return solutions;
+  }
+
+  /**
+   * Keeps solutions of the segment taken by the current calculation from elsewhere (e.g. segment cache)
+   */
+  void keep(SegmentKey key, List<SegmentSolution> solutions) {
+    currentSolutions.put(key, solutions);
+  }
+
+  /**
+   * Saves solutions of the segment solved by the current calculation
+   *
+   * @param complete false if search was stopped by deadline, such solutions aren't reused
+   */
+  void put(SegmentKey key, List<SegmentSolution> solutions, boolean complete) {
+    currentSolvedSegments.incrementAndGet();
+
+    if (complete) {
+      currentSolutions.put(key, solutions);
+    }
+  }
+
+  /**
+   * Counts leading segments results that are the same as in the previous calculation
+   * (the same solutions at the same locations), their combinations can be reused.
+   *
+   * @param segmentResults current segments results in run order
+   * @return number of reusable combinations
+   */
+  int countReusableCombinations(List<SegmentResult> segmentResults) {
+    final var maxReusable = Math.min(segmentResults.size(), previousCombinations.size());
+
+    for (int i = 0; i < maxReusable; i++) {
+      final var current = segmentResults.get(i);
+      final var previous = previousResults.get(i);
+
+      if (current.solutions() != previous.solutions() || current.location() != previous.location()) {
+        return i;
+      }
+    }
+
+    return maxReusable;
+  }
+
+  /**
+   * @param segmentNumber number of the last combined segment
+   * @return combination of previous calculation segments from the first one till given one
+   */
+  List<CombinedSolution> getCombination(int segmentNumber) {
+    return previousCombinations.get(segmentNumber);
+  }
+
+  /**
+   * Saves complete combinations of the current calculation
+   *
+   * @param segmentResults segments results in run order
+   * @param combinations   combinations of segments from the first one till each of them
+   */
+  void putCombinations(List<SegmentResult> segmentResults, List<List<CombinedSolution>> combinations) {
+    previousResults = List.copyOf(segmentResults);
+    previousCombinations = List.copyOf(combinations);
+  }
+
+  /**
+   * Makes solutions of the current calculation previous ones
+   */
+  void finishCalculation() {
+    previousSolutions = new HashMap<>(currentSolutions);
+    currentSolutions.clear();
+    solvedSegments = currentSolvedSegments.getAndSet(0);
+  }
+
+  /**
+   * Drops solutions of the current (failed) calculation, so the next calculation reuses the last finished one
+   */
+  void abortCalculation() {
+    currentSolutions.clear();
+    currentSolvedSegments.set(0);
+  }
+
+  /**
+   * @return number of segments solved (not reused) by the last calculation
+   */
+  public int getSolvedSegments() {
+    return solvedSegments;
+  }
+}
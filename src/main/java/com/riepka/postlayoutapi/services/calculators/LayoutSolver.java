@@ -0,0 +1,26 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+import com.riepka.postlayoutapi.entity.PostLayoutOption;
+import java.util.List;
+
+/**
+ * Calculation of layout options of one run. Solver is created for one calculation with its input and settings.
+ */
+public interface LayoutSolver {
+
+  /**
+   * @return list of found layout prioritized options
+   */
+  default List<PostLayoutOption> calculate() {
+    return calculateWithStatus(null).options();
+  }
+
+  /**
+   * Calculates layout options reporting intermediate results to listener. If deadline is reached, the best options
+   * found so far are returned.
+   *
+   * @param listener listener of intermediate options, null if they aren't needed
+   * @return found layout prioritized options with truncation flag
+   */
+  CalculationResult calculateWithStatus(CalculationListener listener);
+}
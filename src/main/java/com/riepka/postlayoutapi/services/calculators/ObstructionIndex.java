@@ -0,0 +1,194 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+import com.riepka.postlayoutapi.entity.Obstruction;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable index of obstructions for fast lookups by location.
+ * Obstructions are sorted once, intersection zones are calculated once, so
+ * - intersected obstruction for post location is found by binary search
+ * - obstructions located inside segment are found by range slicing
+ * Lookups return the same obstructions (in the same order) as linear search over initial obstructions list does.
+ */
+class ObstructionIndex {
+
+  // obstructions in initial order
+  private final List<Obstruction> obstructions;
+  private final double maxAllowedIntersection;
+  private final double postInstallationSize;
+
+  // obstructions indexes (in initial list) sorted by intersection zone start
+  private final int[] byZoneStart;
+  private final double[] zoneStarts;
+  private final double[] zoneEnds;
+  // max zone end for all obstructions from the start of byZoneStart till current index
+  private final double[] maxZoneEnds;
+
+  // obstructions indexes (in initial list) sorted by left edge
+  private final int[] byLeftEdge;
+  private final double[] leftEdges;
+
+  /**
+   * @param obstructions           obstructions list
+   * @param maxAllowedIntersection part of obstruction size post is allowed to intersect with (from each side)
+   * @param postInstallationSize   post size including installation extension
+   */
+  ObstructionIndex(List<Obstruction> obstructions, double maxAllowedIntersection, double postInstallationSize) {
+    this.obstructions = List.copyOf(obstructions);
+    this.maxAllowedIntersection = maxAllowedIntersection;
+    this.postInstallationSize = postInstallationSize;
+
+    final var size = this.obstructions.size();
+    final var initZoneStarts = new double[size];
+    final var initZoneEnds = new double[size];
+    final var initLeftEdges = new double[size];
+
+    for (int i = 0; i < size; i++) {
+      final var obstruction = this.obstructions.get(i);
+      final var location = obstruction.location();
+      final var zoneForIntersection = (0.5 - maxAllowedIntersection) * obstruction.size() + postInstallationSize / 2;
+
+      initZoneStarts[i] = location - zoneForIntersection;
+      initZoneEnds[i] = location + zoneForIntersection;
+      initLeftEdges[i] = location - obstruction.size() / 2;
+    }
+
+    byZoneStart = sortedIndexes(initZoneStarts);
+    zoneStarts = new double[size];
+    zoneEnds = new double[size];
+    maxZoneEnds = new double[size];
+
+    for (int i = 0; i < size; i++) {
+      zoneStarts[i] = initZoneStarts[byZoneStart[i]];
+      zoneEnds[i] = initZoneEnds[byZoneStart[i]];
+      maxZoneEnds[i] = i == 0
+          ? zoneEnds[i]
+          : Math.max(maxZoneEnds[i - 1], zoneEnds[i]);
+    }
+
+    byLeftEdge = sortedIndexes(initLeftEdges);
+    leftEdges = new double[size];
+
+    for (int i = 0; i < size; i++) {
+      leftEdges[i] = initLeftEdges[byLeftEdge[i]];
+    }
+  }
+
+  /**
+   * @return obstructions in initial order
+   */
+  List<Obstruction> obstructions() {
+    return obstructions;
+  }
+
+  /**
+   * Tries to find intersected obstruction for given post location.
+   * If several obstructions intersected - the first one (in initial order) is returned.
+   *
+   * @param postLocation post location
+   * @return obstruction if intersection exists, otherwise empty
+   */
+  Optional<Obstruction> findIntersectedObstruction(double postLocation) {
+    // obstructions with zone start before post location
+    final var candidatesNumber = findFirstNotLess(zoneStarts, postLocation);
+    var foundIndex = -1;
+
+    for (int i = candidatesNumber - 1; i >= 0 && maxZoneEnds[i] > postLocation; i--) {
+      if (postLocation > zoneStarts[i] && postLocation < zoneEnds[i]
+          && (foundIndex == -1 || byZoneStart[i] < foundIndex)) {
+        foundIndex = byZoneStart[i];
+      }
+    }
+
+    return foundIndex == -1
+        ? Optional.empty()
+        : Optional.of(obstructions.get(foundIndex));
+  }
+
+  /**
+   * Creates index of obstructions that are located in given range.
+   *
+   * @param redPostLocation   segment red post location
+   * @param greenPostLocation segment green post location
+   * @return index of obstructions located in provided range (in initial order).
+   * Obstruction's locations related to red post location (has related coordinate)
+   */
+  ObstructionIndex slice(double redPostLocation, double greenPostLocation) {
+    final var from = findFirstGreater(leftEdges, redPostLocation);
+
+    final var segmentObstructions = IntStream.range(from, leftEdges.length)
+        .takeWhile(i -> leftEdges[i] < greenPostLocation)
+        .map(i -> byLeftEdge[i])
+        .filter(index -> {
+          final var obstruction = obstructions.get(index);
+          final var halfSize = obstruction.size() / 2;
+          final var location = obstruction.location();
+
+          return location - halfSize > redPostLocation && location + halfSize < greenPostLocation;
+        })
+        .sorted()
+        .mapToObj(obstructions::get)
+        .map(obstruction -> new Obstruction(
+            obstruction.size(),
+            obstruction.location() - redPostLocation,
+            obstruction.type()
+        ))
+        .toList();
+
+    return new ObstructionIndex(segmentObstructions, maxAllowedIntersection, postInstallationSize);
+  }
+
+  /**
+   * @return indexes of values sorted by value (stable)
+   */
+  private static int[] sortedIndexes(double[] values) {
+    return IntStream.range(0, values.length)
+        .boxed()
+        .sorted(Comparator.comparingDouble(i -> values[i]))
+        .mapToInt(Integer::intValue)
+        .toArray();
+  }
+
+  /**
+   * @return index of the first value that is not less than given one (values length if not found)
+   */
+  private static int findFirstNotLess(double[] sortedValues, double value) {
+    var low = 0;
+    var high = sortedValues.length;
+
+    while (low < high) {
+      final var middle = (low + high) >>> 1;
+
+      if (sortedValues[middle] < value) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+
+    return low;
+  }
+
+  /**
+   * @return index of the first value that is greater than given one (values length if not found)
+   */
+  private static int findFirstGreater(double[] sortedValues, double value) {
+    var low = 0;
+    var high = sortedValues.length;
+
+    while (low < high) {
+      final var middle = (low + high) >>> 1;
+
+      if (sortedValues[middle] <= value) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+
+    return low;
+  }
+}
@@ -0,0 +1,20 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+/**
+ * Settings of optimal segments solving: posts are placed on grid of given resolution and the best placements are
+ * found by dynamic programming instead of checking even and shifted layouts only.
+ *
+ * @param resolution    grid step of post locations (in length unit of calculation input)
+ * @param maxExtraPosts maximal number of posts added to even layout posts number
+ */
+public record OptimalSearch(double resolution, int maxExtraPosts) {
+
+  public OptimalSearch {
+    if (resolution <= 0) {
+      throw new IllegalArgumentException("Resolution has to be positive: " + resolution);
+    }
+    if (maxExtraPosts < 0) {
+      throw new IllegalArgumentException("Extra posts number can't be negative: " + maxExtraPosts);
+    }
+  }
+}
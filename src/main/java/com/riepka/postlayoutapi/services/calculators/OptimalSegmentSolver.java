@@ -0,0 +1,386 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+import static com.riepka.postlayoutapi.services.calculators.PostLayoutCalculator.SQUARE_SUM_RELATIVE_ERROR;
+
+import com.riepka.postlayoutapi.entity.Obstruction;
+import com.riepka.postlayoutapi.entity.ObstructionType;
+import com.riepka.postlayoutapi.services.calculators.PostLayoutCalculator.SegmentSolution;
+import com.riepka.postlayoutapi.services.calculators.PostLayoutCalculator.SolutionOptions;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the best segment solutions among all layouts with posts placed on grid (locations are multiples of grid
+ * step) and panels not longer than maximal center to center length.
+ * <p>
+ * For the same posts number solutions are ordered by posts on "Must avoid" obstructions, then on "Try to avoid" ones,
+ * then by sum of squared panels lengths (the same order as by dispersion), so every criteria is a sum over posts
+ * and panels. Dynamic programming over states (post location, number of posts up to it) keeps the best placements
+ * of each state: the best placements of the whole segment are continuations of the best placements of their states.
+ * Every state takes up to "maximal panel steps" previous states, and numbers of posts are limited by maximal extra
+ * posts, so search time grows linearly with segment length divided by grid step.
+ * <p>
+ * Placements equal by all criteria (e.g. the same panels in different order) can't be ordered by ranking, so only
+ * the first found of them is kept, and found solutions differ in ranking. Unlike posts shifting search all the best
+ * solutions of each posts number are found, including solutions with posts on obstructions if there are no better
+ * ones. Solutions are never even layouts, even layouts are checked separately.
+ */
+final class OptimalSegmentSolver {
+
+  // placement penalty: posts on "Must avoid" obstructions in high bits, posts on "Try to avoid" ones in low bits
+  private static final int MUST_AVOID_PENALTY = 1 << 16;
+  private static final int TRY_TO_AVOID_PENALTY = 1;
+  // previous placement of the first post
+  private static final int START = -1;
+
+  // maximal panel length (post center to post center)
+  private final double maxCenterToCenter;
+  // distance between neighbouring grid locations
+  private final double step;
+  // maximal panel length in grid steps
+  private final int maxPanelSteps;
+  private final int maxExtraPosts;
+  // number of the best placements kept for each state
+  private final int placementsNumber;
+  private final Deadline deadline;
+
+  /**
+   * @param maxCenterToCenter maximal panel length (post center to post center)
+   * @param step              distance between neighbouring grid locations
+   * @param maxExtraPosts     maximal number of posts added to even layout posts number
+   * @param solutionsNumber   number of the best solutions found for each posts number
+   * @param deadline          deadline search is stopped at
+   */
+  OptimalSegmentSolver(
+      double maxCenterToCenter,
+      double step,
+      int maxExtraPosts,
+      int solutionsNumber,
+      Deadline deadline
+  ) {
+    this.maxCenterToCenter = maxCenterToCenter;
+    this.step = step;
+    this.maxPanelSteps = (int) Math.floor(maxCenterToCenter / step);
+    this.maxExtraPosts = maxExtraPosts;
+    this.placementsNumber = solutionsNumber;
+    this.deadline = deadline;
+  }
+
+  /**
+   * @param segmentLength       segment red post center to green post center length
+   * @param basePostsNumber     number of inner posts of even layout without extra posts
+   * @param segmentObstructions obstructions in segment (with locations related to segment start)
+   * @return the best solutions of each posts number (ordered by posts number, then from the best one),
+   * null if deadline is reached before search is finished
+   */
+  List<SegmentSolution> solve(double segmentLength, int basePostsNumber, ObstructionIndex segmentObstructions) {
+    final List<SegmentSolution> solutions = new ArrayList<>();
+
+    if (segmentLength <= maxCenterToCenter && basePostsNumber == 0) {
+      // segment without inner posts (always the best one for zero posts)
+      solutions.add(new SegmentSolution(segmentLength, new double[0], new SolutionOptions(false, 0, 0, 0)));
+    }
+
+    if (maxPanelSteps == 0) {
+      return solutions;
+    }
+
+    final var states = new States(segmentLength, basePostsNumber + maxExtraPosts);
+    for (int position = 1; position <= states.lastPosition; position++) {
+      if (deadline.isReached()) {
+        return null;
+      }
+
+      findPositionPlacements(states, position, segmentObstructions);
+    }
+
+    final var finalPlacements = new Placements(placementsNumber);
+    for (int postsNumber = Math.max(basePostsNumber, 1); postsNumber <= states.maxPostsNumber; postsNumber++) {
+      finalPlacements.clear();
+
+      // the last panel has to be valid
+      for (int position = states.lastPosition;
+          position > 0 && segmentLength - position * step <= maxCenterToCenter;
+          position--) {
+        final var state = states.find(position, postsNumber);
+
+        if (state >= 0) {
+          addContinuations(states, state, segmentLength - position * step, 0, finalPlacements);
+        }
+      }
+
+      for (int i = 0; i < finalPlacements.size; i++) {
+        solutions.add(toSolution(states, segmentLength, finalPlacements, i, postsNumber - basePostsNumber));
+      }
+    }
+
+    return solutions;
+  }
+
+  /**
+   * Finds the best placements with the last post at given grid location for each possible number of posts.
+   *
+   * @param states   placements of previous grid locations
+   * @param position grid location of the last post
+   */
+  private void findPositionPlacements(States states, int position, ObstructionIndex segmentObstructions) {
+    final var obstructionType = segmentObstructions.findIntersectedObstruction(position * step)
+        .map(Obstruction::type)
+        .orElse(null);
+    final var penalty = obstructionType == null
+        ? 0
+        : obstructionType == ObstructionType.TRY_TO_AVOID
+            ? TRY_TO_AVOID_PENALTY
+            : MUST_AVOID_PENALTY;
+
+    final var placements = new Placements(placementsNumber);
+    for (int postsNumber = states.minPostsNumber[position]; postsNumber <= states.maxPostsNumber(position);
+        postsNumber++) {
+      placements.clear();
+
+      if (postsNumber == 1 && position <= maxPanelSteps) {
+        final var panel = position * step;
+        placements.add(penalty, panel * panel, START);
+      }
+
+      // previous posts are checked from the location of equal panels outwards, so the best placements are found
+      // first and most of others are rejected by their first placement
+      final var firstPrevious = Math.max(position - maxPanelSteps, 1);
+      final var lastPrevious = position - 1;
+      final var equalPanelsPrevious = (int) ((long) position * (postsNumber - 1) / postsNumber);
+      var left = Math.clamp(equalPanelsPrevious, firstPrevious - 1, lastPrevious);
+      var right = left + 1;
+
+      while (left >= firstPrevious || right <= lastPrevious) {
+        if (left >= firstPrevious) {
+          addContinuations(states, position, left--, postsNumber - 1, penalty, placements);
+        }
+        if (right <= lastPrevious) {
+          addContinuations(states, position, right++, postsNumber - 1, penalty, placements);
+        }
+      }
+
+      states.put(position, postsNumber, placements);
+    }
+  }
+
+  /**
+   * Adds placements of previous post location continued with the next post to the best placements (if there are such
+   * placements).
+   */
+  private void addContinuations(
+      States states,
+      int position,
+      int previous,
+      int previousPostsNumber,
+      int penalty,
+      Placements placements
+  ) {
+    final var state = states.find(previous, previousPostsNumber);
+
+    if (state >= 0) {
+      addContinuations(states, state, (position - previous) * step, penalty, placements);
+    }
+  }
+
+  /**
+   * Adds placements of previous state continued with the next post to the best placements.
+   * State placements are ordered from the best one and the next panel is the same for all of them,
+   * so continuations are checked until the first one that isn't good enough.
+   *
+   * @param state      previous state
+   * @param panel      panel length from previous state post to the next post
+   * @param penalty    penalty of the next post
+   * @param placements the best placements of the next post
+   */
+  private static void addContinuations(States states, int state, double panel, int penalty, Placements placements) {
+    final var squaredPanel = panel * panel;
+    final var first = state * states.placementsNumber;
+    final var last = first + states.sizes[state];
+
+    for (int placement = first; placement < last; placement++) {
+      if (!placements.add(states.penalties[placement] + penalty, states.squareSums[placement] + squaredPanel,
+          placement)) {
+        break;
+      }
+    }
+  }
+
+  /**
+   * @param finalPlacements the best placements ending at segment end
+   * @param index           index of placement in final placements
+   * @return segment solution with placed posts
+   */
+  private SegmentSolution toSolution(
+      States states,
+      double segmentLength,
+      Placements finalPlacements,
+      int index,
+      int extraPosts
+  ) {
+    final List<Double> locations = new ArrayList<>();
+    for (int placement = finalPlacements.previous[index]; placement != START;
+        placement = states.previous[placement]) {
+      locations.add(states.positions[placement / states.placementsNumber] * step);
+    }
+
+    final var layout = new double[locations.size()];
+    for (int i = 0; i < layout.length; i++) {
+      layout[i] = locations.get(layout.length - 1 - i);
+    }
+
+    final var penalty = finalPlacements.penalties[index];
+
+    return new SegmentSolution(
+        segmentLength,
+        layout,
+        new SolutionOptions(false, extraPosts, penalty % MUST_AVOID_PENALTY, penalty / MUST_AVOID_PENALTY)
+    );
+  }
+
+  /**
+   * The best placements of all states. State placements are kept in flat arrays (state index * placements number
+   * is the first one), previous placement is referenced by its index in the same arrays.
+   */
+  private final class States {
+
+    private final int lastPosition;
+    private final int maxPostsNumber;
+    private final int placementsNumber = OptimalSegmentSolver.this.placementsNumber;
+    // by grid location (1 - step, 2 - 2 * step, ...): possible posts numbers up to post and index of the first state
+    private final int[] minPostsNumber;
+    private final int[] postsNumbers;
+    private final int[] firstState;
+    // by state
+    private final int[] positions;
+    private final int[] sizes;
+    // by placement
+    private final int[] penalties;
+    private final double[] squareSums;
+    private final int[] previous;
+
+    private States(double segmentLength, int maxPostsNumber) {
+      // grid locations inside segment: step, 2 * step, ..., lastPosition * step
+      this.lastPosition = (int) Math.ceil(segmentLength / step) - 1;
+      this.maxPostsNumber = maxPostsNumber;
+      this.minPostsNumber = new int[lastPosition + 1];
+      this.postsNumbers = new int[lastPosition + 1];
+      this.firstState = new int[lastPosition + 1];
+
+      var statesNumber = 0;
+      for (int position = 1; position <= lastPosition; position++) {
+        // panels before post can't be longer than maximal one, panels after post have to cover the rest of segment
+        final var postsAfter = (int) Math.ceil((segmentLength - position * step) / maxCenterToCenter) - 1;
+
+        minPostsNumber[position] = (position + maxPanelSteps - 1) / maxPanelSteps;
+        postsNumbers[position] = Math.max(maxPostsNumber - Math.max(postsAfter, 0) - minPostsNumber[position] + 1, 0);
+        firstState[position] = statesNumber;
+        statesNumber += postsNumbers[position];
+      }
+
+      this.positions = new int[statesNumber];
+      this.sizes = new int[statesNumber];
+      this.penalties = new int[statesNumber * placementsNumber];
+      this.squareSums = new double[statesNumber * placementsNumber];
+      this.previous = new int[statesNumber * placementsNumber];
+    }
+
+    private int maxPostsNumber(int position) {
+      return minPostsNumber[position] + postsNumbers[position] - 1;
+    }
+
+    /**
+     * @return index of state, -1 if state isn't possible
+     */
+    private int find(int position, int postsNumber) {
+      final var index = postsNumber - minPostsNumber[position];
+
+      return index >= 0 && index < postsNumbers[position]
+          ? firstState[position] + index
+          : -1;
+    }
+
+    private void put(int position, int postsNumber, Placements placements) {
+      final var state = find(position, postsNumber);
+      final var first = state * placementsNumber;
+
+      positions[state] = position;
+      sizes[state] = placements.size;
+      System.arraycopy(placements.penalties, 0, penalties, first, placements.size);
+      System.arraycopy(placements.squareSums, 0, squareSums, first, placements.size);
+      System.arraycopy(placements.previous, 0, previous, first, placements.size);
+    }
+  }
+
+  /**
+   * Bounded ordered list of the best placements of one state. Placement equal to already added one isn't added.
+   */
+  private static final class Placements {
+
+    private final int[] penalties;
+    private final double[] squareSums;
+    private final int[] previous;
+    private int size;
+
+    private Placements(int capacity) {
+      this.penalties = new int[capacity];
+      this.squareSums = new double[capacity];
+      this.previous = new int[capacity];
+    }
+
+    private void clear() {
+      size = 0;
+    }
+
+    /**
+     * @param penalty   placement penalty
+     * @param squareSum placement sum of squared panels lengths
+     * @param previous  index of previous placement
+     * @return false if placement isn't better than the worst one of the full list
+     */
+    private boolean add(int penalty, double squareSum, int previous) {
+      final var capacity = penalties.length;
+
+      if (size == capacity && compare(penalty, squareSum, size - 1) >= 0) {
+        return false;
+      }
+
+      var index = size;
+      while (index > 0 && compare(penalty, squareSum, index - 1) < 0) {
+        index--;
+      }
+
+      if (index > 0 && isEqual(penalty, squareSum, index - 1)
+          || index < size && isEqual(penalty, squareSum, index)) {
+        return true;
+      }
+
+      for (int i = Math.min(size, capacity - 1); i > index; i--) {
+        penalties[i] = penalties[i - 1];
+        squareSums[i] = squareSums[i - 1];
+        this.previous[i] = this.previous[i - 1];
+      }
+
+      penalties[index] = penalty;
+      squareSums[index] = squareSum;
+      this.previous[index] = previous;
+      size = Math.min(size + 1, capacity);
+
+      return true;
+    }
+
+    private int compare(int penalty, double squareSum, int index) {
+      return penalty != penalties[index]
+          ? Integer.compare(penalty, penalties[index])
+          : Double.compare(squareSum, squareSums[index]);
+    }
+
+    /**
+     * Checks if placement differs from placement at index only by calculation error
+     */
+    private boolean isEqual(int penalty, double squareSum, int index) {
+      return penalty == penalties[index]
+          && Math.abs(squareSum - squareSums[index]) <= SQUARE_SUM_RELATIVE_ERROR * squareSum;
+    }
+  }
+}
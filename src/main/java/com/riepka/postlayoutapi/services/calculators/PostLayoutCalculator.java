@@ -1,23 +1,36 @@
 package com.riepka.postlayoutapi.services.calculators;
 
-import static java.util.Collections.emptyList;
-
 import com.riepka.postlayoutapi.entity.Obstruction;
 import com.riepka.postlayoutapi.entity.ObstructionType;
 import com.riepka.postlayoutapi.entity.PostLayoutDescription;
 import com.riepka.postlayoutapi.entity.PostLayoutOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Optional;
-
-public class PostLayoutCalculator {
-
-  private static final double MAX_ALLOWED_INTERSECTION = 0.1;
-  private static final int SOLUTIONS_DESIRED = 10;
-  private static final int POST_INSTALLATION_EXTENSION = 4;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import lombok.Builder;
+
+public class PostLayoutCalculator implements LayoutSolver {
+
+  static final double MAX_ALLOWED_INTERSECTION = 0.1;
+  static final int SOLUTIONS_DESIRED = 10;
+  static final int POST_INSTALLATION_EXTENSION = 4;
+  static final double SQUARE_SUM_RELATIVE_ERROR = 1e-9;
+  // maximal number of layouts with posts shifted from "Must avoid" obstructions checked for one layout
+  static final int SHIFTED_LAYOUTS_LIMIT = 1000;
+  // minimal time between intermediate results reported to calculation listener
+  private static final long PROGRESS_INTERVAL_NANOS = 50_000_000;
 
   // post style size
   private final double postSize;
@@ -25,8 +38,31 @@ public class PostLayoutCalculator {
   private final double panelMaxLength;
   // run horizontal length (post center to post center)
   private final double runLength;
-  // obstructions list (Obstruction(size, location, type[MUST_AVOID, TRY_TO_AVOID, PLACE_POST])) sorted left to right
+  // obstructions list (Obstruction(size, location, type[MUST_AVOID, TRY_TO_AVOID, PLACE_POST])) sorted left to right,
+  // taken from prepared obstructions if they are set
   private final List<Obstruction> obstructions;
+  // obstructions index for fast lookups by location
+  private final ObstructionIndex obstructionIndex;
+  // executor segments are solved on in parallel, null if segments are solved sequentially
+  private final Executor segmentExecutor;
+  // minimal number of segments to solve them in parallel (fewer segments are solved sequentially)
+  private final int parallelSegmentsThreshold;
+  // segment solutions shared between calculations, null if segment solutions aren't cached
+  private final SegmentSolutionsCache segmentCache;
+  // calculation phases metrics
+  private final CalculationMetrics metrics;
+  // deadline searches are stopped at
+  private final Deadline deadline;
+  // segments solutions of the previous calculation of the same run, null if run isn't calculated incrementally
+  private final IncrementalSegments incrementalSegments;
+  // scale lengths are converted to whole units with, null if lengths are calculated as is
+  private final FixedPointScale fixedPoint;
+  // post installation extension (in units if lengths are converted)
+  private final double installationExtension;
+  // settings of segments solving with posts placed on grid, null if segments are solved by posts shifting
+  private final OptimalSearch optimalSearch;
+  // solver of segments with posts placed on grid, null if segments are solved by posts shifting
+  private final OptimalSegmentSolver optimalSolver;
 
   public PostLayoutCalculator(
       double postSize,
@@ -34,25 +70,158 @@ public class PostLayoutCalculator {
       double runLength,
       List<Obstruction> obstructions
   ) {
-    this.postSize = postSize;
-    this.panelMaxLength = panelMaxLength;
-    this.runLength = runLength;
-    this.obstructions = obstructions;
+    this(postSize, panelMaxLength, runLength, obstructions, null, 0, null, null, null, null, null, null, null);
+  }
+
+  @Builder
+  private PostLayoutCalculator(
+      double postSize,
+      double panelMaxLength,
+      double runLength,
+      List<Obstruction> obstructions,
+      Executor segmentExecutor,
+      int parallelSegmentsThreshold,
+      SegmentSolutionsCache segmentCache,
+      CalculationMetrics metrics,
+      Deadline deadline,
+      IncrementalSegments incrementalSegments,
+      PreparedObstructions preparedObstructions,
+      FixedPointScale fixedPoint,
+      OptimalSearch optimalSearch
+  ) {
+    this.fixedPoint = fixedPoint;
+    if (fixedPoint == null) {
+      this.postSize = postSize;
+      this.panelMaxLength = panelMaxLength;
+      this.runLength = runLength;
+      this.installationExtension = POST_INSTALLATION_EXTENSION;
+    } else {
+      this.postSize = fixedPoint.toUnits(postSize);
+      this.panelMaxLength = fixedPoint.toUnits(panelMaxLength);
+      this.runLength = fixedPoint.toUnits(runLength);
+      this.installationExtension = fixedPoint.toUnits(POST_INSTALLATION_EXTENSION);
+    }
+    if (fixedPoint != null) {
+      // index of prepared obstructions is built for lengths as is
+      this.obstructions = toUnits(preparedObstructions == null ? obstructions : preparedObstructions.obstructions());
+      this.obstructionIndex = new ObstructionIndex(
+          this.obstructions,
+          MAX_ALLOWED_INTERSECTION,
+          getPostInstallationSize()
+      );
+    } else if (preparedObstructions == null) {
+      this.obstructions = obstructions;
+      this.obstructionIndex = new ObstructionIndex(obstructions, MAX_ALLOWED_INTERSECTION, getPostInstallationSize());
+    } else {
+      this.obstructions = preparedObstructions.obstructions();
+      this.obstructionIndex = preparedObstructions.index(getPostInstallationSize());
+    }
+    this.segmentExecutor = segmentExecutor;
+    this.parallelSegmentsThreshold = parallelSegmentsThreshold;
+    this.segmentCache = segmentCache;
+    this.metrics = metrics == null
+        ? CalculationMetrics.NOOP
+        : metrics;
+    this.deadline = deadline == null
+        ? Deadline.NONE
+        : deadline;
+    this.incrementalSegments = incrementalSegments;
+    this.optimalSearch = optimalSearch;
+    this.optimalSolver = optimalSearch == null
+        ? null
+        : new OptimalSegmentSolver(
+            this.panelMaxLength + this.postSize,
+            fixedPoint == null
+                ? optimalSearch.resolution()
+                : Math.max(fixedPoint.toUnits(optimalSearch.resolution()), 1),
+            optimalSearch.maxExtraPosts(),
+            SOLUTIONS_DESIRED,
+            this.deadline
+        );
   }
 
   /**
    * @return list of found layout prioritized options
    */
+  @Override
   public List<PostLayoutOption> calculate() {
+    return calculateWithStatus().options();
+  }
+
+  /**
+   * Calculates layout options. If deadline is reached, searches are stopped and the best options found so far are
+   * returned (every segment has at least its even layouts solutions).
+   *
+   * @return found layout prioritized options with truncation flag
+   */
+  public CalculationResult calculateWithStatus() {
+    return calculateWithStatus(null);
+  }
+
+  /**
+   * Calculates layout options reporting intermediate results to listener: options for even layouts at once,
+   * then improved options while segments are solved (not more often than every 50 ms).
+   * Final options are returned only.
+   *
+   * @param listener listener of intermediate options, null if they aren't needed
+   * @return found layout prioritized options with truncation flag
+   */
+  @Override
+  public CalculationResult calculateWithStatus(CalculationListener listener) {
+    final var segments = splitIntoSegments();
+    final var progress = listener == null
+        ? null
+        : new ProgressReporter(segments, listener);
+
+    final var solvingStart = System.nanoTime();
+    final long combinationStart;
+    final List<CombinedSolution> combinedSolutions;
+    try {
+      final var segmentResults = solveSegments(segments, progress);
+
+      combinationStart = System.nanoTime();
+      combinedSolutions = incrementalSegments == null
+          ? combineSegmentResults(segmentResults)
+          : combineSegmentResultsIncrementally(segmentResults);
+    } catch (RuntimeException | Error e) {
+      if (incrementalSegments != null) {
+        // partial solutions of failed calculation aren't kept, the next calculation reuses the last finished one
+        incrementalSegments.abortCalculation();
+      }
+
+      throw e;
+    }
+
+    final var rankingStart = System.nanoTime();
+    final var options = rankSolutions(combinedSolutions);
+    final var rankingEnd = System.nanoTime();
+
+    metrics.recordPhase(CalculationPhase.SEGMENTS_SOLVING, combinationStart - solvingStart);
+    metrics.recordPhase(CalculationPhase.COMBINATION, rankingStart - combinationStart);
+    metrics.recordPhase(CalculationPhase.RANKING, rankingEnd - rankingStart);
+
+    final var truncated = deadline.wasReached();
+    if (truncated) {
+      metrics.recordTruncatedCalculation();
+    }
+
+    return new CalculationResult(options, truncated);
+  }
+
+  /**
+   * Divides run by segments with PLACE_POST obstructions.
+   *
+   * @return segments bounds in run order
+   */
+  List<SegmentBounds> splitIntoSegments() {
     final var placePostObstructions = obstructions.stream()
         .filter(obstruction -> obstruction.type() == ObstructionType.PLACE_POST)
         .sorted(Comparator.comparingDouble(Obstruction::location))// can be omitted if all obstructions are sorted
         .filter(obstruction -> obstruction.location() < runLength)
         .toList();
 
-    final List<SegmentResult> segmentResultList = new ArrayList<>();
+    final List<SegmentBounds> segments = new ArrayList<>();
 
-    // Divide by segments and find result(solutions) for each of them
     for (int i = 0; i <= placePostObstructions.size(); i++) {
       final var segmentRedPost = i == 0
           ? 0
@@ -61,36 +230,325 @@ public class PostLayoutCalculator {
           ? runLength
           : placePostObstructions.get(i).location();
 
-      final var segmentObstructions = findSegmentObstructions(segmentRedPost, segmentGreenPost);
-      final var segmentLength = segmentGreenPost - segmentRedPost;
+      segments.add(new SegmentBounds(segmentRedPost, segmentGreenPost));
+    }
+
+    return segments;
+  }
+
+  /**
+   * Finds result(solutions) for each of segments
+   *
+   * @param segments segments bounds in run order
+   * @return segments results in run order
+   */
+  List<SegmentResult> solveSegments(List<SegmentBounds> segments) {
+    return solveSegments(segments, null);
+  }
+
+  /**
+   * Finds result(solutions) for each of segments reporting solved segments to progress reporter
+   *
+   * @param segments segments bounds in run order
+   * @param progress progress reporter, null if progress isn't reported
+   * @return segments results in run order
+   */
+  private List<SegmentResult> solveSegments(List<SegmentBounds> segments, ProgressReporter progress) {
+    if (segmentExecutor != null && segments.size() >= parallelSegmentsThreshold) {
+      return findSegmentResultsInParallel(segments, progress);
+    }
+
+    final List<SegmentResult> segmentResults = new ArrayList<>(segments.size());
+    for (final SegmentBounds segment : segments) {
+      final var segmentNumber = segmentResults.size();
+      segmentResults.add(findSegmentResult(
+          segment,
+          progress == null
+              ? null
+              : search -> progress.segmentImproved(segmentNumber, segment.redPostLocation(), search)
+      ));
+
+      if (progress != null) {
+        progress.segmentSolved(segmentResults.size() - 1, segmentResults.getLast());
+      }
+    }
 
-      // find solutions for particular segment
-      final var segmentSolutions = findSolutionsForSegment(segmentLength, segmentObstructions);
+    return segmentResults;
+  }
 
-      segmentResultList.add(new SegmentResult(segmentRedPost, segmentSolutions));
+  /**
+   * Combines results for segments one by one.
+   * After each step only combinations that still can get into desired quantity of results are kept,
+   * so number of combinations doesn't grow with number of segments.
+   * After deadline is reached only the best solution of each remaining segment is combined.
+   *
+   * @param segmentResults segments results in run order
+   * @return combined solutions for the whole run
+   */
+  List<CombinedSolution> combineSegmentResults(List<SegmentResult> segmentResults) {
+    List<CombinedSolution> combinedSolutions = startCombination(segmentResults.get(0));
+    for (int i = 1; i < segmentResults.size(); i++) {
+      combinedSolutions = combineWithSegment(combinedSolutions, segmentResults.get(i));
     }
 
-    // Combine all results for segments in one with all possible combinations by segments
-    SegmentResult combinedResult = segmentResultList.get(0);
-    for (int i = 1; i < segmentResultList.size(); i++) {
-      final List<SegmentSolution> combinedSolutions = new ArrayList<>();
-      final SegmentResult currentSegment = segmentResultList.get(i);
+    return combinedSolutions;
+  }
 
-      for (final SegmentSolution mergedSolution : combinedResult.solutions()) {
-        for (final SegmentSolution segmentSolution : currentSegment.solutions()) {
-          combinedSolutions.add(mergedSolution.combine(currentSegment.location(), segmentSolution));
-        }
+  /**
+   * @param firstSegment the first segment result
+   * @return combinations of the first segment solutions only
+   */
+  private List<CombinedSolution> startCombination(SegmentResult firstSegment) {
+    return firstSegment.solutions().stream()
+        .map(CombinedSolution::of)
+        .toList();
+  }
+
+  /**
+   * Combines solutions of already combined segments with the next segment solutions
+   *
+   * @param combinedSolutions combined solutions of previous segments
+   * @param currentSegment    next segment result
+   * @return combined solutions with promising ones only
+   */
+  private List<CombinedSolution> combineWithSegment(
+      List<CombinedSolution> combinedSolutions,
+      SegmentResult currentSegment
+  ) {
+    final List<CombinedSolution> nextCombinedSolutions = new ArrayList<>();
+    final List<SegmentSolution> currentSolutions = deadline.isReached()
+        ? List.of(Collections.min(currentSegment.solutions(), new SolutionComparator()))
+        : currentSegment.solutions();
+
+    for (final CombinedSolution combinedSolution : combinedSolutions) {
+      for (final SegmentSolution segmentSolution : currentSolutions) {
+        nextCombinedSolutions.add(combinedSolution.combine(currentSegment.location(), segmentSolution));
       }
+    }
+
+    return selectPromisingSolutions(nextCombinedSolutions);
+  }
+
+  /**
+   * Combines results for segments reusing combinations of the previous calculation for leading segments
+   * that aren't changed. Complete combinations are saved for the next calculation.
+   *
+   * @param segmentResults segments results in run order
+   * @return combined solutions for the whole run
+   */
+  private List<CombinedSolution> combineSegmentResultsIncrementally(List<SegmentResult> segmentResults) {
+    final var reusableCombinations = incrementalSegments.countReusableCombinations(segmentResults);
+    final List<List<CombinedSolution>> combinations = new ArrayList<>(segmentResults.size());
+
+    for (int i = 0; i < reusableCombinations; i++) {
+      combinations.add(incrementalSegments.getCombination(i));
+    }
+
+    List<CombinedSolution> combinedSolutions = reusableCombinations == 0
+        ? startCombination(segmentResults.get(0))
+        : combinations.getLast();
+    if (reusableCombinations == 0) {
+      combinations.add(combinedSolutions);
+    }
+
+    for (int i = combinations.size(); i < segmentResults.size(); i++) {
+      combinedSolutions = combineWithSegment(combinedSolutions, segmentResults.get(i));
+      combinations.add(combinedSolutions);
+    }
 
-      combinedResult = new SegmentResult(combinedResult.location(), combinedSolutions);
+    if (!deadline.wasReached()) {
+      incrementalSegments.putCombinations(segmentResults, combinations);
     }
+    incrementalSegments.finishCalculation();
 
-    // prioritize results and save only desired quantity
-    return combinedResult.solutions().stream()
-        .sorted(new SolutionComparator())
+    return combinedSolutions;
+  }
+
+  /**
+   * Prioritizes solutions and saves only desired quantity.
+   * Post locations are built only for the returned solutions.
+   *
+   * @param solutions run solutions
+   * @return list of layout prioritized options
+   */
+  List<PostLayoutOption> rankSolutions(List<CombinedSolution> solutions) {
+    return solutions.stream()
+        .map(solution -> new RankedSolution(solution, solution.calcDispersion()))
+        .sorted((r1, r2) -> SolutionComparator.compare(r1.options(), r1.dispersion(), r2.options(), r2.dispersion()))
         .limit(SOLUTIONS_DESIRED)
-        .map(this::mapSolutionToOption)
+        .map(ranked -> mapSolutionToOption(ranked.solution()))
+        .toList();
+  }
+
+  /**
+   * Finds solutions for segments in parallel on segment executor.
+   * Segments are independent, results are joined in segments order, so they are the same as sequential ones.
+   *
+   * @param segments segments bounds in run order
+   * @param progress progress reporter, null if progress isn't reported
+   * @return segments results in run order
+   */
+  private List<SegmentResult> findSegmentResultsInParallel(List<SegmentBounds> segments, ProgressReporter progress) {
+    final var futureResults = segments.stream()
+        .map(segment -> CompletableFuture.supplyAsync(() -> findSegmentResult(segment, null), segmentExecutor))
         .toList();
+
+    try {
+      final List<SegmentResult> segmentResults = new ArrayList<>(segments.size());
+      for (final CompletableFuture<SegmentResult> futureResult : futureResults) {
+        segmentResults.add(futureResult.join());
+
+        if (progress != null) {
+          progress.segmentSolved(segmentResults.size() - 1, segmentResults.getLast());
+        }
+      }
+
+      return segmentResults;
+    } catch (CompletionException e) {
+      if (incrementalSegments != null) {
+        // segments still being solved save solutions to incremental state, so they are awaited before it is reset
+        futureResults.forEach(futureResult -> futureResult.exceptionally(error -> null).join());
+      }
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+
+      throw e;
+    }
+  }
+
+  /**
+   * Finds solutions for particular segment (takes them from the previous calculation or segment cache if possible).
+   * Solutions found after deadline is reached can be incomplete, so they aren't cached.
+   *
+   * @param segment          segment bounds (absolute locations)
+   * @param progressListener listener of segment search gaining better solution, null if progress isn't reported
+   * @return segment result with solutions related to segment red post
+   */
+  private SegmentResult findSegmentResult(SegmentBounds segment, Consumer<SegmentSearch> progressListener) {
+    final var segmentObstructions = findSegmentObstructions(segment);
+    final var segmentLength = segment.greenPostLocation() - segment.redPostLocation();
+
+    if (segmentCache == null && incrementalSegments == null) {
+      return new SegmentResult(
+          segment.redPostLocation(),
+          findSolutionsForSegment(segmentLength, segmentObstructions, progressListener)
+      );
+    }
+
+    final var key = new SegmentSolutionsCache.SegmentKey(
+        postSize,
+        panelMaxLength,
+        segmentLength,
+        segmentObstructions.obstructions(),
+        fixedPoint,
+        optimalSearch
+    );
+    var segmentSolutions = incrementalSegments == null
+        ? null
+        : incrementalSegments.get(key);
+
+    if (segmentSolutions == null && segmentCache != null) {
+      segmentSolutions = segmentCache.get(key);
+
+      if (segmentSolutions != null && incrementalSegments != null) {
+        incrementalSegments.keep(key, segmentSolutions);
+      }
+    }
+
+    if (segmentSolutions == null) {
+      segmentSolutions = findSolutionsForSegment(segmentLength, segmentObstructions, progressListener);
+      final var complete = !deadline.wasReached();
+
+      if (complete && segmentCache != null) {
+        segmentSolutions = segmentCache.put(key, segmentSolutions);
+      }
+      if (incrementalSegments != null) {
+        incrementalSegments.put(key, segmentSolutions, complete);
+      }
+    }
+
+    return new SegmentResult(segment.redPostLocation(), segmentSolutions);
+  }
+
+  /**
+   * @param segment segment bounds (absolute locations)
+   * @return index of obstructions located in segment (with locations related to segment red post)
+   */
+  ObstructionIndex findSegmentObstructions(SegmentBounds segment) {
+    return obstructionIndex.slice(segment.redPostLocation(), segment.greenPostLocation());
+  }
+
+  /**
+   * Selects combined solutions that still can get into desired quantity of results after combining with the next
+   * segments solutions.
+   * Two combined solutions (covering the same segments) keep their order after combining with the same next solution
+   * except "even layout" criteria, which matters only if next solution is even as well.
+   * So it's enough to keep best solutions for both cases (next solution even/not even), all others can be dropped.
+   *
+   * @param solutions combined solutions in combination order
+   * @return list of selected solutions (order is preserved)
+   */
+  private List<CombinedSolution> selectPromisingSolutions(List<CombinedSolution> solutions) {
+    if (solutions.size() <= SOLUTIONS_DESIRED) {
+      return solutions;
+    }
+
+    final List<CombinedSolutionRank> ranks = new ArrayList<>();
+    for (int i = 0; i < solutions.size(); i++) {
+      ranks.add(new CombinedSolutionRank(i, solutions.get(i).options(), solutions.get(i).panelsSquareSum()));
+    }
+
+    final boolean[] selected = new boolean[solutions.size()];
+    for (final boolean nextEven : List.of(true, false)) {
+      final var comparator = new CombinedSolutionComparator(nextEven);
+      final var sortedRanks = ranks.stream()
+          .sorted(comparator)
+          .toList();
+      final var lastDesiredRank = sortedRanks.get(SOLUTIONS_DESIRED - 1);
+
+      for (int i = 0; i < sortedRanks.size(); i++) {
+        final var rank = sortedRanks.get(i);
+
+        // solutions differing from the last desired one only by calculation error can be ordered either way
+        if (i >= SOLUTIONS_DESIRED && !comparator.isTie(lastDesiredRank, rank)) {
+          break;
+        }
+
+        selected[rank.index()] = true;
+      }
+    }
+
+    final List<CombinedSolution> selectedSolutions = new ArrayList<>();
+    for (int i = 0; i < solutions.size(); i++) {
+      if (selected[i]) {
+        selectedSolutions.add(solutions.get(i));
+      }
+    }
+
+    return selectedSolutions;
+  }
+
+  /**
+   * Calculates sum of squared panel (center to center) lengths for layout of segment with given length.
+   * For solutions with the same length and posts number it changes in the same way as layout dispersion.
+   */
+  private static double calcPanelsSquareSum(double segmentLength, double[] layout) {
+    double squareSum = 0;
+
+    for (int i = 0; i <= layout.length; i++) {
+      final var prevLocation = i == 0
+          ? 0
+          : layout[i - 1];
+      final var currLocation = i == layout.length
+          ? segmentLength
+          : layout[i];
+      final var c2c = currLocation - prevLocation;
+
+      squareSum += c2c * c2c;
+    }
+
+    return squareSum;
   }
 
   /**
@@ -98,47 +556,149 @@ public class PostLayoutCalculator {
    *
    * @param segmentLength       segment red post center to green post center length
    * @param segmentObstructions obstructions in segment (with locations related to 0 (segment start point))
+   * @param progressListener    listener of search gaining better solution, null if progress isn't reported
    * @return list of solutions available in this segment
    */
   private List<SegmentSolution> findSolutionsForSegment(
       double segmentLength,
-      List<Obstruction> segmentObstructions
+      ObstructionIndex segmentObstructions,
+      Consumer<SegmentSearch> progressListener
   ) {
-    final List<SegmentSolution> solutions = new ArrayList<>();
+    if (optimalSolver != null) {
+      return findOptimalSolutionsForSegment(segmentLength, segmentObstructions, progressListener);
+    }
 
-    final List<Double> baseLayout = getPostsEvenLayout(segmentLength, 0);
-    final List<Double> extraPostLayout = getPostsEvenLayout(segmentLength, 1);
+    final double[] baseLayout = getPostsEvenLayout(segmentLength, 0);
+    final double[] extraPostLayout = getPostsEvenLayout(segmentLength, 1);
 
-    final int numberOfBasePosts = baseLayout.size();
+    final int numberOfBasePosts = baseLayout.length;
 
     // Find solutions with even base and +1 post layouts
-    for (final List<Double> layout : List.of(baseLayout, extraPostLayout)) {
-      final Optional<SegmentSolution> evenLayoutSolutionOpt =
-          findSolutionWithEvenLayout(segmentLength, layout, segmentObstructions, numberOfBasePosts);
-
-      evenLayoutSolutionOpt.ifPresent(solutions::add);
-    }
+    final var search = new SegmentSearch(progressListener);
+    findEvenLayoutsSolutions(segmentLength, baseLayout, extraPostLayout, segmentObstructions).forEach(search::add);
 
     // Find solutions with posts shifting for base and +1 post layouts
-    for (final List<Double> layout : List.of(baseLayout, extraPostLayout)) {
-      final List<SegmentSolution> solutionsWithShifting =
-          findSolutionsByShiftingPosts(segmentLength, layout, segmentObstructions, numberOfBasePosts);
+    for (final double[] layout : List.of(baseLayout, extraPostLayout)) {
+      if (deadline.isReached()) {
+        break;
+      }
 
-      solutions.addAll(solutionsWithShifting);
+      findSolutionsByShiftingPosts(segmentLength, layout, segmentObstructions, numberOfBasePosts, search);
     }
 
     // Add base solution as is. I think it shouldn't ever happen
+    if (search.isEmpty()) {
+      metrics.recordFallbackSolution();
+      getBaseLayoutsSolutions(segmentLength, baseLayout, extraPostLayout, segmentObstructions).forEach(search::add);
+    }
+
+    metrics.recordCandidateSolutions(search.getCandidates());
+    metrics.recordPrunedCandidates(search.getPruned());
+
+    return search.getSolutions();
+  }
+
+  /**
+   * Finds solutions for even layouts and the best solutions with posts placed on grid (see
+   * {@link OptimalSegmentSolver}). If deadline is reached before grid search is finished, base layouts are used as
+   * is when even layouts aren't valid.
+   *
+   * @param segmentLength       segment red post center to green post center length
+   * @param segmentObstructions obstructions in segment (with locations related to 0 (segment start point))
+   * @param progressListener    listener of search gaining better solution, null if progress isn't reported
+   * @return list of solutions available in this segment
+   */
+  private List<SegmentSolution> findOptimalSolutionsForSegment(
+      double segmentLength,
+      ObstructionIndex segmentObstructions,
+      Consumer<SegmentSearch> progressListener
+  ) {
+    final double[] baseLayout = getPostsEvenLayout(segmentLength, 0);
+    final double[] extraPostLayout = getPostsEvenLayout(segmentLength, 1);
+
+    final var search = new SegmentSearch(progressListener);
+    findEvenLayoutsSolutions(segmentLength, baseLayout, extraPostLayout, segmentObstructions).forEach(search::add);
+
+    final var gridSolutions = optimalSolver.solve(segmentLength, baseLayout.length, segmentObstructions);
+    if (gridSolutions != null) {
+      gridSolutions.forEach(search::add);
+    }
+
+    if (search.isEmpty()) {
+      metrics.recordFallbackSolution();
+      getBaseLayoutsSolutions(segmentLength, baseLayout, extraPostLayout, segmentObstructions).forEach(search::add);
+    }
+
+    metrics.recordCandidateSolutions(search.getCandidates());
+
+    return search.getSolutions();
+  }
+
+  /**
+   * Finds preview result for segment: solutions for even layouts only, base layouts as is if there are no such.
+   * It is fast (no posts shifting), so options are available at once.
+   *
+   * @param segment segment bounds (absolute locations)
+   * @return segment result with solutions related to segment red post
+   */
+  private SegmentResult findSegmentPreviewResult(SegmentBounds segment) {
+    final var segmentObstructions = findSegmentObstructions(segment);
+    final var segmentLength = segment.greenPostLocation() - segment.redPostLocation();
+
+    final double[] baseLayout = getPostsEvenLayout(segmentLength, 0);
+    final double[] extraPostLayout = getPostsEvenLayout(segmentLength, 1);
+
+    final List<SegmentSolution> solutions =
+        findEvenLayoutsSolutions(segmentLength, baseLayout, extraPostLayout, segmentObstructions);
+
     if (solutions.isEmpty()) {
-      final var intersectedObstructions = findIntersectedObstructions(baseLayout, segmentObstructions);
-      final var intersectedObstructionsExtraPost = findIntersectedObstructions(extraPostLayout, segmentObstructions);
+      solutions.addAll(getBaseLayoutsSolutions(segmentLength, baseLayout, extraPostLayout, segmentObstructions));
+    }
+
+    return new SegmentResult(segment.redPostLocation(), solutions);
+  }
 
-      solutions.add(getSolutionForBaseLayout(baseLayout, intersectedObstructions, 0, segmentLength));
-      solutions.add(getSolutionForBaseLayout(extraPostLayout, intersectedObstructionsExtraPost, 1, segmentLength));
+  /**
+   * Finds valid solutions for even base and +1 post layouts
+   *
+   * @return list of solutions (can be empty)
+   */
+  private List<SegmentSolution> findEvenLayoutsSolutions(
+      double segmentLength,
+      double[] baseLayout,
+      double[] extraPostLayout,
+      ObstructionIndex segmentObstructions
+  ) {
+    final List<SegmentSolution> solutions = new ArrayList<>();
+
+    for (final double[] layout : List.of(baseLayout, extraPostLayout)) {
+      final Optional<SegmentSolution> evenLayoutSolutionOpt =
+          findSolutionWithEvenLayout(segmentLength, layout, segmentObstructions, baseLayout.length);
+
+      evenLayoutSolutionOpt.ifPresent(solutions::add);
     }
 
     return solutions;
   }
 
+  /**
+   * Gets solutions for base and +1 post layouts as is (posts can fall on obstructions)
+   */
+  private List<SegmentSolution> getBaseLayoutsSolutions(
+      double segmentLength,
+      double[] baseLayout,
+      double[] extraPostLayout,
+      ObstructionIndex segmentObstructions
+  ) {
+    final var intersectedObstructions = findIntersectedObstructions(baseLayout, segmentObstructions);
+    final var intersectedObstructionsExtraPost = findIntersectedObstructions(extraPostLayout, segmentObstructions);
+
+    return List.of(
+        getSolutionForBaseLayout(baseLayout, intersectedObstructions, 0, segmentLength),
+        getSolutionForBaseLayout(extraPostLayout, intersectedObstructionsExtraPost, 1, segmentLength)
+    );
+  }
+
   /**
    * Finds valid solution (if exist) for panels even layout (equal distances between panels).
    *
@@ -150,11 +710,11 @@ public class PostLayoutCalculator {
    */
   private Optional<SegmentSolution> findSolutionWithEvenLayout(
       double segmentLength,
-      List<Double> evenLayout,
-      List<Obstruction> segmentObstructions,
+      double[] evenLayout,
+      ObstructionIndex segmentObstructions,
       int initPostsNumb
   ) {
-    final var numberOrInnerPosts = evenLayout.size();
+    final var numberOrInnerPosts = evenLayout.length;
 
     if (numberOrInnerPosts == 0) {
       return Optional.of(SegmentSolution.emptySolution(segmentLength));
@@ -180,7 +740,7 @@ public class PostLayoutCalculator {
    * Gets solution for base layout (even panels without any post shifting)
    */
   private SegmentSolution getSolutionForBaseLayout(
-      List<Double> baseLayout,
+      double[] baseLayout,
       List<Obstruction> intersectedObstructions,
       int extraPosts,
       double segmentLength
@@ -210,13 +770,39 @@ public class PostLayoutCalculator {
    * @param initPostsNumb       posts number for initial layout(even panels, no extra posts)
    * @return list of available solutions (can be empty)
    */
-  private List<SegmentSolution> findSolutionsByShiftingPosts(
+  List<SegmentSolution> findSolutionsByShiftingPosts(
       double segmentLength,
-      List<Double> baseLayout,
-      List<Obstruction> segmentObstructions,
+      double[] baseLayout,
+      ObstructionIndex segmentObstructions,
       int initPostsNumb
   ) {
-    final List<SegmentSolution> solutions = new ArrayList<>();
+    final var search = new SegmentSearch(null);
+    findSolutionsByShiftingPosts(segmentLength, baseLayout, segmentObstructions, initPostsNumb, search);
+
+    return search.getSolutions();
+  }
+
+  /**
+   * Finds solutions by shifting posts falling on obstruction and adds them to segment search.
+   * Candidates that can't get into desired quantity of results (by search bound) aren't built, but only when it
+   * doesn't change the search itself: fixed post candidates - after the first solution for the layout is found
+   * (posts shifting from "Must avoid" obstructions depends on it), shifted posts layouts - always, they are still
+   * counted for the layouts limit.
+   *
+   * @param segmentLength       segment red post center to green post center length
+   * @param baseLayout          base layout for which solutions should be found
+   * @param segmentObstructions obstructions in segment (with locations related to 0 (segment start point))
+   * @param initPostsNumb       posts number for initial layout(even panels, no extra posts)
+   * @param search              segment search solutions are added to
+   */
+  private void findSolutionsByShiftingPosts(
+      double segmentLength,
+      double[] baseLayout,
+      ObstructionIndex segmentObstructions,
+      int initPostsNumb,
+      SegmentSearch search
+  ) {
+    var solutionsFound = false;
     final List<Obstruction> intersectedObstructions = findIntersectedObstructions(baseLayout, segmentObstructions);
 
     /*
@@ -224,54 +810,82 @@ public class PostLayoutCalculator {
       We will move post to the left and to the right of each obstruction and try to find desired result.
     */
     for (final Obstruction intersectedObstruction : intersectedObstructions) {
+      if (deadline.isReached()) {
+        break;
+      }
+
       final var obstructionLocation = intersectedObstruction.location();
       final var offset = calcObstructionOffset(intersectedObstruction);
 
-      final Optional<SegmentSolution> leftSideSolutionOpt = findSolutionForLayoutWithFixedPostAndEvenPanels(
-          segmentLength,
-          obstructionLocation - offset,
-          segmentObstructions,
-          initPostsNumb
-      );
-      final Optional<SegmentSolution> rightSideSolutionOpt = findSolutionForLayoutWithFixedPostAndEvenPanels(
-          segmentLength,
-          obstructionLocation + offset,
-          segmentObstructions,
-          initPostsNumb
-      );
+      for (final double fixedPostLocation : new double[] {obstructionLocation - offset, obstructionLocation + offset}) {
+        final Optional<SegmentSolution> solutionOpt = findSolutionForLayoutWithFixedPostAndEvenPanels(
+            segmentLength,
+            fixedPostLocation,
+            segmentObstructions,
+            initPostsNumb,
+            solutionsFound && prunesCandidates() ? search : null
+        );
 
-      leftSideSolutionOpt.ifPresent(solutions::add);// add to solution if result present
-      rightSideSolutionOpt.ifPresent(solutions::add);
+        if (solutionOpt.isPresent()) {// add to solution if result present
+          search.add(solutionOpt.get());
+          solutionsFound = true;
+        }
+      }
     }
 
-    if (!solutions.isEmpty()) {
-      return solutions;
+    if (solutionsFound || deadline.isReached()) {
+      return;
     }
 
     /*
     Try to move post falling on “Must avoid” obstruction to the left/right of obstruction.
     "Try to avoid obstructions" ignored here
      */
-    final List<PostLocationObstructionPair> mustAvoidPairs =
+    final List<PostIndexObstructionPair> mustAvoidPairs =
         findObstructionByPostLocation(baseLayout, segmentObstructions).stream()
             .filter(pair -> pair.obstruction().type() == ObstructionType.MUST_AVOID)
             .toList();
-    if (!mustAvoidPairs.isEmpty()) {
-      final var numberOfTryToAvoid = intersectedObstructions.size() - mustAvoidPairs.size();
-      final var layoutsWithShiftedPost = findLayoutsWithShiftedPosts(baseLayout, segmentLength, mustAvoidPairs);
+    if (mustAvoidPairs.isEmpty()) {
+      return;
+    }
 
-      for (final List<Double> layout : layoutsWithShiftedPost) {
-        final var layoutPostsNumb = layout.size();
-        final var solution = new SegmentSolution(
-            segmentLength,
-            layout,
-            new SolutionOptions(false, layoutPostsNumb - initPostsNumb, numberOfTryToAvoid, 0)
-        );
-        solutions.add(solution);
-      }
+    /*
+      Posts not shifted keep their obstructions, shifted posts can fall on other obstructions, so options of the base
+      layout without "Must avoid" obstructions are the best options of layouts with shifted posts
+     */
+    final var numberOfTryToAvoid = intersectedObstructions.size() - mustAvoidPairs.size();
+    final var shiftedLayoutsBestOptions =
+        new SolutionOptions(false, baseLayout.length - initPostsNumb, numberOfTryToAvoid, 0);
+
+    if (prunesCandidates() && search.isDominated(shiftedLayoutsBestOptions)) {
+      return;
     }
 
-    return solutions;
+    final var shiftingStart = System.nanoTime();
+    final var shiftedLayouts = new ShiftedLayouts(
+        segmentLength,
+        SHIFTED_LAYOUTS_LIMIT,
+        shiftedLayoutsBestOptions,
+        mustAvoidPairs.stream().mapToInt(PostIndexObstructionPair::postIndex).toArray(),
+        segmentObstructions,
+        prunesCandidates() ? search : null
+    );
+    findLayoutsWithShiftedPosts(baseLayout, segmentLength, mustAvoidPairs, shiftedLayouts);
+    metrics.recordPhase(CalculationPhase.SHIFT_ENUMERATION, System.nanoTime() - shiftingStart);
+
+    final var solutions = shiftedLayouts.getSolutions();
+    search.addPruned(shiftedLayouts.getPruned());
+    solutions.forEach(search::add);
+  }
+
+  /**
+   * Segments candidates dominated by found solutions are dropped without building them. Pruning doesn't change
+   * results, tests override it to compare pruned search with exhaustive one.
+   *
+   * @return true if segments candidates are pruned
+   */
+  boolean prunesCandidates() {
+    return true;
   }
 
   /**
@@ -282,86 +896,125 @@ public class PostLayoutCalculator {
    * @param segmentLength               segment length
    * @param invalidPostObstructionPairs list of post location/obstruction pairs. Each of this posts will be shifted
    *                                    from the obstruction.
-   * @return list of valid all layouts with posts moved from "Must avoid" obstructions.
-   * Layout considered as valid if there are no too wide panels after post shifting.
+   * @param validLayouts                collector of valid layouts, search is stopped when its limit is reached.
+   *                                    Layout considered as valid if there are no too wide panels after post shifting.
    */
-  private List<List<Double>> findLayoutsWithShiftedPosts(
-      List<Double> baseLayout,
+  private void findLayoutsWithShiftedPosts(
+      double[] baseLayout,
       double segmentLength,
-      List<PostLocationObstructionPair> invalidPostObstructionPairs
+      List<PostIndexObstructionPair> invalidPostObstructionPairs,
+      ShiftedLayouts validLayouts
   ) {
     // forming list of posts and their shifted locations
     final List<PostShiftedLocations> locationsAtObstructionByPostIndex = new ArrayList<>();
 
-    for (final PostLocationObstructionPair pair : invalidPostObstructionPairs) {
+    for (final PostIndexObstructionPair pair : invalidPostObstructionPairs) {
       final Obstruction obstruction = pair.obstruction();
       final double offset = calcObstructionOffset(obstruction);
 
       locationsAtObstructionByPostIndex.add(new PostShiftedLocations(
-          baseLayout.indexOf(pair.location()),
-          List.of(obstruction.location() - offset, obstruction.location() + offset))
+          pair.postIndex(),
+          new double[] {obstruction.location() - offset, obstruction.location() + offset})
       );
     }
 
     /*
-     * This list stores all possible combinations - each post + its shifted location.
-     * For 2 obstructions it should look like:
-     * [[1L, 2L], [1L, 2R], [1R, 2L], [1R, 2R]]
+     * Combinations are checked one by one (depth-first) in the same layout, so there is no need to store them.
+     * For 2 obstructions the order is:
+     * [1L, 2L], [1L, 2R], [1R, 2L], [1R, 2R]
      * where number corresponds to post location index and "L"/"R" - locations from the left/right side of obstruction
      */
-    List<List<PostShiftedLocation>> shiftedLocationByPostIndex = new ArrayList<>();
+    final double[] layout = baseLayout.clone(); // copy, posts are shifted in place
 
-    final PostShiftedLocations firstShiftedPost = locationsAtObstructionByPostIndex.get(0);
+    final var evaluatedCombinations = shiftPostsAndCollectValidLayouts(
+        layout,
+        segmentLength,
+        locationsAtObstructionByPostIndex,
+        0,
+        validLayouts
+    );
+    metrics.recordShiftCombinations(evaluatedCombinations);
+  }
 
-    for (double locationAtFirstObstruction : firstShiftedPost.locations()) {
-      shiftedLocationByPostIndex.add(
-          List.of(new PostShiftedLocation(firstShiftedPost.baseIndex(), locationAtFirstObstruction))
-      );
-    }
+  /**
+   * Shifts post to each of its locations and goes on with the next shifted post (depth-first).
+   * Combination is dropped as soon as panel near already shifted post becomes too wide.
+   * When all posts are shifted and layout is valid - it is passed to collector (which saves its copy if needed).
+   * Search is stopped when desired number of layouts is found or deadline is reached.
+   *
+   * @param layout             layout with already shifted posts (modified in place, restored before return)
+   * @param segmentLength      segment length
+   * @param shiftedPosts       posts to be shifted with their shifted locations
+   * @param shiftedPostNumber  number of post in shiftedPosts list to shift
+   * @param validLayouts       collector of found valid layouts
+   * @return number of evaluated combinations (with all posts shifted)
+   */
+  private int shiftPostsAndCollectValidLayouts(
+      double[] layout,
+      double segmentLength,
+      List<PostShiftedLocations> shiftedPosts,
+      int shiftedPostNumber,
+      ShiftedLayouts validLayouts
+  ) {
+    if (shiftedPostNumber == shiftedPosts.size()) {
+      if (checkIfLayoutPanelsHaveValidLength(layout, segmentLength)) {
+        validLayouts.add(layout);
+      }
 
-    for (int i = 1; i < locationsAtObstructionByPostIndex.size(); i++) {
-      final List<List<PostShiftedLocation>> shiftedLocationByPostIndexBuffer = new ArrayList<>();
-      final var currLocationsAtObstruction = locationsAtObstructionByPostIndex.get(i);
+      return 1;
+    }
 
-      for (final List<PostShiftedLocation> locationByPostIndexList : shiftedLocationByPostIndex) {
-        for (double locationAtObstruction : currLocationsAtObstruction.locations()) {
-          final List<PostShiftedLocation> newCombination = new ArrayList<>();
+    final var shiftedPost = shiftedPosts.get(shiftedPostNumber);
+    final var postIndex = shiftedPost.baseIndex();
+    final var baseLocation = layout[postIndex];
+    // next post stays at its place if it is not shifted later
+    final var nextPostFixed = shiftedPostNumber + 1 == shiftedPosts.size()
+        || shiftedPosts.get(shiftedPostNumber + 1).baseIndex() != postIndex + 1;
 
-          newCombination.addAll(locationByPostIndexList);
-          newCombination.add(new PostShiftedLocation(currLocationsAtObstruction.baseIndex(), locationAtObstruction));
+    var evaluatedCombinations = 0;
 
-          shiftedLocationByPostIndexBuffer.add(newCombination);
-        }
+    for (final double location : shiftedPost.locations()) {
+      if (validLayouts.isFull() || deadline.isReached()) {
+        break;
       }
 
-      shiftedLocationByPostIndex = new ArrayList<>(shiftedLocationByPostIndexBuffer);
+      layout[postIndex] = location;
+
+      final var panelsValid = checkIfPanelHasValidLength(layout, segmentLength, postIndex)
+          && (!nextPostFixed || checkIfPanelHasValidLength(layout, segmentLength, postIndex + 1));
+
+      if (panelsValid) {
+        evaluatedCombinations += shiftPostsAndCollectValidLayouts(
+            layout,
+            segmentLength,
+            shiftedPosts,
+            shiftedPostNumber + 1,
+            validLayouts
+        );
+      }
     }
 
-    /*
-    Mapping each posts shifting combination into layout and check this layout.
-    If layout valid (all panels have valid length) - save it.
-    Return all valid layouts.
-     */
-    return shiftedLocationByPostIndex.stream()
-        .map(locations -> getLayoutWithShiftedPosts(baseLayout, locations))
-        .filter(layout -> checkIfLayoutPanelsHaveValidLength(layout, segmentLength))
-        .toList();
+    layout[postIndex] = baseLocation;
+
+    return evaluatedCombinations;
   }
 
   /**
-   * Gets modified base layout with shifted posts
-   * @param baseLayout base layout
-   * @param shiftedLocations list of locations that should be shifted in base layout
-   * @return new list with required locations shifted relatively to base layout
+   * Checks if panel has permitted length.
+   * @param layout posts layout
+   * @param sectionLength section length
+   * @param panelIndex panel index (panel ends with post with the same index or with section end)
+   * @return panel validity
    */
-  private List<Double> getLayoutWithShiftedPosts(List<Double> baseLayout, List<PostShiftedLocation> shiftedLocations) {
-    final List<Double> shiftedLayout = new ArrayList<>(baseLayout); // copy
-
-    for (final PostShiftedLocation shiftedLocation : shiftedLocations) {
-      shiftedLayout.set(shiftedLocation.baseIndex(), shiftedLocation.location());
-    }
-
-    return shiftedLayout;
+  private boolean checkIfPanelHasValidLength(double[] layout, double sectionLength, int panelIndex) {
+    final double prevLocation = panelIndex == 0
+        ? 0
+        : layout[panelIndex - 1];
+    final double currLocation = panelIndex == layout.length
+        ? sectionLength
+        : layout[panelIndex];
+
+    return currLocation - prevLocation <= panelMaxLength + postSize;
   }
 
   /**
@@ -370,16 +1023,16 @@ public class PostLayoutCalculator {
    * @param sectionLength section length
    * @return layout validity
    */
-  private boolean checkIfLayoutPanelsHaveValidLength(List<Double> layout, double sectionLength) {
+  private boolean checkIfLayoutPanelsHaveValidLength(double[] layout, double sectionLength) {
     final double maxCenterToCenter = panelMaxLength + postSize;
 
-    for (int i = 0; i < layout.size() + 1; i++) {
+    for (int i = 0; i < layout.length + 1; i++) {
       final double prevLocation = i == 0
           ? 0
-          : layout.get(i - 1);
-      final double currLocation = i == layout.size()
+          : layout[i - 1];
+      final double currLocation = i == layout.length
           ? sectionLength
-          : layout.get(i);
+          : layout[i];
 
       final double postCenterToCenter = currLocation - prevLocation;
 
@@ -396,14 +1049,33 @@ public class PostLayoutCalculator {
    * @return calculated offset
    */
   private double calcObstructionOffset(Obstruction obstruction) {
-    return (obstruction.size() + getPostInstallationSize()) / 2;
+    final var offset = (obstruction.size() + getPostInstallationSize()) / 2;
+
+    // shifted post has to stay on units grid
+    return fixedPoint == null
+        ? offset
+        : Math.ceil(offset);
   }
 
   /**
    * Gets post installation size including installation extension.
    */
   private double getPostInstallationSize() {
-    return postSize + POST_INSTALLATION_EXTENSION;
+    return postSize + installationExtension;
+  }
+
+  /**
+   * @param obstructions obstructions with lengths as is
+   * @return obstructions with sizes and locations rounded to whole units
+   */
+  private List<Obstruction> toUnits(List<Obstruction> obstructions) {
+    return obstructions.stream()
+        .map(obstruction -> new Obstruction(
+            fixedPoint.toUnits(obstruction.size()),
+            fixedPoint.toUnits(obstruction.location()),
+            obstruction.type()
+        ))
+        .toList();
   }
 
   /**
@@ -416,19 +1088,29 @@ public class PostLayoutCalculator {
    * @param fixedPostLocation   post location inside segment
    * @param segmentObstructions obstructions present in segment (all locations should be related to segment 0)
    * @param initPostsNumb       number of posts for initial layout(even panels, no extra posts)
-   * @return solution if it exists, otherwise empty
+   * @param bound               search whose solutions bound candidate, null if candidate isn't bounded
+   * @return solution if it exists, otherwise empty (also if the best possible solution for the layout is dominated
+   * by bound solutions)
    */
   private Optional<SegmentSolution> findSolutionForLayoutWithFixedPostAndEvenPanels(
       double segmentLength,
       double fixedPostLocation,
-      List<Obstruction> segmentObstructions,
-      int initPostsNumb
+      ObstructionIndex segmentObstructions,
+      int initPostsNumb,
+      SegmentSearch bound
   ) {
     final var layoutWithFixedPost = getLayoutWithFixedPost(segmentLength, fixedPostLocation);
+    final var layoutPostsNumb = layoutWithFixedPost.length;
+
+    // no posts on obstructions is the best case
+    if (bound != null && bound.isDominated(new SolutionOptions(false, layoutPostsNumb - initPostsNumb, 0, 0))) {
+      bound.addPruned(1);
+      return Optional.empty();
+    }
+
     final var intersectedObstructions = findIntersectedObstructions(layoutWithFixedPost, segmentObstructions);
 
-    if (checkIfOnly10PcFallsOnTryAvoid(intersectedObstructions, layoutWithFixedPost.size())) {
-      final var layoutPostsNumb = layoutWithFixedPost.size();
+    if (checkIfOnly10PcFallsOnTryAvoid(intersectedObstructions, layoutPostsNumb)) {
       final var solution = new SegmentSolution(
           segmentLength,
           layoutWithFixedPost,
@@ -467,16 +1149,16 @@ public class PostLayoutCalculator {
    * @param fixedPostLocation location inside segment length
    * @return layout fixed post and even left/right layout
    */
-  private List<Double> getLayoutWithFixedPost(double segmentLength, double fixedPostLocation) {
-    final List<Double> layout = new ArrayList<>();
+  private double[] getLayoutWithFixedPost(double segmentLength, double fixedPostLocation) {
     final var leftLayout = getPostsEvenLayout(fixedPostLocation, 0);
-    final var rightLayout = getPostsEvenLayout(segmentLength - fixedPostLocation, 0).stream()
-        .map(location -> location + fixedPostLocation)
-        .toList();
+    final var rightLayout = getPostsEvenLayout(segmentLength - fixedPostLocation, 0);
+    final var layout = new double[leftLayout.length + 1 + rightLayout.length];
 
-    layout.addAll(leftLayout);
-    layout.add(fixedPostLocation);
-    layout.addAll(rightLayout);
+    System.arraycopy(leftLayout, 0, layout, 0, leftLayout.length);
+    layout[leftLayout.length] = fixedPostLocation;
+    for (int i = 0; i < rightLayout.length; i++) {
+      layout[leftLayout.length + 1 + i] = rightLayout[i] + fixedPostLocation;
+    }
 
     return layout;
   }
@@ -487,104 +1169,104 @@ public class PostLayoutCalculator {
    * @param extraPosts number of extra posts to add in default layout(based on panel max length)
    * @return posts even layout
    */
-  private List<Double> getPostsEvenLayout(double segmentLength, int extraPosts) {
+  double[] getPostsEvenLayout(double segmentLength, int extraPosts) {
+    if (fixedPoint != null) {
+      return getPostsEvenLayoutInUnits((long) segmentLength, extraPosts);
+    }
+
     final double maxCenterToCenter = panelMaxLength + postSize;
     final int numberOfInnerPosts = (int) (Math.ceil(segmentLength / maxCenterToCenter)) + extraPosts - 1;
     final double defaultCenterToCenter = segmentLength / (numberOfInnerPosts + 1);
 
-    final List<Double> layout = new ArrayList<>();
+    final double[] layout = new double[Math.max(numberOfInnerPosts, 0)];
 
     for (int i = 0; i < numberOfInnerPosts; i++) {
-      layout.add((i + 1) * defaultCenterToCenter);
+      layout[i] = (i + 1) * defaultCenterToCenter;
     }
 
     return layout;
   }
 
   /**
-   * Finds obstructions that are located in given range.
-   * @param redPostLocation segment red post location (absolute coordinate)
-   * @param greenPostLocation segment green post location (absolute coordinate)
-   * @return list of obstructions located in provided range.
-   * Obstruction's locations related to red post location (has related coordinate)
+   * Creates even layout in whole units: the same posts number as {@link #getPostsEvenLayout(double, int)}, each post
+   * is rounded (half up) to the nearest unit with integer arithmetic.
+   * @param segmentLength segment length in units
+   * @param extraPosts number of extra posts to add in default layout(based on panel max length)
+   * @return posts even layout
    */
-  private List<Obstruction> findSegmentObstructions(double redPostLocation, double greenPostLocation) {
-    return obstructions.stream()
-        .filter(obstruction -> {
-          final var halfSize = obstruction.size() / 2;
-          final var location = obstruction.location();
+  private double[] getPostsEvenLayoutInUnits(long segmentLength, int extraPosts) {
+    final long maxCenterToCenter = (long) (panelMaxLength + postSize);
+    final long panelsNumber = (segmentLength + maxCenterToCenter - 1) / maxCenterToCenter + extraPosts;
+    final int numberOfInnerPosts = (int) panelsNumber - 1;
 
-          return location - halfSize > redPostLocation && location + halfSize < greenPostLocation;
-        })
-        .map(obstruction -> new Obstruction(
-            obstruction.size(),
-            obstruction.location() - redPostLocation,
-            obstruction.type()
-        ))
-        .toList();
+    final double[] layout = new double[Math.max(numberOfInnerPosts, 0)];
+
+    for (int i = 0; i < numberOfInnerPosts; i++) {
+      layout[i] = (2 * (i + 1) * segmentLength + panelsNumber) / (2 * panelsNumber);
+    }
+
+    return layout;
   }
 
   /**
-   * Finds all obstruction-location pairs for given layout and obstructions
+   * Finds all post-obstruction pairs for given layout and obstructions
    * @param layout posts layout
-   * @param segmentObstructions list of obstructions related to given layout
-   * @return list of locations with intersected obstructions
+   * @param segmentObstructions index of obstructions related to given layout
+   * @return list of post indexes with intersected obstructions
    */
-  private List<PostLocationObstructionPair> findObstructionByPostLocation(
-      List<Double> layout,
-      List<Obstruction> segmentObstructions
+  private List<PostIndexObstructionPair> findObstructionByPostLocation(
+      double[] layout,
+      ObstructionIndex segmentObstructions
   ) {
-    return layout.stream()
-        .map(location -> findIntersectedObstruction(location, segmentObstructions)// if found use it else set null
-            .map(obstruction -> new PostLocationObstructionPair(location, obstruction))
-            .orElse(null))
-        .filter(Objects::nonNull)
-        .toList();
+    final List<PostIndexObstructionPair> pairs = new ArrayList<>();
+
+    for (int i = 0; i < layout.length; i++) {
+      final var postIndex = i;
+
+      segmentObstructions.findIntersectedObstruction(layout[i])
+          .ifPresent(obstruction -> pairs.add(new PostIndexObstructionPair(postIndex, obstruction)));
+    }
+
+    return pairs;
   }
 
   /**
    * Finds intersected obstructions for given layout
    * @param layout posts layout
-   * @param segmentObstructions list of obstructions related to given layout
+   * @param segmentObstructions index of obstructions related to given layout
    * @return list of intersected obstructions
    */
-  private List<Obstruction> findIntersectedObstructions(List<Double> layout, List<Obstruction> segmentObstructions) {
-    return layout.stream()
-        .map(location -> findIntersectedObstruction(location, segmentObstructions))
+  private List<Obstruction> findIntersectedObstructions(double[] layout, ObstructionIndex segmentObstructions) {
+    return Arrays.stream(layout)
+        .mapToObj(segmentObstructions::findIntersectedObstruction)
         .flatMap(Optional::stream)// filter empty values
         .toList();
   }
 
   /**
-   * Tries to find intersected obstruction for given post location.
-   * If found returns this obstruction covered by Optional, otherwise - returns empty
-   * @param postLocation post location
-   * @param obstructions list of obstructions related to this post location
-   * @return obstruction if intersection exists, otherwise empty
+   * @param location location in units if lengths are converted
+   * @return location in length unit of calculation input
    */
-  private Optional<Obstruction> findIntersectedObstruction(double postLocation, List<Obstruction> obstructions) {
-    return obstructions.stream()
-        .filter(obstruction -> {
-          final var size = obstruction.size();
-          final var location = obstruction.location();
-          final var zoneForIntersection = (0.5 - MAX_ALLOWED_INTERSECTION) * size + getPostInstallationSize() / 2;
-
-          return (postLocation > location - zoneForIntersection) && (postLocation < location + zoneForIntersection);
-        })
-        .findFirst(); // returns covered first found or empty
+  private double toLength(double location) {
+    return fixedPoint == null
+        ? location
+        : fixedPoint.toLength(Math.round(location));
   }
 
   /**
    * Mapper method. additionally add first and last post to segment and builds layout option
-   * @param solution solution for segment(all run considered as segment at this place)
+   * @param solution combined solution for the whole run
    * @return post layout option as projection of solution
    * Where - PostLayoutOption(List<Double> postLocations)
    */
-  private PostLayoutOption mapSolutionToOption(SegmentSolution solution) {
-    final List<Double> postLayout = new ArrayList<>();
+  private PostLayoutOption mapSolutionToOption(CombinedSolution solution) {
+    final var postLocations = solution.buildPostLocations();
+    final List<Double> postLayout = new ArrayList<>(postLocations.length + 2);
     postLayout.add(0.0);
-    postLayout.addAll(solution.postLocations());
-    postLayout.add(runLength);
+    for (final double location : postLocations) {
+      postLayout.add(toLength(location));
+    }
+    postLayout.add(toLength(runLength));
 
     final var options = solution.options();
 
@@ -603,127 +1285,727 @@ public class PostLayoutCalculator {
    * auxiliary classes
    */
 
-  private record SegmentResult(double location, List<SegmentSolution> solutions) {
+  record SegmentBounds(double redPostLocation, double greenPostLocation) {
+  }
+
+  record SegmentResult(double location, List<SegmentSolution> solutions) {
   }
 
-  // solution that holds segment inner posts layout with its creation options. locations are related to segment
-  private record SegmentSolution(double segmentLength, List<Double> postLocations, SolutionOptions options) {
+  /*
+  solution that holds segment inner posts layout with its creation options. locations are related to segment.
+  dispersion and square sum of panels lengths are calculated once on creation and used for solutions ranking.
+  solutions are shared through segment cache, so post locations must not be modified after creation
+   */
+  record SegmentSolution(
+      double segmentLength,
+      double[] postLocations,
+      SolutionOptions options,
+      double dispersion,
+      double panelsSquareSum
+  ) {
+
+    public SegmentSolution(double segmentLength, double[] postLocations, SolutionOptions options) {
+      this(
+          segmentLength,
+          postLocations,
+          options,
+          calcLayoutDispersion(segmentLength, postLocations),
+          calcPanelsSquareSum(segmentLength, postLocations)
+      );
+    }
 
     public static SegmentSolution emptySolution(double segmentLength) {
       return new SegmentSolution(
           segmentLength,
-          emptyList(),
+          new double[0],
           new SolutionOptions(true, 0, 0, 0)
       );
     }
 
-    public SegmentSolution combine(double commonPostLocation, SegmentSolution nextSolution) {
-      final List<Double> combinedLocations = new ArrayList<>();
+    /**
+     * Calculates standard deviation of panels (center to center) lengths from average panel length
+     */
+    private static double calcLayoutDispersion(double segmentLength, double[] layout) {
+      if (layout.length == 0) {
+        return 0;
+      }
+
+      final double average = segmentLength / (layout.length + 1);
+      double deviationSum = 0;
+
+      for (int i = 0; i <= layout.length; i++) {
+        final var prevLocation = i == 0
+            ? 0
+            : layout[i - 1];
+        final var currLocation = i == layout.length
+            ? segmentLength
+            : layout[i];
+        final var deviation = currLocation - prevLocation - average;
+
+        deviationSum += deviation * deviation;
+      }
+
+      return Math.sqrt(deviationSum / layout.length);
+    }
+  }
+
+  /*
+  combination of segments solutions from the first segment till the last combined one. combinations are immutable
+  chains sharing combination of previous segments, so combining with the next segment solution doesn't copy
+  post locations. options, length and panels square sum are aggregated on combining,
+  post locations are built only for returned options
+   */
+  record CombinedSolution(
+      // combination of previous segments, null for the first segment solution
+      CombinedSolution previous,
+      // the last segment red post location (related to the first segment start)
+      double segmentLocation,
+      SegmentSolution segmentSolution,
+      double length,
+      SolutionOptions options,
+      double panelsSquareSum,
+      // number of inner posts of combined layout
+      int postsNumber
+  ) {
+
+    static CombinedSolution of(SegmentSolution solution) {
+      return new CombinedSolution(
+          null,
+          0,
+          solution,
+          solution.segmentLength(),
+          solution.options(),
+          solution.panelsSquareSum(),
+          solution.postLocations().length
+      );
+    }
+
+    /**
+     * @param commonPostLocation location of the post between combined and next segments (next segment red post)
+     * @param nextSolution       next segment solution
+     * @return combination with the next segment solution
+     */
+    CombinedSolution combine(double commonPostLocation, SegmentSolution nextSolution) {
+      return new CombinedSolution(
+          this,
+          commonPostLocation,
+          nextSolution,
+          length + nextSolution.segmentLength(),
+          options.combine(nextSolution.options()),
+          panelsSquareSum + nextSolution.panelsSquareSum(),
+          postsNumber + 1 + nextSolution.postLocations().length
+      );
+    }
 
-      final var nextLocations = nextSolution.postLocations().stream()
-          .map(location -> location + commonPostLocation)
-          .toList();
+    /**
+     * @return inner post locations of combined layout (common posts of segments included)
+     */
+    double[] buildPostLocations() {
+      final var locations = new double[postsNumber];
+      var end = postsNumber;
+
+      for (var combination = this; combination != null; combination = combination.previous()) {
+        final var segmentLocations = combination.segmentSolution().postLocations();
+        final var start = end - segmentLocations.length;
+
+        if (combination.previous() == null) {
+          System.arraycopy(segmentLocations, 0, locations, start, segmentLocations.length);
+        } else {
+          for (int i = 0; i < segmentLocations.length; i++) {
+            locations[start + i] = segmentLocations[i] + combination.segmentLocation();
+          }
+          locations[start - 1] = combination.segmentLocation();
+        }
+
+        end = start - 1;
+      }
+
+      return locations;
+    }
+
+    /**
+     * Calculates standard deviation of panels (center to center) lengths from average panel length
+     * the same way as {@link SegmentSolution} does, but walking segments solutions without building post locations.
+     */
+    double calcDispersion() {
+      if (postsNumber == 0) {
+        return 0;
+      }
+
+      final var segments = new ArrayList<CombinedSolution>();
+      for (var combination = this; combination != null; combination = combination.previous()) {
+        segments.add(combination);
+      }
+
+      final double average = length / (postsNumber + 1);
+      double deviationSum = 0;
+      double prevLocation = 0;
 
-      combinedLocations.addAll(this.postLocations());
-      combinedLocations.add(commonPostLocation);
-      combinedLocations.addAll(nextLocations);
+      for (final CombinedSolution segment : segments.reversed()) {
+        final var offset = segment.previous() == null
+            ? 0
+            : segment.segmentLocation();
+
+        if (segment.previous() != null) {
+          final var deviation = offset - prevLocation - average;
+          deviationSum += deviation * deviation;
+          prevLocation = offset;
+        }
+
+        for (final double segmentLocation : segment.segmentSolution().postLocations()) {
+          final var currLocation = segment.previous() == null
+              ? segmentLocation
+              : segmentLocation + offset;
+          final var deviation = currLocation - prevLocation - average;
+
+          deviationSum += deviation * deviation;
+          prevLocation = currLocation;
+        }
+      }
+
+      final var deviation = length - prevLocation - average;
+      deviationSum += deviation * deviation;
+
+      return Math.sqrt(deviationSum / postsNumber);
+    }
+  }
 
-      final var combinedOptions = options().combine(nextSolution.options());
-      final var combinedLength = segmentLength() + nextSolution.segmentLength();
+  private record RankedSolution(CombinedSolution solution, double dispersion) {
 
-      return new SegmentSolution(combinedLength, combinedLocations, combinedOptions);
+    SolutionOptions options() {
+      return solution.options();
     }
   }
 
-  private record SolutionOptions(boolean evenLayout, int extraPosts, int placedOnTryToAvoid, int placedOnMustAvoid) {
+  record SolutionOptions(boolean evenLayout, int extraPosts, int placedOnTryToAvoid, int placedOnMustAvoid) {
 
     public SolutionOptions combine(SolutionOptions next) {
       return new SolutionOptions(
           evenLayout() && next.evenLayout(),
           extraPosts() + next.extraPosts(),
           placedOnTryToAvoid() + next.placedOnTryToAvoid(),
-          placedOnMustAvoid() + next.placedOnTryToAvoid()
+          placedOnMustAvoid() + next.placedOnMustAvoid()
       );
     }
   }
 
-  private record PostShiftedLocation(int baseIndex, double location) {
+  private record PostShiftedLocations(int baseIndex, double[] locations) {
   }
 
-  private record PostShiftedLocations(int baseIndex, List<Double> locations) {
+  // layout wrapper for hashing, layouts are equal if all locations are equal
+  private record LayoutKey(double[] locations) {
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof LayoutKey other && Arrays.equals(locations, other.locations);
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(locations);
+    }
   }
 
-  private record PostLocationObstructionPair(double location, Obstruction obstruction) {
+  private record PostIndexObstructionPair(int postIndex, Obstruction obstruction) {
   }
 
-  private static class SolutionComparator implements Comparator<SegmentSolution> {
+  private record CombinedSolutionRank(int index, SolutionOptions options, double panelsSquareSum) {
+  }
+
+  /**
+   * Compares combined solutions as they would be compared by {@link SolutionComparator} after combining with the same
+   * next solution. Combination order is used for equal solutions (as stable sorting does).
+   */
+  private static class CombinedSolutionComparator implements Comparator<CombinedSolutionRank> {
+
+    // is next solution even
+    private final boolean nextEven;
+
+    private CombinedSolutionComparator(boolean nextEven) {
+      this.nextEven = nextEven;
+    }
 
     @Override
-    public int compare(SegmentSolution s1, SegmentSolution s2) {
-      final var options1 = s1.options();
-      final var options2 = s2.options();
+    public int compare(CombinedSolutionRank r1, CombinedSolutionRank r2) {
+      final var options1 = r1.options();
+      final var options2 = r2.options();
 
-      if (Objects.equals(s1, s2)) {
-        return 0;
+      if (options1.placedOnMustAvoid() != options2.placedOnMustAvoid()) {
+        return Integer.compare(options1.placedOnMustAvoid(), options2.placedOnMustAvoid());
       }
 
-      if (!Objects.equals(options1.placedOnMustAvoid(), options2.placedOnMustAvoid())) {
-        return Double.compare(options1.placedOnMustAvoid(), options2.placedOnMustAvoid());
+      if (options1.placedOnTryToAvoid() != options2.placedOnTryToAvoid()) {
+        return Integer.compare(options1.placedOnTryToAvoid(), options2.placedOnTryToAvoid());
       }
 
-      if (!Objects.equals(options1.placedOnTryToAvoid(), options2.placedOnTryToAvoid())) {
-        return Double.compare(options1.placedOnTryToAvoid(), options2.placedOnTryToAvoid());
+      // combined with not even solution both become not even
+      if (nextEven && options1.evenLayout() != options2.evenLayout()) {
+        return SolutionComparator.compareByEvenLayout(options1, options2);
       }
 
-      if (!Objects.equals(options1.evenLayout(), options2.evenLayout())) {
-        final var extraPostsDiff = options1.extraPosts() - options2.extraPosts();
+      if (options1.extraPosts() != options2.extraPosts()) {
+        return Integer.compare(options1.extraPosts(), options2.extraPosts());
+      }
 
-        // +2 extra posts is worse than even layout
-        final var firstOptionBetter = (options1.evenLayout() && extraPostsDiff <= 1)
-            || (options2.evenLayout() && extraPostsDiff < -1);
+      // the same posts number, so dispersion depends only on panels lengths
+      if (r1.panelsSquareSum() != r2.panelsSquareSum()) {
+        return Double.compare(r1.panelsSquareSum(), r2.panelsSquareSum());
+      }
 
-        return firstOptionBetter ? -1 : 1;
+      return Integer.compare(r1.index(), r2.index());
+    }
+
+    /**
+     * Checks if solutions can be ordered either way after combining (differ only by calculation error)
+     */
+    private boolean isTie(CombinedSolutionRank r1, CombinedSolutionRank r2) {
+      final var options1 = r1.options();
+      final var options2 = r2.options();
+      final var squareSumError = SQUARE_SUM_RELATIVE_ERROR * Math.max(r1.panelsSquareSum(), r2.panelsSquareSum());
+
+      return options1.placedOnMustAvoid() == options2.placedOnMustAvoid()
+          && options1.placedOnTryToAvoid() == options2.placedOnTryToAvoid()
+          && (!nextEven || options1.evenLayout() == options2.evenLayout())
+          && options1.extraPosts() == options2.extraPosts()
+          && Math.abs(r1.panelsSquareSum() - r2.panelsSquareSum()) <= squareSumError;
+    }
+  }
+
+  /**
+   * Solutions found by segment search. Solutions with the same layout (e.g. found by shifting posts around different
+   * obstructions) are merged, the best of them is kept at the place of the first one.
+   * Found solutions bound the search: candidate worse than desired quantity of them can't get into results whatever
+   * solutions of other segments it is combined with (see {@link #selectPromisingSolutions}), so it isn't built.
+   */
+  private static class SegmentSearch {
+
+    private final SolutionComparator comparator = new SolutionComparator();
+    private final Map<LayoutKey, SegmentSolution> solutionsByLayout = new LinkedHashMap<>();
+    // listener of search gaining better solution, null if it isn't needed
+    private final Consumer<SegmentSearch> progressListener;
+    // the best added solution (tracked only for progress listener)
+    private SegmentSolution best;
+    // added solutions including duplicates
+    private int candidates;
+    // candidates dropped by bound
+    private int pruned;
+
+    SegmentSearch(Consumer<SegmentSearch> progressListener) {
+      this.progressListener = progressListener;
+    }
+
+    void add(SegmentSolution solution) {
+      candidates++;
+      solutionsByLayout.merge(
+          new LayoutKey(solution.postLocations()),
+          solution,
+          (kept, duplicate) -> comparator.compare(duplicate, kept) < 0 ? duplicate : kept
+      );
+
+      if (progressListener != null && (best == null || comparator.compare(solution, best) < 0)) {
+        best = solution;
+        progressListener.accept(this);
       }
+    }
+
+    void addPruned(int number) {
+      pruned += number;
+    }
+
+    boolean isEmpty() {
+      return solutionsByLayout.isEmpty();
+    }
+
+    boolean containsLayout(double[] layout) {
+      return solutionsByLayout.containsKey(new LayoutKey(layout));
+    }
 
-      if (!Objects.equals(options1.extraPosts(), options2.extraPosts())) {
-        return Double.compare(options1.extraPosts(), options2.extraPosts());
+    /**
+     * @return true if desired quantity of found solutions is better than any solution with given options
+     */
+    boolean isDominated(SolutionOptions options) {
+      return countBetter(options) >= SOLUTIONS_DESIRED;
+    }
+
+    /**
+     * Counts found solutions better than any solution with given options (counting is stopped at desired quantity)
+     */
+    int countBetter(SolutionOptions options) {
+      var better = 0;
+
+      for (final SegmentSolution solution : solutionsByLayout.values()) {
+        if (isBetter(solution.options(), options) && ++better >= SOLUTIONS_DESIRED) {
+          break;
+        }
       }
 
-      return compareByDeviation(s1, s2);
+      return better;
     }
 
-    private int compareByDeviation(SegmentSolution s1, SegmentSolution s2) {
-      return Double.compare(calcLayoutDispersion(s1), calcLayoutDispersion(s2));
+    List<SegmentSolution> getSolutions() {
+      return new ArrayList<>(solutionsByLayout.values());
     }
 
-    private double calcLayoutDispersion(SegmentSolution solution) {
-      final List<Double> centerToCenterLength = new ArrayList<>();
-      final var layout = solution.postLocations();
-      final var segmentLength = solution.segmentLength();
+    int getCandidates() {
+      return candidates;
+    }
 
-      if (layout.isEmpty()) {
-        return 0;
+    int getPruned() {
+      return pruned;
+    }
+
+    /**
+     * Checks if solution with the first options is better than solution with the second ones whatever their
+     * dispersions are and whatever (even or not even) solutions both are combined with
+     */
+    private static boolean isBetter(SolutionOptions options1, SolutionOptions options2) {
+      if (options1.placedOnMustAvoid() != options2.placedOnMustAvoid()) {
+        return options1.placedOnMustAvoid() < options2.placedOnMustAvoid();
       }
 
-      for (int i = 0; i <= layout.size(); i++) {
-        final var prevLocation = i == 0
-            ? 0
-            : layout.get(i - 1);
-        final var currLocation = i == layout.size()
-            ? segmentLength
-            : layout.get(i);
-        final var c2c = currLocation - prevLocation;
+      if (options1.placedOnTryToAvoid() != options2.placedOnTryToAvoid()) {
+        return options1.placedOnTryToAvoid() < options2.placedOnTryToAvoid();
+      }
+
+      // combined with not even solution both become not even and are compared by extra posts only
+      return options1.extraPosts() < options2.extraPosts()
+          && (options1.evenLayout() == options2.evenLayout()
+              || SolutionComparator.compareByEvenLayout(options1, options2) < 0);
+    }
+  }
+
+  /**
+   * Collects valid layouts with posts shifted from "Must avoid" obstructions.
+   * Obstructions of shifted posts are recounted for each layout, layouts with the same options differ by panels
+   * lengths only. So layout can get into results only if there are less than kept layouts number (desired quantity
+   * minus number of found solutions better than any solution with these options) of found layouts with the same
+   * options and smaller panels square sum (dispersion). Other layouts are dropped without copying, but still counted
+   * for layouts limit, so the search goes the same way.
+   */
+  private static class ShiftedLayouts {
+
+    private final double segmentLength;
+    private final int maxLayoutsNumber;
+    private final SolutionOptions bestOptions;
+    private final int[] shiftedPostIndexes;
+    private final ObstructionIndex segmentObstructions;
+    private final SegmentSearch search;
+    private final List<SegmentSolution> solutions = new ArrayList<>();
+    private final List<Double> squareSums = new ArrayList<>();
+    private final Map<SolutionOptions, OptionsBound> bounds = new HashMap<>();
+    private int found;
+    private int pruned;
+
+    /**
+     * @param segmentLength       segment length
+     * @param maxLayoutsNumber    maximal number of layouts to find
+     * @param bestOptions         options of layout whose shifted posts don't fall on obstructions
+     * @param shiftedPostIndexes  indexes of shifted posts
+     * @param segmentObstructions obstructions in segment
+     * @param search              segment search with solutions found before, null if layouts aren't pruned
+     */
+    ShiftedLayouts(
+        double segmentLength,
+        int maxLayoutsNumber,
+        SolutionOptions bestOptions,
+        int[] shiftedPostIndexes,
+        ObstructionIndex segmentObstructions,
+        SegmentSearch search
+    ) {
+      this.segmentLength = segmentLength;
+      this.maxLayoutsNumber = maxLayoutsNumber;
+      this.bestOptions = bestOptions;
+      this.shiftedPostIndexes = shiftedPostIndexes;
+      this.segmentObstructions = segmentObstructions;
+      this.search = search;
+    }
+
+    /**
+     * @param layout valid layout (it is modified by the search later, so its copy is kept)
+     */
+    void add(double[] layout) {
+      found++;
+      final var options = countOptions(layout);
+      final var squareSum = calcPanelsSquareSum(segmentLength, layout);
+
+      if (search == null) {
+        solutions.add(new SegmentSolution(segmentLength, layout.clone(), options));
+        squareSums.add(squareSum);
+        return;
+      }
+
+      final var bound = bounds.computeIfAbsent(
+          options,
+          layoutOptions -> new OptionsBound(SOLUTIONS_DESIRED - search.countBetter(layoutOptions))
+      );
+
+      if (bound.isDominated(squareSum)) {
+        pruned++;
+        return;
+      }
+
+      solutions.add(new SegmentSolution(segmentLength, layout.clone(), options));
+      squareSums.add(squareSum);
+
+      // layout of already found solution is merged with it, so it can't be counted as one more better layout
+      if (!search.containsLayout(layout)) {
+        bound.add(squareSum);
+      }
+    }
+
+    boolean isFull() {
+      return found >= maxLayoutsNumber;
+    }
+
+    /**
+     * @return solutions of found layouts (in search order) except ones dropped by the best layouts with the same
+     * options found after them
+     */
+    List<SegmentSolution> getSolutions() {
+      if (search == null) {
+        return solutions;
+      }
+
+      final List<SegmentSolution> boundedSolutions = new ArrayList<>(solutions.size());
+      // number of kept solutions new for the search by their options
+      final Map<SolutionOptions, Integer> newSolutionsNumbers = new HashMap<>();
+
+      for (int i = 0; i < solutions.size(); i++) {
+        final var solution = solutions.get(i);
+
+        if (bounds.get(solution.options()).isDominated(squareSums.get(i))) {
+          pruned++;
+        } else {
+          boundedSolutions.add(solution);
 
-        centerToCenterLength.add(c2c);
+          if (!search.containsLayout(solution.postLocations())) {
+            newSolutionsNumbers.merge(solution.options(), 1, Integer::sum);
+          }
+        }
+      }
+
+      // bound of options was set when its first layout was found, layouts with better options found after it are
+      // better than all of its layouts too
+      final List<SegmentSolution> keptSolutions = new ArrayList<>(boundedSolutions.size());
+      final Map<SolutionOptions, Boolean> dominatedOptions = new HashMap<>();
+
+      for (final SegmentSolution solution : boundedSolutions) {
+        final var dominated = dominatedOptions.computeIfAbsent(
+            solution.options(),
+            options -> isDominated(options, newSolutionsNumbers)
+        );
+
+        if (dominated) {
+          pruned++;
+        } else {
+          keptSolutions.add(solution);
+        }
+      }
+
+      return keptSolutions;
+    }
+
+    int getPruned() {
+      return pruned;
+    }
+
+    /**
+     * @return true if desired quantity of solutions found by the search and new solutions with better options is better
+     * than any solution with given options
+     */
+    private boolean isDominated(SolutionOptions options, Map<SolutionOptions, Integer> newSolutionsNumbers) {
+      var better = search.countBetter(options);
+
+      for (final Map.Entry<SolutionOptions, Integer> entry : newSolutionsNumbers.entrySet()) {
+        if (SegmentSearch.isBetter(entry.getKey(), options)) {
+          better += entry.getValue();
+        }
       }
 
-      final double average = segmentLength / (layout.size() + 1);
+      return better >= SOLUTIONS_DESIRED;
+    }
+
+    /**
+     * @return best options with obstructions of shifted posts added
+     */
+    private SolutionOptions countOptions(double[] layout) {
+      var tryToAvoid = bestOptions.placedOnTryToAvoid();
+      var mustAvoid = bestOptions.placedOnMustAvoid();
+
+      for (final int postIndex : shiftedPostIndexes) {
+        final var obstruction = segmentObstructions.findIntersectedObstruction(layout[postIndex]);
+
+        if (obstruction.isPresent()) {
+          if (obstruction.get().type() == ObstructionType.MUST_AVOID) {
+            mustAvoid++;
+          } else {
+            tryToAvoid++;
+          }
+        }
+      }
+
+      return tryToAvoid == bestOptions.placedOnTryToAvoid() && mustAvoid == bestOptions.placedOnMustAvoid()
+          ? bestOptions
+          : new SolutionOptions(false, bestOptions.extraPosts(), tryToAvoid, mustAvoid);
+    }
+  }
+
+  /**
+   * The smallest panels square sums of found layouts with the same options.
+   */
+  private static class OptionsBound {
+
+    private final int keptLayoutsNumber;
+    // the biggest of kept square sums on top
+    private final PriorityQueue<Double> bestSquareSums = new PriorityQueue<>(Comparator.reverseOrder());
+
+    /**
+     * @param keptLayoutsNumber number of better layouts for layout to be dropped
+     */
+    OptionsBound(int keptLayoutsNumber) {
+      this.keptLayoutsNumber = keptLayoutsNumber;
+    }
+
+    void add(double squareSum) {
+      bestSquareSums.add(squareSum);
+
+      if (bestSquareSums.size() > keptLayoutsNumber) {
+        bestSquareSums.poll();
+      }
+    }
+
+    /**
+     * Layouts differing only by calculation error can be ordered either way after combining, so they aren't dropped.
+     */
+    boolean isDominated(double squareSum) {
+      if (keptLayoutsNumber <= 0) {
+        return true;
+      }
+
+      if (bestSquareSums.size() < keptLayoutsNumber) {
+        return false;
+      }
+
+      final double worstBestSquareSum = bestSquareSums.element();
+
+      return squareSum - worstBestSquareSum > SQUARE_SUM_RELATIVE_ERROR * Math.max(squareSum, worstBestSquareSum);
+    }
+  }
+
+  /**
+   * Reports intermediate options to calculation listener.
+   * Segments not solved yet are represented by their preview results (even layouts solutions), segment solved on
+   * calculating thread - by solutions its search has found so far.
+   * Used by calculating thread only (searches of segments solved in parallel don't report progress).
+   */
+  private class ProgressReporter {
+
+    private final CalculationListener listener;
+    // the best known result for each segment
+    private final SegmentResult[] segmentResults;
+    private long lastReportNanos;
+    private List<PostLayoutOption> lastOptions;
+
+    ProgressReporter(List<SegmentBounds> segments, CalculationListener listener) {
+      this.listener = listener;
+      this.segmentResults = segments.stream()
+          .map(PostLayoutCalculator.this::findSegmentPreviewResult)
+          .toArray(SegmentResult[]::new);
+
+      report();
+    }
+
+    /**
+     * Replaces segment result with solutions found so far by its search if enough time passed since the last report,
+     * and reports options.
+     *
+     * @param segmentNumber   number of segment in run order
+     * @param redPostLocation segment red post location
+     * @param search          segment search that has just gained better solution
+     */
+    void segmentImproved(int segmentNumber, double redPostLocation, SegmentSearch search) {
+      if (System.nanoTime() - lastReportNanos >= PROGRESS_INTERVAL_NANOS) {
+        segmentResults[segmentNumber] = new SegmentResult(redPostLocation, search.getSolutions());
+        report();
+      }
+    }
+
+    /**
+     * Replaces segment preview with its result. Options are reported if enough time passed since the last report
+     * and it isn't the last segment (final options are reported by calculation result).
+     */
+    void segmentSolved(int segmentNumber, SegmentResult segmentResult) {
+      segmentResults[segmentNumber] = segmentResult;
+
+      if (segmentNumber < segmentResults.length - 1 && System.nanoTime() - lastReportNanos >= PROGRESS_INTERVAL_NANOS) {
+        report();
+      }
+    }
+
+    /**
+     * Combines and ranks the best known segments results, reports options if they are changed
+     */
+    private void report() {
+      final var options = rankSolutions(combineSegmentResults(List.of(segmentResults)));
+
+      if (!options.equals(lastOptions)) {
+        listener.onProgress(options);
+        lastOptions = options;
+      }
+
+      lastReportNanos = System.nanoTime();
+    }
+  }
+
+  /**
+   * Compares solutions by their options and precomputed dispersion, so comparison doesn't need any calculations.
+   */
+  private static class SolutionComparator implements Comparator<SegmentSolution> {
+
+    @Override
+    public int compare(SegmentSolution s1, SegmentSolution s2) {
+      return compare(s1.options(), s1.dispersion(), s2.options(), s2.dispersion());
+    }
+
+    /**
+     * Compares solutions with given options and dispersions
+     */
+    private static int compare(
+        SolutionOptions options1,
+        double dispersion1,
+        SolutionOptions options2,
+        double dispersion2
+    ) {
+      if (options1.placedOnMustAvoid() != options2.placedOnMustAvoid()) {
+        return Integer.compare(options1.placedOnMustAvoid(), options2.placedOnMustAvoid());
+      }
+
+      if (options1.placedOnTryToAvoid() != options2.placedOnTryToAvoid()) {
+        return Integer.compare(options1.placedOnTryToAvoid(), options2.placedOnTryToAvoid());
+      }
+
+      if (options1.evenLayout() != options2.evenLayout()) {
+        return compareByEvenLayout(options1, options2);
+      }
+
+      if (options1.extraPosts() != options2.extraPosts()) {
+        return Integer.compare(options1.extraPosts(), options2.extraPosts());
+      }
+
+      return Double.compare(dispersion1, dispersion2);
+    }
+
+    /**
+     * Compares options with different "even layout" flag
+     */
+    private static int compareByEvenLayout(SolutionOptions options1, SolutionOptions options2) {
+      final var extraPostsDiff = options1.extraPosts() - options2.extraPosts();
 
-      final var deviationSum = centerToCenterLength.stream()
-          .mapToDouble(c2c -> Math.pow(c2c - average, 2))
-          .sum();
+      // +2 extra posts is worse than even layout
+      final var firstOptionBetter = (options1.evenLayout() && extraPostsDiff <= 1)
+          || (options2.evenLayout() && extraPostsDiff < -1);
 
-      return Math.sqrt(deviationSum / layout.size());
+      return firstOptionBetter ? -1 : 1;
     }
   }
 }
@@ -0,0 +1,43 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+import static com.riepka.postlayoutapi.services.calculators.PostLayoutCalculator.MAX_ALLOWED_INTERSECTION;
+
+import com.riepka.postlayoutapi.entity.Obstruction;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Obstructions of a run prepared once for calculations with different post sizes and panel lengths (sweep).
+ * Obstruction index depends only on post size (intersection zones), so it is built once for each post size.
+ * Thread-safe, configurations can be calculated in parallel.
+ */
+public final class PreparedObstructions {
+
+  // obstructions sorted left to right
+  private final List<Obstruction> obstructions;
+  // obstruction indexes by post installation size
+  private final Map<Double, ObstructionIndex> indexes = new ConcurrentHashMap<>();
+
+  /**
+   * @param obstructions obstructions sorted left to right
+   */
+  public PreparedObstructions(List<Obstruction> obstructions) {
+    this.obstructions = List.copyOf(obstructions);
+  }
+
+  public List<Obstruction> obstructions() {
+    return obstructions;
+  }
+
+  /**
+   * @param postInstallationSize post size including installation extension
+   * @return obstruction index for given post installation size
+   */
+  ObstructionIndex index(double postInstallationSize) {
+    return indexes.computeIfAbsent(
+        postInstallationSize,
+        size -> new ObstructionIndex(obstructions, MAX_ALLOWED_INTERSECTION, size)
+    );
+  }
+}
@@ -0,0 +1,84 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.riepka.postlayoutapi.entity.Obstruction;
+import com.riepka.postlayoutapi.services.calculators.PostLayoutCalculator.SegmentSolution;
+import java.util.List;
+
+/**
+ * Bounded thread-safe cache of segment solutions shared between calculations.
+ * Segment solutions depend only on post and panel sizes, segment length and obstructions located in segment (with
+ * locations related to segment start), so the same segment found in different runs (or twice in one run) is solved
+ * once. Cached solutions are never modified, so they are shared as is.
+ */
+public class SegmentSolutionsCache {
+
+  private final Cache<SegmentKey, List<SegmentSolution>> cache;
+
+  /**
+   * @param maxSize maximal number of cached segments
+   */
+  public SegmentSolutionsCache(long maxSize) {
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * @param key segment key
+   * @return cached segment solutions, null if segment isn't cached
+   */
+  List<SegmentSolution> get(SegmentKey key) {
+    return cache.getIfPresent(key);
+  }
+
+  /**
+   * Caches segment solutions. Solutions are computed outside the cache, so long computations don't block cache for
+   * other keys.
+   *
+   * @param key       segment key
+   * @param solutions complete segment solutions
+   * @return cached solutions (unmodifiable list)
+   */
+  List<SegmentSolution> put(SegmentKey key, List<SegmentSolution> solutions) {
+    final var cachedSolutions = List.copyOf(solutions);
+    cache.put(key, cachedSolutions);
+
+    return cachedSolutions;
+  }
+
+  /**
+   * @return cache statistics (hits, misses, evictions)
+   */
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  /**
+   * @return approximate number of cached segments
+   */
+  public long size() {
+    return cache.estimatedSize();
+  }
+
+  /**
+   * @param postSize        post style size
+   * @param panelMaxLength  maximal allowed panel length
+   * @param segmentLength   segment red post center to green post center length
+   * @param obstructions    obstructions in segment (in initial order, with locations related to segment start)
+   * @param fixedPoint      scale lengths are converted to whole units with, null if lengths are as is
+   * @param optimalSearch   settings of segments solving with posts on grid, null if segments are solved by shifting
+   */
+  record SegmentKey(
+      double postSize,
+      double panelMaxLength,
+      double segmentLength,
+      List<Obstruction> obstructions,
+      FixedPointScale fixedPoint,
+      OptimalSearch optimalSearch
+  ) {
+  }
+}
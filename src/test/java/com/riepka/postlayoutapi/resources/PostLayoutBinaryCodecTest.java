@@ -0,0 +1,105 @@
+package com.riepka.postlayoutapi.resources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import com.riepka.postlayoutapi.entity.LayoutCalculationInput;
+import com.riepka.postlayoutapi.entity.ObstructionInput;
+import com.riepka.postlayoutapi.entity.ObstructionType;
+import com.riepka.postlayoutapi.entity.PostLayoutOption;
+import com.riepka.postlayoutapi.mapper.CalculationDataMapperImpl;
+import com.riepka.postlayoutapi.services.calculators.PostLayoutCalculator;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PostLayoutBinaryCodecTest {
+
+  private static final LayoutCalculationInput INPUT = LayoutCalculationInput.builder()
+      .postSize(4)
+      .panelMaxLength(96)
+      .runHorLength(964.3794572045123)
+      .obstructions(List.of(
+          obstruction(4, 345.7333489234879, ObstructionType.TRY_TO_AVOID),
+          obstruction(10, 457, ObstructionType.MUST_AVOID),
+          obstruction(11, 593, ObstructionType.MUST_AVOID),
+          obstruction(4, 838, ObstructionType.PLACE_POST)
+      ))
+      .build();
+
+  @Test
+  void shouldDecodeEncodedInputExactly() {
+    // when
+    final var actual = PostLayoutBinaryCodec.decodeInput(PostLayoutBinaryCodec.encodeInput(INPUT));
+    // then
+    assertThat(actual).isEqualTo(INPUT);
+  }
+
+  @Test
+  void shouldDecodeEncodedOptionsWithFixedPointPrecision() {
+    // given
+    final var options = calculate(INPUT);
+    // when
+    final var encoded = PostLayoutBinaryCodec.encodeOptions(options);
+    final var actual = PostLayoutBinaryCodec.decodeOptions(encoded);
+    // then
+    assertThat(actual).hasSameSizeAs(options);
+    for (int i = 0; i < options.size(); i++) {
+      final var expected = options.get(i);
+      final var actualLocations = actual.get(i).getPostLocations();
+
+      assertThat(actual.get(i).getDescription()).isEqualTo(expected.getDescription());
+      assertThat(actualLocations).hasSameSizeAs(expected.getPostLocations());
+      for (int j = 0; j < actualLocations.size(); j++) {
+        assertThat(actualLocations.get(j)).isCloseTo(expected.getPostLocations().get(j), within(0.5 / 10_000));
+      }
+    }
+    // posts take 2-3 bytes each instead of 8
+    final var postsNumber = options.stream().mapToInt(option -> option.getPostLocations().size()).sum();
+    assertThat(encoded.length).isLessThan(2 + options.size() * 5 + postsNumber * 3);
+  }
+
+  @Test
+  void shouldRejectMalformedData() {
+    // given
+    final var encoded = PostLayoutBinaryCodec.encodeInput(INPUT);
+    final var truncatedHeader = Arrays.copyOf(encoded, 10);
+    // obstructions number is checked against data length before obstructions are read
+    final var truncatedObstructions = Arrays.copyOf(encoded, encoded.length - 1);
+    final var unknownVersion = encoded.clone();
+    unknownVersion[0] = 2;
+    // when then
+    assertThatThrownBy(() -> PostLayoutBinaryCodec.decodeInput(truncatedHeader))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Unexpected end");
+    assertThatThrownBy(() -> PostLayoutBinaryCodec.decodeInput(truncatedObstructions))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Elements number 4 exceeds data length");
+    assertThatThrownBy(() -> PostLayoutBinaryCodec.decodeInput(unknownVersion))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Unsupported format version: 2");
+    assertThatThrownBy(() -> PostLayoutBinaryCodec.decodeOptions(new byte[] {1, (byte) 0xFF, 0x7F}))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("exceeds data length");
+  }
+
+  private List<PostLayoutOption> calculate(LayoutCalculationInput input) {
+    final var calcData = new CalculationDataMapperImpl().toCalculationData(input);
+
+    return new PostLayoutCalculator(
+        calcData.getPostSize(),
+        calcData.getPanelMaxLength(),
+        calcData.getRunHorLength(),
+        calcData.getObstructions()
+    ).calculate();
+  }
+
+  private static ObstructionInput obstruction(double size, double location, ObstructionType type) {
+    return ObstructionInput.builder()
+        .size(size)
+        .location(location)
+        .type(type)
+        .build();
+  }
+}
@@ -0,0 +1,105 @@
+package com.riepka.postlayoutapi.resources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.riepka.postlayoutapi.entity.LayoutCalculationInput;
+import com.riepka.postlayoutapi.entity.ObstructionInput;
+import com.riepka.postlayoutapi.entity.ObstructionType;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PostLayoutResourceTest {
+
+  private static final String URL = "/api/v1/post-layout";
+  private static final LayoutCalculationInput INPUT = LayoutCalculationInput.builder()
+      .postSize(4)
+      .panelMaxLength(96)
+      .runHorLength(964)
+      .obstructions(List.of(
+          ObstructionInput.builder().size(10).location(457).type(ObstructionType.MUST_AVOID).build(),
+          ObstructionInput.builder().size(4).location(838).type(ObstructionType.PLACE_POST).build()
+      ))
+      .build();
+  private static final String JSON_INPUT = """
+      {"postSize":4,"panelMaxLength":96,"runHorLength":964,"obstructions":[
+      {"size":10,"location":457,"type":"MUST_AVOID"},{"size":4,"location":838,"type":"PLACE_POST"}]}""";
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Test
+  void shouldCalculateBinaryRequestToBinaryOptions() throws Exception {
+    // when
+    final var response = mockMvc.perform(post(URL)
+            .contentType(PostLayoutBinaryCodec.MEDIA_TYPE)
+            .accept(PostLayoutBinaryCodec.MEDIA_TYPE)
+            .content(PostLayoutBinaryCodec.encodeInput(INPUT)))
+        // then
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(PostLayoutBinaryCodec.MEDIA_TYPE))
+        .andReturn()
+        .getResponse();
+    final var options = PostLayoutBinaryCodec.decodeOptions(response.getContentAsByteArray());
+    assertThat(options).isNotEmpty();
+    assertThat(options.getFirst().getPostLocations()).contains(0.0, 838.0, 964.0);
+  }
+
+  @Test
+  void shouldAnswerJsonToClientAcceptingAnyMediaType() throws Exception {
+    // when then
+    mockMvc.perform(post(URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.ALL)
+            .content(JSON_INPUT))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("$[0].postLocations[0]").value(0.0))
+        .andExpect(jsonPath("$[0].description.postsFallOnMustAvoid").value(0));
+  }
+
+  @Test
+  void shouldWriteErrorToClientAcceptingBinaryOptionsOnly() throws Exception {
+    // given
+    final var encoded = PostLayoutBinaryCodec.encodeInput(INPUT);
+    final var truncated = Arrays.copyOf(encoded, 10);
+    // when then
+    mockMvc.perform(post(URL)
+            .contentType(PostLayoutBinaryCodec.MEDIA_TYPE)
+            .accept(PostLayoutBinaryCodec.MEDIA_TYPE)
+            .content(truncated))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+        .andExpect(jsonPath("$.status").value(400));
+  }
+
+  @Test
+  void shouldStreamProgressAndResultEvents() throws Exception {
+    // given
+    // input isn't calculated by other tests, so result isn't taken from cache without progress
+    final var started = mockMvc.perform(post(URL + "/stream")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(JSON_INPUT.replace("964", "1234")))
+        .andExpect(status().isOk())
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    // when
+    started.getAsyncResult(5_000);
+    // then
+    final var content = started.getResponse().getContentAsString();
+    assertThat(content).contains("event:progress", "event:result");
+    assertThat(content.lastIndexOf("event:progress")).isLessThan(content.indexOf("event:result"));
+  }
+}
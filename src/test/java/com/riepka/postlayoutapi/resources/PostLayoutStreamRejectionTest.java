@@ -0,0 +1,46 @@
+package com.riepka.postlayoutapi.resources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Heavy lane without places: every calculation is heavy and is rejected at once after the stream is started.
+ */
+@SpringBootTest(properties = {
+    "post-layout.admission.heavy-work=0",
+    "post-layout.admission.max-heavy-running=0",
+    "post-layout.admission.max-heavy-waiting=0",
+    "post-layout.admission.retry-after=3s"
+})
+@AutoConfigureMockMvc
+class PostLayoutStreamRejectionTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Test
+  void shouldEndStreamWithErrorEventIfCalculationIsRejected() throws Exception {
+    // given
+    final var started = mockMvc.perform(post("/api/v1/post-layout/stream")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"postSize\":4,\"panelMaxLength\":96,\"runHorLength\":964,\"obstructions\":[]}"))
+        .andExpect(status().isOk())
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    // when
+    started.getAsyncResult(5_000);
+    // then
+    assertThat(started.getResponse().getContentAsString())
+        .contains("event:error", "retry:3000", "\"status\":429")
+        .doesNotContain("event:result");
+  }
+}
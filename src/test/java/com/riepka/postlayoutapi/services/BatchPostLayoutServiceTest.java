@@ -0,0 +1,103 @@
+package com.riepka.postlayoutapi.services;
+
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import com.riepka.postlayoutapi.entity.BatchCalculationInput;
+import com.riepka.postlayoutapi.entity.BatchRunInput;
+import com.riepka.postlayoutapi.entity.LayoutCalculationInput;
+import jakarta.validation.Validation;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+class BatchPostLayoutServiceTest {
+
+  private ExecutorService executor;
+  private PostLayoutProperties properties;
+  private BatchPostLayoutService batchService;
+  private PostLayoutService service;
+
+  @BeforeEach
+  void setUp() {
+    executor = Executors.newVirtualThreadPerTaskExecutor();
+    properties = new PostLayoutProperties();
+    properties.getBatch().setMaxRuns(3);
+    properties.getBatch().setMaxParallelRuns(2);
+    service = PostLayoutServiceFixture.create(properties);
+    batchService = new BatchPostLayoutService(
+        service,
+        properties,
+        Validation.buildDefaultValidatorFactory().getValidator(),
+        executor
+    );
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.close();
+  }
+
+  @Test
+  void shouldCalculateRunsAndReportErrorOnlyForInvalidRun() {
+    // given
+    final var first = run("first", 200);
+    final var invalid = run("invalid", -1);
+    final var second = run("second", 540);
+    // when
+    final var actual = batchService.calcPostLayouts(batch(List.of(first, invalid, second)));
+    // then
+    assertThat(actual.getResults()).containsOnlyKeys("first", "invalid", "second");
+    assertThat(actual.getResults().get("first").getOptions())
+        .isEqualTo(service.calcPostLayout(first.getInput()).options());
+    assertThat(actual.getResults().get("second").getOptions())
+        .isEqualTo(service.calcPostLayout(second.getInput()).options());
+    assertThat(actual.getResults().get("first").getTruncated()).isFalse();
+    assertThat(actual.getResults().get("invalid").getOptions()).isNull();
+    assertThat(actual.getResults().get("invalid").getError()).startsWith("runHorLength");
+  }
+
+  @Test
+  void shouldRejectBatchWithTooManyRuns() {
+    // given
+    final var input = batch(List.of(run("1", 100), run("2", 100), run("3", 100), run("4", 100)));
+    // when then
+    assertThatThrownBy(() -> batchService.calcPostLayouts(input))
+        .isInstanceOf(ResponseStatusException.class)
+        .hasMessageContaining("maximum is 3");
+  }
+
+  @Test
+  void shouldRejectBatchWithDuplicateRunIds() {
+    // given
+    final var input = batch(List.of(run("1", 100), run("1", 200)));
+    // when then
+    assertThatThrownBy(() -> batchService.calcPostLayouts(input))
+        .isInstanceOf(ResponseStatusException.class)
+        .hasMessageContaining("Duplicate run id: 1");
+  }
+
+  private BatchCalculationInput batch(List<BatchRunInput> runs) {
+    return BatchCalculationInput.builder()
+        .runs(runs)
+        .build();
+  }
+
+  private BatchRunInput run(String id, double runLength) {
+    return BatchRunInput.builder()
+        .id(id)
+        .input(LayoutCalculationInput.builder()
+            .postSize(4)
+            .panelMaxLength(96)
+            .runHorLength(runLength)
+            .obstructions(emptyList())
+            .build())
+        .build();
+  }
+}
@@ -0,0 +1,128 @@
+package com.riepka.postlayoutapi.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import com.riepka.postlayoutapi.entity.Obstruction;
+import com.riepka.postlayoutapi.entity.ObstructionType;
+import com.riepka.postlayoutapi.services.calculators.CalculationCost;
+import com.riepka.postlayoutapi.services.calculators.CalculationCostEstimator;
+import com.riepka.postlayoutapi.services.calculators.OptimalSearch;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+class CalculationAdmissionTest {
+
+  private static final CalculationCost CHEAP = new CalculationCost(1, 2, 0, 0, 0, 0);
+  private static final CalculationCost HEAVY = new CalculationCost(1, 17, 18, 1L << 18, 0, 0);
+
+  private final CountDownLatch heavyStarted = new CountDownLatch(1);
+  private final CountDownLatch heavyReleased = new CountDownLatch(1);
+  private ExecutorService executor;
+  private PostLayoutProperties properties;
+
+  @BeforeEach
+  void setUp() {
+    executor = Executors.newVirtualThreadPerTaskExecutor();
+    properties = new PostLayoutProperties();
+    properties.getAdmission().setMaxHeavyRunning(1);
+    properties.getAdmission().setMaxWait(Duration.ofMillis(50));
+    properties.getAdmission().setRetryAfter(Duration.ofSeconds(3));
+  }
+
+  @AfterEach
+  void tearDown() {
+    heavyReleased.countDown();
+    executor.close();
+  }
+
+  @Test
+  void shouldRejectHeavyCalculationAtOnceIfNoWaitingAllowedButRunCheapOne() throws Exception {
+    // given
+    properties.getAdmission().setMaxHeavyWaiting(0);
+    final var admission = new CalculationAdmission(properties, new SimpleMeterRegistry());
+    final var runningHeavy = startBlockingHeavyCalculation(admission);
+    // when
+    final var cheapResult = admission.admit(CHEAP, () -> "cheap");
+    // then
+    assertThat(cheapResult).isEqualTo("cheap");
+    assertThatThrownBy(() -> admission.admit(HEAVY, () -> "heavy"))
+        .isInstanceOfSatisfying(CalculationRejectedException.class, e -> {
+          assertThat(e.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+          assertThat(e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("3");
+        });
+
+    heavyReleased.countDown();
+    assertThat(runningHeavy.get()).isEqualTo("heavy");
+    assertThat(admission.admit(HEAVY, () -> "next heavy")).isEqualTo("next heavy");
+  }
+
+  @Test
+  void shouldRejectWaitingHeavyCalculationIfItHasNotGotItsTurnInTime() throws Exception {
+    // given
+    properties.getAdmission().setMaxHeavyWaiting(1);
+    final var admission = new CalculationAdmission(properties, new SimpleMeterRegistry());
+    startBlockingHeavyCalculation(admission);
+    // when then
+    assertThatThrownBy(() -> admission.admit(HEAVY, () -> "heavy"))
+        .isInstanceOfSatisfying(CalculationRejectedException.class, e -> {
+          assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+          assertThat(e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("3");
+        });
+  }
+
+  @Test
+  void shouldNotLimitHeavyCalculationsIfAdmissionDisabled() throws Exception {
+    // given
+    properties.getAdmission().setEnabled(false);
+    properties.getAdmission().setMaxHeavyWaiting(0);
+    final var admission = new CalculationAdmission(properties, new SimpleMeterRegistry());
+    startBlockingHeavyCalculation(admission);
+    // when
+    final var actual = admission.admit(HEAVY, () -> "heavy");
+    // then
+    assertThat(actual).isEqualTo("heavy");
+  }
+
+  @Test
+  void shouldClassifyOptimalCalculationOfRunHeuristicSolvesCheaplyAsHeavy() {
+    // given
+    final var admission = new CalculationAdmission(new PostLayoutProperties(), new SimpleMeterRegistry());
+    final var obstructions = List.of(new Obstruction(4, 457, ObstructionType.MUST_AVOID));
+    // when
+    final var heuristic = CalculationCostEstimator.estimate(4, 96, 964, obstructions);
+    final var optimal = CalculationCostEstimator.estimate(4, 96, 964, obstructions, new OptimalSearch(0.5, 2));
+    // then
+    assertThat(admission.isHeavy(heuristic)).isFalse();
+    assertThat(admission.isHeavy(optimal)).isTrue();
+  }
+
+  /**
+   * Starts heavy calculation that runs until heavyReleased latch is released
+   */
+  private CompletableFuture<String> startBlockingHeavyCalculation(CalculationAdmission admission) throws Exception {
+    final var result = CompletableFuture.supplyAsync(() -> admission.admit(HEAVY, () -> {
+      heavyStarted.countDown();
+      try {
+        heavyReleased.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return "heavy";
+    }), executor);
+    heavyStarted.await();
+
+    return result;
+  }
+}
@@ -0,0 +1,177 @@
+package com.riepka.postlayoutapi.services;
+
+import static com.riepka.postlayoutapi.config.PostLayoutProperties.SolverStrategy.HEURISTIC;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import com.riepka.postlayoutapi.entity.CalculationData;
+import com.riepka.postlayoutapi.entity.Obstruction;
+import com.riepka.postlayoutapi.entity.ObstructionType;
+import com.riepka.postlayoutapi.entity.PostLayoutOption;
+import com.riepka.postlayoutapi.services.calculators.CalculationResult;
+import com.riepka.postlayoutapi.services.calculators.Deadline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+class CalculationCoalescerTest {
+
+  private static final Duration BUDGET = Duration.ofSeconds(10);
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final CalculationCoalescer coalescer = new CalculationCoalescer(new PostLayoutProperties(), registry);
+  private final AtomicInteger calculations = new AtomicInteger();
+  private final CountDownLatch calculationRelease = new CountDownLatch(1);
+
+  @Test
+  void shouldShareCalculationInProgressWithIdenticalRequests() throws Exception {
+    // given
+    final var data = data(List.of(mustAvoid(90), mustAvoid(180)));
+    // the same input with reordered obstructions
+    final var reordered = data(List.of(mustAvoid(180), mustAvoid(90)));
+    final List<Future<CalculationResult>> results = new ArrayList<>();
+    // when
+    try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      results.add(executor.submit(() -> calculate(data, BUDGET, this::blockingCalculation)));
+      awaitInFlight();
+      results.add(executor.submit(() -> calculate(data, BUDGET, this::blockingCalculation)));
+      results.add(executor.submit(() -> calculate(reordered, BUDGET, this::blockingCalculation)));
+      awaitCoalesced(2);
+      calculationRelease.countDown();
+    }
+    // then
+    assertThat(calculations).hasValue(1);
+    assertThat(results.get(1).get()).isSameAs(results.get(0).get());
+    assertThat(results.get(2).get()).isSameAs(results.get(0).get());
+    assertThat(coalescer.inFlight()).isZero();
+    assertThat(registry.get("post.layout.coalescing").tag("role", "leader").counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldShareCalculationErrorWithCoalescedRequests() throws Exception {
+    // given
+    final var data = data(List.of(mustAvoid(90)));
+    final List<Future<CalculationResult>> results = new ArrayList<>();
+    // when
+    try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      results.add(executor.submit(() -> calculate(data, BUDGET, this::blockingFailingCalculation)));
+      awaitInFlight();
+      results.add(executor.submit(() -> calculate(data, BUDGET, this::blockingFailingCalculation)));
+      awaitCoalesced(1);
+      calculationRelease.countDown();
+    }
+    // then
+    for (final Future<CalculationResult> result : results) {
+      assertThatThrownBy(result::get)
+          .isInstanceOf(ExecutionException.class)
+          .cause()
+          .isInstanceOf(ResponseStatusException.class)
+          .hasMessageContaining("Too many heavy calculations");
+    }
+    assertThat(calculations).hasValue(1);
+    // the next request calculates again
+    assertThat(calculate(data, BUDGET, this::calculation).truncated()).isFalse();
+    assertThat(calculations).hasValue(2);
+  }
+
+  @Test
+  void shouldNotShareCalculationWithRequestOfAnotherBudgetBucket() throws Exception {
+    // given
+    final var data = data(List.of(mustAvoid(90)));
+    final List<Future<CalculationResult>> results = new ArrayList<>();
+    // when
+    try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      results.add(executor.submit(() -> calculate(data, Duration.ofMillis(100), this::blockingCalculation)));
+      awaitInFlight();
+      results.add(executor.submit(() -> calculate(data, BUDGET, this::blockingCalculation)));
+      while (coalescer.inFlight() < 2) {
+        Thread.sleep(1);
+      }
+      calculationRelease.countDown();
+    }
+    // then
+    assertThat(calculations).hasValue(2);
+    assertThat(results.get(1).get()).isNotSameAs(results.get(0).get());
+    assertThat(registry.get("post.layout.coalescing").tag("role", "coalesced").counter().count()).isZero();
+  }
+
+  @Test
+  void shouldCalculateCoalescedRequestItselfWhenItsDeadlineIsReached() throws Exception {
+    // given
+    final var data = data(List.of(mustAvoid(90)));
+    // when
+    try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      final var leader = executor.submit(() -> calculate(data, BUDGET, this::blockingCalculation));
+      awaitInFlight();
+      final var follower = coalescer.calculate(
+          data, HEURISTIC, BUDGET, Deadline.after(Duration.ofMillis(50)), this::calculation);
+      // then
+      assertThat(follower.options()).isNotEmpty();
+      assertThat(leader).isNotDone();
+      assertThat(registry.get("post.layout.coalescing").tag("role", "expired").counter().count()).isEqualTo(1);
+      calculationRelease.countDown();
+    }
+    assertThat(calculations).hasValue(2);
+  }
+
+  private CalculationResult calculate(CalculationData data, Duration budget, Supplier<CalculationResult> calculation) {
+    return coalescer.calculate(data, HEURISTIC, budget, Deadline.after(budget), calculation);
+  }
+
+  private CalculationResult blockingCalculation() {
+    try {
+      calculationRelease.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    return calculation();
+  }
+
+  private CalculationResult blockingFailingCalculation() {
+    blockingCalculation();
+
+    throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many heavy calculations");
+  }
+
+  private CalculationResult calculation() {
+    calculations.incrementAndGet();
+    return new CalculationResult(List.of(new PostLayoutOption(List.of(0.0, 270.0), null)), false);
+  }
+
+  private void awaitInFlight() throws InterruptedException {
+    while (coalescer.inFlight() == 0) {
+      Thread.sleep(1);
+    }
+  }
+
+  private void awaitCoalesced(int number) throws InterruptedException {
+    while (registry.get("post.layout.coalescing").tag("role", "coalesced").counter().count() < number) {
+      Thread.sleep(1);
+    }
+  }
+
+  private CalculationData data(List<Obstruction> obstructions) {
+    return CalculationData.builder()
+        .postSize(4)
+        .panelMaxLength(96)
+        .runHorLength(270)
+        .obstructions(obstructions)
+        .build();
+  }
+
+  private Obstruction mustAvoid(double location) {
+    return new Obstruction(4, location, ObstructionType.MUST_AVOID);
+  }
+}
@@ -0,0 +1,198 @@
+package com.riepka.postlayoutapi.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import com.riepka.postlayoutapi.config.PostLayoutProperties.SolverStrategy;
+import com.riepka.postlayoutapi.entity.CalculationData;
+import com.riepka.postlayoutapi.entity.Obstruction;
+import com.riepka.postlayoutapi.entity.ObstructionType;
+import com.riepka.postlayoutapi.entity.PostLayoutOption;
+import com.riepka.postlayoutapi.services.calculators.CalculationMetrics;
+import com.riepka.postlayoutapi.services.calculators.CalculationResult;
+import com.riepka.postlayoutapi.services.calculators.Deadline;
+import com.riepka.postlayoutapi.services.calculators.IncrementalSegments;
+import com.riepka.postlayoutapi.services.calculators.LayoutSolver;
+import com.riepka.postlayoutapi.services.calculators.OptimalSearch;
+import com.riepka.postlayoutapi.services.calculators.PreparedObstructions;
+import com.riepka.postlayoutapi.services.calculators.SegmentSolutionsCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+class CalculationShadowTest {
+
+  private final PostLayoutProperties properties = new PostLayoutProperties();
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private LayoutSolverSelector solverSelector;
+
+  @TempDir
+  Path directory;
+
+  @BeforeEach
+  void setUp() {
+    final var shadow = properties.getShadow();
+    shadow.setEnabled(true);
+    shadow.setSampleRate(1);
+    shadow.setStrategy(SolverStrategy.OPTIMAL);
+    shadow.setMismatchFile(directory.resolve("mismatches.jsonl"));
+
+    solverSelector = new LayoutSolverSelector(properties, List.of(
+        factory(SolverStrategy.HEURISTIC, null),
+        factory(SolverStrategy.OPTIMAL, new OptimalSearch(0.5, 2))
+    ));
+  }
+
+  @Test
+  void shouldRecordMismatchWithInputToFile() throws IOException {
+    // given
+    final var shadow = shadow(Runnable::run);
+    final var calcData = data();
+    final var primary = new CalculationResult(List.of(new PostLayoutOption(List.of(0.0, 150.0, 300.0), null)), false);
+    // when
+    shadow.submit(calcData, SolverStrategy.HEURISTIC, primary);
+    // then
+    final var lines = Files.readAllLines(properties.getShadow().getMismatchFile());
+    assertThat(lines).singleElement().asString().contains(
+        "\"primarySolver\":\"HEURISTIC\"", "\"shadowSolver\":\"OPTIMAL\"", "\"runHorLength\":300.0"
+    );
+    assertThat(registry.get("post.layout.shadow").tag("result", "mismatch").counter().count()).isEqualTo(1);
+    assertThat(registry.get("post.layout.shadow.latency.delta").timers())
+        .extracting(timer -> timer.count())
+        .containsExactlyInAnyOrder(0L, 1L);
+  }
+
+  @Test
+  void shouldCountMatchOfTheSameOptions() {
+    // given
+    final var shadow = shadow(Runnable::run);
+    final var calcData = data();
+    final var primary = solverSelector.factory(SolverStrategy.OPTIMAL)
+        .createIsolated(calcData, Deadline.NONE)
+        .calculateWithStatus(null);
+    // when
+    shadow.submit(calcData, SolverStrategy.HEURISTIC, primary);
+    // then
+    assertThat(registry.get("post.layout.shadow").tag("result", "match").counter().count()).isEqualTo(1);
+    assertThat(properties.getShadow().getMismatchFile()).doesNotExist();
+  }
+
+  @Test
+  void shouldDropShadowCalculationIfExecutorIsBusy() {
+    // given
+    final var shadow = shadow(command -> {
+      throw new RejectedExecutionException();
+    });
+    final var primary = new CalculationResult(List.of(new PostLayoutOption(List.of(0.0, 150.0, 300.0), null)), false);
+    // when
+    shadow.submit(data(), SolverStrategy.HEURISTIC, primary);
+    // then
+    assertThat(registry.get("post.layout.shadow").tag("result", "dropped").counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldNotRepeatCalculationIfShadowIsDisabled() {
+    // given
+    properties.getShadow().setEnabled(false);
+    final var shadow = shadow(command -> {
+      throw new AssertionError("Shadow calculation isn't expected");
+    });
+    final var primary = new CalculationResult(List.of(new PostLayoutOption(List.of(0.0, 150.0, 300.0), null)), false);
+    // when
+    shadow.submit(data(), SolverStrategy.HEURISTIC, primary);
+    // then
+    assertThat(registry.get("post.layout.shadow").counters())
+        .allSatisfy(counter -> assertThat(counter.count()).isZero());
+  }
+
+  @Test
+  void shouldTimeCalculationStrategyIsolatedLikeShadowStrategy() {
+    // given
+    final List<SolverStrategy> isolatedCalculations = new ArrayList<>();
+    solverSelector = new LayoutSolverSelector(properties, List.of(
+        recordingIsolated(factory(SolverStrategy.HEURISTIC, null), isolatedCalculations),
+        recordingIsolated(factory(SolverStrategy.OPTIMAL, new OptimalSearch(0.5, 2)), isolatedCalculations)
+    ));
+    final var shadow = shadow(Runnable::run);
+    final var primary = new CalculationResult(List.of(new PostLayoutOption(List.of(0.0, 150.0, 300.0), null)), false);
+    // when
+    shadow.submit(data(), SolverStrategy.HEURISTIC, primary);
+    // then
+    assertThat(isolatedCalculations).containsExactly(SolverStrategy.HEURISTIC, SolverStrategy.OPTIMAL);
+    assertThat(registry.get("post.layout.shadow.latency.delta").timers())
+        .extracting(timer -> timer.count())
+        .containsExactlyInAnyOrder(0L, 1L);
+  }
+
+  private CalculationShadow shadow(Executor executor) {
+    return new CalculationShadow(
+        properties,
+        solverSelector,
+        new ShadowMismatchLog(properties, Jackson2ObjectMapperBuilder.json().build()),
+        registry,
+        executor
+    );
+  }
+
+  private LayoutSolverFactory recordingIsolated(
+      LayoutSolverFactory factory,
+      List<SolverStrategy> isolatedCalculations
+  ) {
+    return new LayoutSolverFactory() {
+      @Override
+      public SolverStrategy strategy() {
+        return factory.strategy();
+      }
+
+      @Override
+      public OptimalSearch optimalSearch() {
+        return factory.optimalSearch();
+      }
+
+      @Override
+      public LayoutSolver create(
+          CalculationData calcData,
+          Deadline deadline,
+          IncrementalSegments incrementalSegments,
+          PreparedObstructions preparedObstructions
+      ) {
+        return factory.create(calcData, deadline, incrementalSegments, preparedObstructions);
+      }
+
+      @Override
+      public LayoutSolver createIsolated(CalculationData calcData, Deadline deadline) {
+        isolatedCalculations.add(factory.strategy());
+        return factory.createIsolated(calcData, deadline);
+      }
+    };
+  }
+
+  private LayoutSolverFactory factory(SolverStrategy strategy, OptimalSearch optimalSearch) {
+    return new PostLayoutCalculatorFactory(
+        strategy,
+        optimalSearch,
+        properties,
+        new SegmentSolutionsCache(100),
+        CalculationMetrics.NOOP,
+        Runnable::run
+    );
+  }
+
+  private CalculationData data() {
+    return CalculationData.builder()
+        .postSize(4)
+        .panelMaxLength(96)
+        .runHorLength(300)
+        .obstructions(List.of(new Obstruction(6, 100, ObstructionType.MUST_AVOID)))
+        .build();
+  }
+}
@@ -0,0 +1,59 @@
+package com.riepka.postlayoutapi.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+class CpuGuardTest {
+
+  @Test
+  void shouldLimitCalculationsAndRejectInterruptedWaitingOne() throws Exception {
+    // given
+    final var properties = new PostLayoutProperties();
+    properties.getCpu().setMaxCalculations(1);
+    properties.getAdmission().setRetryAfter(Duration.ofSeconds(3));
+    final var cpuGuard = new CpuGuard(properties);
+    final var started = new CountDownLatch(1);
+    final var released = new CountDownLatch(1);
+
+    try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      final var running = CompletableFuture.supplyAsync(() -> cpuGuard.run(() -> {
+        started.countDown();
+        await(released);
+        return "running";
+      }), executor);
+      started.await();
+      // when
+      Thread.currentThread().interrupt();
+      // then
+      assertThat(cpuGuard.availablePermits()).isZero();
+      assertThatThrownBy(() -> cpuGuard.run(() -> "waiting"))
+          .isInstanceOfSatisfying(CalculationRejectedException.class, e -> {
+            assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+            assertThat(e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("3");
+          });
+      assertThat(Thread.interrupted()).isTrue();
+
+      released.countDown();
+      assertThat(running.get()).isEqualTo("running");
+      assertThat(cpuGuard.run(() -> "next")).isEqualTo("next");
+    }
+  }
+
+  private void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+}
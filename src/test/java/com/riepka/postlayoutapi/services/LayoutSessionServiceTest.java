@@ -0,0 +1,130 @@
+package com.riepka.postlayoutapi.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import com.riepka.postlayoutapi.entity.LayoutCalculationInput;
+import com.riepka.postlayoutapi.entity.ObstructionInput;
+import com.riepka.postlayoutapi.entity.ObstructionType;
+import com.riepka.postlayoutapi.entity.SessionEdit;
+import com.riepka.postlayoutapi.entity.SessionOperation;
+import com.riepka.postlayoutapi.mapper.CalculationDataMapperImpl;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+class LayoutSessionServiceTest {
+
+  private PostLayoutService service;
+  private LayoutSessionService sessionService;
+
+  @BeforeEach
+  void setUp() {
+    final var properties = new PostLayoutProperties();
+    service = PostLayoutServiceFixture.create(properties);
+    sessionService = new LayoutSessionService(service, new CalculationDataMapperImpl(), properties);
+  }
+
+  @Test
+  void shouldRecalculateSessionAfterEdits() {
+    // given
+    final var created = sessionService.createSession(input(810, List.of(
+        obstruction(90, ObstructionType.MUST_AVOID),
+        obstruction(270, ObstructionType.PLACE_POST),
+        obstruction(360, ObstructionType.MUST_AVOID),
+        obstruction(540, ObstructionType.PLACE_POST),
+        obstruction(630, ObstructionType.MUST_AVOID)
+    )));
+    final var edits = List.of(
+        SessionEdit.builder().operation(SessionOperation.MOVE_OBSTRUCTION).obstructionId("3").location(400.0).build(),
+        SessionEdit.builder().operation(SessionOperation.REMOVE_OBSTRUCTION).obstructionId("5").build(),
+        SessionEdit.builder()
+            .operation(SessionOperation.ADD_OBSTRUCTION)
+            .obstruction(obstruction(700, ObstructionType.TRY_TO_AVOID))
+            .build(),
+        SessionEdit.builder().operation(SessionOperation.SET_RUN_LENGTH).runHorLength(850.0).build()
+    );
+    // when
+    final var actual = sessionService.editSession(created.getSessionId(), edits);
+    // then
+    assertThat(actual.getOptions()).isEqualTo(service.calcPostLayout(input(850, List.of(
+        obstruction(90, ObstructionType.MUST_AVOID),
+        obstruction(270, ObstructionType.PLACE_POST),
+        obstruction(400, ObstructionType.MUST_AVOID),
+        obstruction(540, ObstructionType.PLACE_POST),
+        obstruction(700, ObstructionType.TRY_TO_AVOID)
+    ))).options());
+    assertThat(actual.getRunHorLength()).isEqualTo(850);
+    assertThat(actual.getObstructions()).extracting("id").containsExactly("1", "2", "3", "4", "6");
+    assertThat(sessionService.getSession(created.getSessionId())).isEqualTo(actual);
+  }
+
+  @Test
+  void shouldKeepSessionUnchangedIfEditIsInvalid() {
+    // given
+    final var created = sessionService.createSession(input(300, List.of(obstruction(100, ObstructionType.MUST_AVOID))));
+    final var edits = List.of(
+        SessionEdit.builder().operation(SessionOperation.SET_RUN_LENGTH).runHorLength(500.0).build(),
+        SessionEdit.builder().operation(SessionOperation.REMOVE_OBSTRUCTION).obstructionId("7").build()
+    );
+    // when
+    // then
+    assertThatThrownBy(() -> sessionService.editSession(created.getSessionId(), edits))
+        .isInstanceOf(ResponseStatusException.class)
+        .hasMessageContaining("Unknown obstruction id: 7");
+    assertThat(sessionService.getSession(created.getSessionId())).isEqualTo(created);
+  }
+
+  @Test
+  void shouldNotUseUpObstructionIdsOfRejectedEdits() {
+    // given
+    final var created = sessionService.createSession(input(300, List.of(obstruction(100, ObstructionType.MUST_AVOID))));
+    final var rejectedEdits = List.of(
+        SessionEdit.builder()
+            .operation(SessionOperation.ADD_OBSTRUCTION)
+            .obstruction(obstruction(200, ObstructionType.MUST_AVOID))
+            .build(),
+        SessionEdit.builder().operation(SessionOperation.REMOVE_OBSTRUCTION).obstructionId("7").build()
+    );
+    assertThatThrownBy(() -> sessionService.editSession(created.getSessionId(), rejectedEdits))
+        .isInstanceOf(ResponseStatusException.class);
+    // when
+    final var actual = sessionService.editSession(created.getSessionId(), List.of(SessionEdit.builder()
+        .operation(SessionOperation.ADD_OBSTRUCTION)
+        .obstruction(obstruction(250, ObstructionType.TRY_TO_AVOID))
+        .build()));
+    // then
+    assertThat(actual.getObstructions()).extracting("id").containsExactly("1", "2");
+  }
+
+  @Test
+  void shouldRejectUnknownSession() {
+    // given
+    final var created = sessionService.createSession(input(300, List.of()));
+    // when
+    sessionService.deleteSession(created.getSessionId());
+    // then
+    assertThatThrownBy(() -> sessionService.getSession(created.getSessionId()))
+        .isInstanceOf(ResponseStatusException.class)
+        .hasMessageContaining("Session not found");
+  }
+
+  private LayoutCalculationInput input(double runLength, List<ObstructionInput> obstructions) {
+    return LayoutCalculationInput.builder()
+        .postSize(4)
+        .panelMaxLength(96)
+        .runHorLength(runLength)
+        .obstructions(obstructions)
+        .build();
+  }
+
+  private ObstructionInput obstruction(double location, ObstructionType type) {
+    return ObstructionInput.builder()
+        .size(type == ObstructionType.PLACE_POST ? 4 : 6)
+        .location(location)
+        .type(type)
+        .build();
+  }
+}
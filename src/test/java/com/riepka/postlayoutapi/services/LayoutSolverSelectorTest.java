@@ -0,0 +1,95 @@
+package com.riepka.postlayoutapi.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import com.riepka.postlayoutapi.config.PostLayoutProperties.SolverStrategy;
+import com.riepka.postlayoutapi.entity.CalculationData;
+import com.riepka.postlayoutapi.services.calculators.CalculationMetrics;
+import com.riepka.postlayoutapi.services.calculators.OptimalSearch;
+import com.riepka.postlayoutapi.services.calculators.SegmentSolutionsCache;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+class LayoutSolverSelectorTest {
+
+  private final PostLayoutProperties properties = new PostLayoutProperties();
+
+  @Test
+  void shouldUseRequestedStrategyOrConfiguredOne() {
+    // given
+    properties.getSolver().setStrategy(SolverStrategy.OPTIMAL);
+    final var selector = new LayoutSolverSelector(properties, List.of(heuristic(), optimal()));
+    // when
+    final var requested = selector.resolve(SolverStrategy.HEURISTIC, data(1000));
+    final var configured = selector.resolve(null, data(1000));
+    // then
+    assertThat(requested).isEqualTo(SolverStrategy.HEURISTIC);
+    assertThat(configured).isEqualTo(SolverStrategy.OPTIMAL);
+    assertThat(selector.factory(configured).strategy()).isEqualTo(SolverStrategy.OPTIMAL);
+  }
+
+  @Test
+  void shouldChooseStrategyByRunLengthInAutoMode() {
+    // given
+    properties.getSolver().setStrategy(SolverStrategy.AUTO);
+    properties.getSolver().setAutoOptimalMaxLength(2000);
+    final var selector = new LayoutSolverSelector(properties, List.of(heuristic(), optimal()));
+    final var heuristicOnly = new LayoutSolverSelector(properties, List.of(heuristic()));
+    // when
+    final var shortRun = selector.resolve(null, data(2000));
+    final var longRun = selector.resolve(null, data(2000.5));
+    final var shortRunWithoutOptimal = heuristicOnly.resolve(null, data(2000));
+    // then
+    assertThat(shortRun).isEqualTo(SolverStrategy.OPTIMAL);
+    assertThat(longRun).isEqualTo(SolverStrategy.HEURISTIC);
+    assertThat(shortRunWithoutOptimal).isEqualTo(SolverStrategy.HEURISTIC);
+  }
+
+  @Test
+  void shouldRejectUnavailableStrategy() {
+    // given
+    final var selector = new LayoutSolverSelector(properties, List.of(heuristic()));
+    // when, then
+    assertThatThrownBy(() -> selector.resolve(SolverStrategy.OPTIMAL, data(1000)))
+        .isInstanceOf(ResponseStatusException.class)
+        .hasMessageContaining("400 BAD_REQUEST");
+  }
+
+  @Test
+  void shouldRejectDuplicateStrategyFactories() {
+    // when, then
+    assertThatThrownBy(() -> new LayoutSolverSelector(properties, List.of(heuristic(), heuristic())))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  private LayoutSolverFactory heuristic() {
+    return factory(SolverStrategy.HEURISTIC, null);
+  }
+
+  private LayoutSolverFactory optimal() {
+    return factory(SolverStrategy.OPTIMAL, new OptimalSearch(0.5, 2));
+  }
+
+  private LayoutSolverFactory factory(SolverStrategy strategy, OptimalSearch optimalSearch) {
+    return new PostLayoutCalculatorFactory(
+        strategy,
+        optimalSearch,
+        properties,
+        new SegmentSolutionsCache(100),
+        CalculationMetrics.NOOP,
+        Runnable::run
+    );
+  }
+
+  private CalculationData data(double runLength) {
+    return CalculationData.builder()
+        .postSize(4)
+        .panelMaxLength(96)
+        .runHorLength(runLength)
+        .obstructions(List.of())
+        .build();
+  }
+}
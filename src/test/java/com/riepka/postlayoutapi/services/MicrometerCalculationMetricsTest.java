@@ -0,0 +1,47 @@
+package com.riepka.postlayoutapi.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.riepka.postlayoutapi.entity.Obstruction;
+import com.riepka.postlayoutapi.entity.ObstructionType;
+import com.riepka.postlayoutapi.services.calculators.PostLayoutCalculator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MicrometerCalculationMetricsTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  @Test
+  void shouldRecordCalculationPhasesAndShiftCombinations() {
+    // given
+    final var calculator = PostLayoutCalculator.builder()
+        .postSize(4)
+        .panelMaxLength(96)
+        .runLength(300)
+        .obstructions(List.of(
+            mustAvoid(100),
+            mustAvoid(200),
+            mustAvoid(75),
+            mustAvoid(150)
+        ))
+        .metrics(new MicrometerCalculationMetrics(registry))
+        .build();
+    // when
+    calculator.calculate();
+    // then
+    for (final String phase : List.of("segments_solving", "shift_enumeration", "combination", "ranking")) {
+      assertThat(registry.get("post.layout.phase").tag("phase", phase).timer().count()).isEqualTo(1);
+    }
+    assertThat(registry.get("post.layout.phase").tag("phase", "mapping").timer().count()).isZero();
+    assertThat(registry.get("post.layout.segment.candidates").summary().totalAmount()).isEqualTo(6);
+    assertThat(registry.get("post.layout.shift.combinations").summary().totalAmount()).isEqualTo(4);
+    assertThat(registry.get("post.layout.segment.pruned").summary().totalAmount()).isZero();
+    assertThat(registry.get("post.layout.fallback.solutions").counter().count()).isZero();
+  }
+
+  private Obstruction mustAvoid(double location) {
+    return new Obstruction(4, location, ObstructionType.MUST_AVOID);
+  }
+}
@@ -0,0 +1,133 @@
+package com.riepka.postlayoutapi.services;
+
+import static com.riepka.postlayoutapi.config.PostLayoutProperties.SolverStrategy.HEURISTIC;
+import static com.riepka.postlayoutapi.config.PostLayoutProperties.SolverStrategy.OPTIMAL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import com.riepka.postlayoutapi.config.PostLayoutProperties.CoordinatesType;
+import com.riepka.postlayoutapi.entity.CalculationData;
+import com.riepka.postlayoutapi.entity.Obstruction;
+import com.riepka.postlayoutapi.entity.ObstructionType;
+import com.riepka.postlayoutapi.entity.PostLayoutOption;
+import com.riepka.postlayoutapi.services.calculators.CalculationResult;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class PostLayoutResultCacheTest {
+
+  private final AtomicInteger calculations = new AtomicInteger();
+
+  @Test
+  void shouldReturnCachedResultForInputWithReorderedAndSlightlyDifferentObstructions() {
+    // given
+    final var cache = new PostLayoutResultCache(new PostLayoutProperties());
+    final var first = data(270, List.of(mustAvoid(4, 90), mustAvoid(4, 180)));
+    final var second = data(270.0000001, List.of(mustAvoid(4, 180.0000002), mustAvoid(4, 90)));
+    // when
+    final var firstResult = cache.getOrCalculate(first, HEURISTIC, this::calculate);
+    final var secondResult = cache.getOrCalculate(second, HEURISTIC, this::calculate);
+    // then
+    assertThat(secondResult).isSameAs(firstResult);
+    assertThat(calculations).hasValue(1);
+    assertThat(cache.stats()).hasValueSatisfying(stats -> {
+      assertThat(stats.hitCount()).isEqualTo(1);
+      assertThat(stats.missCount()).isEqualTo(1);
+    });
+  }
+
+  @Test
+  void shouldQuantizeInputToEngineUnitsInFixedPointMode() {
+    // given
+    final var properties = new PostLayoutProperties();
+    properties.getEngine().setCoordinates(CoordinatesType.FIXED_POINT);
+    properties.getEngine().setResolution(0.001);
+    final var cache = new PostLayoutResultCache(properties);
+    // when
+    final var firstResult = cache.getOrCalculate(data(270, List.of(mustAvoid(4, 90))), HEURISTIC, this::calculate);
+    final var sameUnitsResult = cache.getOrCalculate(
+        data(270.0004, List.of(mustAvoid(4, 89.9996))), HEURISTIC, this::calculate);
+    cache.getOrCalculate(data(270.001, List.of(mustAvoid(4, 90))), HEURISTIC, this::calculate);
+    // then
+    assertThat(sameUnitsResult).isSameAs(firstResult);
+    assertThat(calculations).hasValue(2);
+  }
+
+  @Test
+  void shouldCalculateForDifferentInputs() {
+    // given
+    final var cache = new PostLayoutResultCache(new PostLayoutProperties());
+    // when
+    cache.getOrCalculate(data(270, List.of(mustAvoid(4, 90))), HEURISTIC, this::calculate);
+    cache.getOrCalculate(data(270, List.of(mustAvoid(4, 91))), HEURISTIC, this::calculate);
+    // then
+    assertThat(calculations).hasValue(2);
+  }
+
+  @Test
+  void shouldCalculateForDifferentSolvers() {
+    // given
+    final var cache = new PostLayoutResultCache(new PostLayoutProperties());
+    final var data = data(270, List.of(mustAvoid(4, 90)));
+    // when
+    cache.getOrCalculate(data, HEURISTIC, this::calculate);
+    cache.getOrCalculate(data, OPTIMAL, this::calculate);
+    // then
+    assertThat(calculations).hasValue(2);
+  }
+
+  @Test
+  void shouldAlwaysCalculateIfCacheDisabled() {
+    // given
+    final var properties = new PostLayoutProperties();
+    properties.getCache().setEnabled(false);
+    final var cache = new PostLayoutResultCache(properties);
+    final var data = data(270, List.of(mustAvoid(4, 90)));
+    // when
+    cache.getOrCalculate(data, HEURISTIC, this::calculate);
+    cache.getOrCalculate(data, HEURISTIC, this::calculate);
+    // then
+    assertThat(calculations).hasValue(2);
+    assertThat(cache.stats()).isEmpty();
+  }
+
+  @Test
+  void shouldNotCacheTruncatedResult() {
+    // given
+    final var cache = new PostLayoutResultCache(new PostLayoutProperties());
+    final var data = data(270, List.of(mustAvoid(4, 90)));
+    // when
+    final var firstResult = cache.getOrCalculate(data, HEURISTIC, this::calculateTruncated);
+    final var secondResult = cache.getOrCalculate(data, HEURISTIC, this::calculate);
+    final var thirdResult = cache.getOrCalculate(data, HEURISTIC, this::calculate);
+    // then
+    assertThat(firstResult.truncated()).isTrue();
+    assertThat(secondResult.truncated()).isFalse();
+    assertThat(thirdResult).isSameAs(secondResult);
+    assertThat(calculations).hasValue(2);
+  }
+
+  private CalculationResult calculate(CalculationData data) {
+    calculations.incrementAndGet();
+    return new CalculationResult(List.of(new PostLayoutOption(List.of(0.0, data.getRunHorLength()), null)), false);
+  }
+
+  private CalculationResult calculateTruncated(CalculationData data) {
+    calculations.incrementAndGet();
+    return new CalculationResult(List.of(new PostLayoutOption(List.of(0.0, data.getRunHorLength()), null)), true);
+  }
+
+  private CalculationData data(double runLength, List<Obstruction> obstructions) {
+    return CalculationData.builder()
+        .postSize(4)
+        .panelMaxLength(96)
+        .runHorLength(runLength)
+        .obstructions(obstructions)
+        .build();
+  }
+
+  private Obstruction mustAvoid(double size, double location) {
+    return new Obstruction(size, location, ObstructionType.MUST_AVOID);
+  }
+}
@@ -0,0 +1,49 @@
+package com.riepka.postlayoutapi.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import com.riepka.postlayoutapi.config.PostLayoutProperties.SolverStrategy;
+import com.riepka.postlayoutapi.mapper.CalculationDataMapperImpl;
+import com.riepka.postlayoutapi.services.calculators.CalculationMetrics;
+import com.riepka.postlayoutapi.services.calculators.SegmentSolutionsCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+
+/**
+ * {@link PostLayoutService} wired without Spring context for services tests: heuristic solver only, segments solved
+ * on the calling thread, shadow calculations run in place (disabled unless enabled in properties).
+ */
+final class PostLayoutServiceFixture {
+
+  private PostLayoutServiceFixture() {
+  }
+
+  static PostLayoutService create(PostLayoutProperties properties) {
+    final var solverSelector = new LayoutSolverSelector(properties, List.of(new PostLayoutCalculatorFactory(
+        SolverStrategy.HEURISTIC,
+        null,
+        properties,
+        new SegmentSolutionsCache(100),
+        CalculationMetrics.NOOP,
+        Runnable::run
+    )));
+
+    return new PostLayoutService(
+        new CalculationDataMapperImpl(),
+        properties,
+        new PostLayoutResultCache(properties),
+        new CalculationAdmission(properties, new SimpleMeterRegistry()),
+        new CpuGuard(properties),
+        new CalculationCoalescer(properties, new SimpleMeterRegistry()),
+        CalculationMetrics.NOOP,
+        solverSelector,
+        new CalculationShadow(
+            properties,
+            solverSelector,
+            new ShadowMismatchLog(properties, new ObjectMapper()),
+            new SimpleMeterRegistry(),
+            Runnable::run
+        )
+    );
+  }
+}
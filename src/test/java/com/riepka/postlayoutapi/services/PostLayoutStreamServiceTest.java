@@ -0,0 +1,41 @@
+package com.riepka.postlayoutapi.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import com.riepka.postlayoutapi.config.PostLayoutProperties.SolverStrategy;
+import com.riepka.postlayoutapi.entity.LayoutCalculationInput;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+class PostLayoutStreamServiceTest {
+
+  private final PostLayoutProperties properties = new PostLayoutProperties();
+  private final List<Runnable> startedTasks = new ArrayList<>();
+  private final PostLayoutStreamService streamService = new PostLayoutStreamService(
+      PostLayoutServiceFixture.create(properties),
+      properties,
+      startedTasks::add
+  );
+
+  @Test
+  void shouldRejectUnavailableSolverBeforeStreamIsStarted() {
+    // given
+    final var input = LayoutCalculationInput.builder()
+        .postSize(4)
+        .panelMaxLength(96)
+        .runHorLength(300)
+        .obstructions(List.of())
+        .build();
+    // when then
+    // fixture has heuristic solver only
+    assertThatThrownBy(() -> streamService.streamPostLayout(input, null, SolverStrategy.OPTIMAL))
+        .isInstanceOfSatisfying(ResponseStatusException.class,
+            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    assertThat(startedTasks).isEmpty();
+  }
+}
@@ -0,0 +1,66 @@
+package com.riepka.postlayoutapi.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import com.riepka.postlayoutapi.config.PostLayoutProperties.SolverStrategy;
+import com.riepka.postlayoutapi.entity.CalculationData;
+import com.riepka.postlayoutapi.entity.PostLayoutOption;
+import com.riepka.postlayoutapi.services.ShadowMismatchLog.Mismatch;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+
+class ShadowMismatchLogTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void shouldRollFileOverWhenItReachesMaxSize() throws IOException {
+    // given
+    final var properties = new PostLayoutProperties();
+    final var file = directory.resolve("mismatches.jsonl");
+    properties.getShadow().setMismatchFile(file);
+    properties.getShadow().setMaxFileSize(DataSize.ofBytes(1));
+    properties.getShadow().setMaxHistory(2);
+    final var log = new ShadowMismatchLog(properties, Jackson2ObjectMapperBuilder.json().build());
+    // when
+    for (int runLength = 100; runLength <= 400; runLength += 100) {
+      log.write(mismatch(runLength));
+    }
+    // then
+    assertThat(Files.readAllLines(file)).singleElement().asString().contains("\"runHorLength\":400.0");
+    assertThat(Files.readAllLines(directory.resolve("mismatches.jsonl.1")))
+        .singleElement().asString().contains("\"runHorLength\":300.0");
+    assertThat(Files.readAllLines(directory.resolve("mismatches.jsonl.2")))
+        .singleElement().asString().contains("\"runHorLength\":200.0");
+    assertThat(directory.resolve("mismatches.jsonl.3")).doesNotExist();
+  }
+
+  private Mismatch mismatch(double runLength) {
+    final var data = CalculationData.builder()
+        .postSize(4)
+        .panelMaxLength(96)
+        .runHorLength(runLength)
+        .obstructions(List.of())
+        .build();
+
+    return new Mismatch(
+        Instant.now(),
+        SolverStrategy.HEURISTIC,
+        SolverStrategy.OPTIMAL,
+        1,
+        2,
+        data,
+        List.of(new PostLayoutOption(List.of(0.0, runLength), null)),
+        List.of()
+    );
+  }
+}
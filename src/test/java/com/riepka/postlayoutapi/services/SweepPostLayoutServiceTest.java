@@ -0,0 +1,120 @@
+package com.riepka.postlayoutapi.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.riepka.postlayoutapi.config.PostLayoutProperties;
+import com.riepka.postlayoutapi.entity.LayoutCalculationInput;
+import com.riepka.postlayoutapi.entity.ObstructionInput;
+import com.riepka.postlayoutapi.entity.ObstructionType;
+import com.riepka.postlayoutapi.entity.PostLayoutOption;
+import com.riepka.postlayoutapi.entity.SweepCalculationInput;
+import com.riepka.postlayoutapi.mapper.CalculationDataMapperImpl;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+class SweepPostLayoutServiceTest {
+
+  private static final List<ObstructionInput> OBSTRUCTIONS = List.of(
+      obstruction(4, 150, ObstructionType.MUST_AVOID),
+      obstruction(6, 90, ObstructionType.TRY_TO_AVOID)
+  );
+
+  private ExecutorService executor;
+  private PostLayoutProperties properties;
+  private SweepPostLayoutService sweepService;
+  private PostLayoutService service;
+
+  @BeforeEach
+  void setUp() {
+    executor = Executors.newVirtualThreadPerTaskExecutor();
+    properties = new PostLayoutProperties();
+    properties.getSweep().setMaxConfigurations(4);
+    properties.getSweep().setMaxParallelConfigurations(2);
+    service = PostLayoutServiceFixture.create(properties);
+    sweepService = new SweepPostLayoutService(service, new CalculationDataMapperImpl(), properties, executor);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.close();
+  }
+
+  @Test
+  void shouldCalculateEveryConfigurationAsSeparateRun() {
+    // given
+    final var input = sweep(List.of(4.0, 6.0), List.of(72.0, 96.0));
+    // when
+    final var actual = sweepService.calcSweep(input, null);
+    // then
+    assertThat(actual.getResults()).hasSize(2);
+    for (int i = 0; i < 2; i++) {
+      assertThat(actual.getResults().get(i)).hasSize(2);
+
+      for (int j = 0; j < 2; j++) {
+        final var postSize = input.getPostSizes().get(i);
+        final var panelMaxLength = input.getPanelMaxLengths().get(j);
+        final var expected = service.calcPostLayout(run(postSize, panelMaxLength)).options();
+        final var configuration = actual.getResults().get(i).get(j);
+
+        assertThat(configuration.getPostSize()).isEqualTo(postSize);
+        assertThat(configuration.getPanelMaxLength()).isEqualTo(panelMaxLength);
+        assertThat(configuration.getOptions()).isEqualTo(expected.subList(0, Math.min(2, expected.size())));
+        assertThat(configuration.getOptionsFound()).isEqualTo(expected.size());
+        assertThat(configuration.getBestPostsNumber()).isEqualTo(expected.get(0).getPostLocations().size());
+        assertThat(configuration.getMinPostsNumber())
+            .isEqualTo(expected.stream().mapToInt(this::postsNumber).min().orElseThrow());
+        assertThat(configuration.getMaxPostsNumber())
+            .isEqualTo(expected.stream().mapToInt(this::postsNumber).max().orElseThrow());
+        assertThat(configuration.getTruncated()).isFalse();
+        assertThat(configuration.getError()).isNull();
+      }
+    }
+  }
+
+  @Test
+  void shouldRejectSweepWithTooManyConfigurations() {
+    // given
+    final var input = sweep(List.of(4.0, 5.0, 6.0), List.of(72.0, 96.0));
+    // when then
+    assertThatThrownBy(() -> sweepService.calcSweep(input, null))
+        .isInstanceOf(ResponseStatusException.class)
+        .hasMessageContaining("maximum is 4");
+  }
+
+  private int postsNumber(PostLayoutOption option) {
+    return option.getPostLocations().size();
+  }
+
+  private SweepCalculationInput sweep(List<Double> postSizes, List<Double> panelMaxLengths) {
+    return SweepCalculationInput.builder()
+        .runHorLength(300)
+        .obstructions(OBSTRUCTIONS)
+        .postSizes(postSizes)
+        .panelMaxLengths(panelMaxLengths)
+        .topOptions(2)
+        .build();
+  }
+
+  private LayoutCalculationInput run(double postSize, double panelMaxLength) {
+    return LayoutCalculationInput.builder()
+        .postSize(postSize)
+        .panelMaxLength(panelMaxLength)
+        .runHorLength(300)
+        .obstructions(OBSTRUCTIONS)
+        .build();
+  }
+
+  private static ObstructionInput obstruction(double size, double location, ObstructionType type) {
+    return ObstructionInput.builder()
+        .size(size)
+        .location(location)
+        .type(type)
+        .build();
+  }
+}
@@ -0,0 +1,71 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.riepka.postlayoutapi.entity.Obstruction;
+import com.riepka.postlayoutapi.entity.ObstructionType;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class CalculationCostEstimatorTest {
+
+  private static final double POST_SIZE = 4;
+  private static final double PANEL_MAX_LENGTH = 96.0;
+
+  @Test
+  void shouldEstimateRunWithoutObstructions() {
+    // when
+    final var actual = CalculationCostEstimator.estimate(POST_SIZE, PANEL_MAX_LENGTH, 300, emptyList());
+    // then
+    assertThat(actual).isEqualTo(new CalculationCost(1, 2, 0, 0, 0, 0));
+    assertThat(actual.work()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldEstimateShiftCombinationsAndSegmentsCombinations() {
+    // given
+    final var obstructions = List.of(
+        mustAvoid(100),
+        mustAvoid(200),
+        new Obstruction(POST_SIZE, 300, ObstructionType.PLACE_POST),
+        mustAvoid(400)
+    );
+    // when
+    final var actual = CalculationCostEstimator.estimate(POST_SIZE, PANEL_MAX_LENGTH, 600, obstructions);
+    // then
+    // base layout posts fall on all "Must avoid" obstructions, +1 post layouts posts on none of them
+    assertThat(actual).isEqualTo(new CalculationCost(2, 4, 3, 6, 24, 0));
+  }
+
+  @Test
+  void shouldEstimateManyMustAvoidObstructionsAsHeavyWork() {
+    // given
+    final List<Obstruction> obstructions = new ArrayList<>();
+    for (int i = 1; i <= 18; i++) {
+      obstructions.add(new Obstruction(2, i * 90, ObstructionType.MUST_AVOID));
+    }
+    // when
+    final var actual = CalculationCostEstimator.estimate(POST_SIZE, PANEL_MAX_LENGTH, 1710, obstructions);
+    // then
+    // all posts of +1 post layout fall on obstructions
+    assertThat(actual.shiftCombinations()).isGreaterThanOrEqualTo(1L << 18);
+    assertThat(actual.work()).isGreaterThan(100_000);
+  }
+
+  @Test
+  void shouldEstimateGridTransitionsOfOptimalSearch() {
+    // given
+    final var optimalSearch = new OptimalSearch(0.5, 2);
+    // when
+    final var actual = CalculationCostEstimator.estimate(POST_SIZE, PANEL_MAX_LENGTH, 300, emptyList(), optimalSearch);
+    // then
+    // 600 grid locations, 3 posts numbers, 200 panel steps
+    assertThat(actual).isEqualTo(new CalculationCost(1, 2, 0, 0, 0, 360_000));
+  }
+
+  private Obstruction mustAvoid(double location) {
+    return new Obstruction(4, location, ObstructionType.MUST_AVOID);
+  }
+}
@@ -0,0 +1,30 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+class FixedPointScaleTest {
+
+  @Test
+  void shouldConvertLengthsToWholeUnitsAndBack() {
+    // given
+    final var scale = FixedPointScale.ofResolution(0.001);
+    // when
+    final var units = scale.toUnits(964.3794572);
+    // then
+    assertThat(scale.unitsPerLength()).isEqualTo(1000);
+    assertThat(units).isEqualTo(964_379);
+    assertThat(scale.toLength(units)).isEqualTo(964.379);
+  }
+
+  @Test
+  void shouldRejectResolutionNotDividingLengthUnit() {
+    // when // then
+    assertThatThrownBy(() -> FixedPointScale.ofResolution(0.003))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> FixedPointScale.ofResolution(2))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
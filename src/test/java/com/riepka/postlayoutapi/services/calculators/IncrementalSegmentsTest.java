@@ -0,0 +1,121 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.riepka.postlayoutapi.entity.Obstruction;
+import com.riepka.postlayoutapi.entity.ObstructionType;
+import com.riepka.postlayoutapi.entity.PostLayoutOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class IncrementalSegmentsTest {
+
+  private static final double POST_SIZE = 4;
+  private static final double PANEL_MAX_LENGTH = 96.0;
+
+  private final IncrementalSegments incrementalSegments = new IncrementalSegments();
+
+  @Test
+  void shouldSolveOnlyChangedSegments() {
+    // given
+    final var obstructions = run(5);
+    final var firstActual = calculator(270 * 5, obstructions).calculate();
+    // obstruction of the fourth segment is moved
+    obstructions.set(9, new Obstruction(4, 3 * 270 + 150, ObstructionType.MUST_AVOID));
+    // when
+    final var movedActual = calculator(270 * 5, obstructions).calculate();
+    final var solvedAfterMove = incrementalSegments.getSolvedSegments();
+    final var extendedActual = calculator(270 * 5 + 40, obstructions).calculate();
+    final var solvedAfterExtension = incrementalSegments.getSolvedSegments();
+    // then
+    assertThat(firstActual).isEqualTo(fullCalculation(270 * 5, run(5)));
+    assertThat(movedActual).isEqualTo(fullCalculation(270 * 5, obstructions));
+    assertThat(extendedActual).isEqualTo(fullCalculation(270 * 5 + 40, obstructions));
+    assertThat(solvedAfterMove).isEqualTo(1);
+    // only the last segment is changed
+    assertThat(solvedAfterExtension).isEqualTo(1);
+  }
+
+  @Test
+  void shouldNotKeepSolutionsOfFailedCalculation() {
+    // given
+    final var obstructions = run(5);
+    calculator(270 * 5, obstructions).calculate();
+    obstructions.set(9, new Obstruction(4, 3 * 270 + 150, ObstructionType.MUST_AVOID));
+    // obstruction of the first segment is moved, the first segment is solved, then segments executor fails
+    final var failingObstructions = new ArrayList<>(obstructions);
+    failingObstructions.set(0, new Obstruction(4, 120, ObstructionType.MUST_AVOID));
+    final var tasks = new AtomicInteger();
+    final var failingCalculator = PostLayoutCalculator.builder()
+        .postSize(POST_SIZE)
+        .panelMaxLength(PANEL_MAX_LENGTH)
+        .runLength(270 * 5)
+        .obstructions(failingObstructions)
+        .segmentExecutor(command -> {
+          if (tasks.incrementAndGet() > 2) {
+            throw new RejectedExecutionException();
+          }
+          command.run();
+        })
+        .parallelSegmentsThreshold(1)
+        .incrementalSegments(incrementalSegments)
+        .build();
+    assertThatThrownBy(failingCalculator::calculate).isInstanceOf(RejectedExecutionException.class);
+    // when
+    final var actual = calculator(270 * 5, obstructions).calculate();
+    // then
+    assertThat(actual).isEqualTo(fullCalculation(270 * 5, obstructions));
+    // only the fourth segment is changed since the last finished calculation
+    assertThat(incrementalSegments.getSolvedSegments()).isEqualTo(1);
+  }
+
+  private PostLayoutCalculator calculator(double runLength, List<Obstruction> obstructions) {
+    return PostLayoutCalculator.builder()
+        .postSize(POST_SIZE)
+        .panelMaxLength(PANEL_MAX_LENGTH)
+        .runLength(runLength)
+        .obstructions(obstructions.stream()
+            .sorted(Comparator.comparingDouble(Obstruction::location))
+            .toList())
+        .incrementalSegments(incrementalSegments)
+        .build();
+  }
+
+  private List<PostLayoutOption> fullCalculation(
+      double runLength,
+      List<Obstruction> obstructions
+  ) {
+    return new PostLayoutCalculator(
+        POST_SIZE,
+        PANEL_MAX_LENGTH,
+        runLength,
+        obstructions.stream()
+            .sorted(Comparator.comparingDouble(Obstruction::location))
+            .toList()
+    ).calculate();
+  }
+
+  /**
+   * @return obstructions for run of 270 long segments with two "Must avoid" obstructions each
+   */
+  private List<Obstruction> run(int segmentsNumber) {
+    final List<Obstruction> obstructions = new ArrayList<>();
+
+    for (int i = 0; i < segmentsNumber; i++) {
+      final var segmentStart = i * 270;
+      obstructions.add(new Obstruction(4, segmentStart + 90, ObstructionType.MUST_AVOID));
+      obstructions.add(new Obstruction(4, segmentStart + 180, ObstructionType.MUST_AVOID));
+
+      if (i < segmentsNumber - 1) {
+        obstructions.add(new Obstruction(POST_SIZE, segmentStart + 270, ObstructionType.PLACE_POST));
+      }
+    }
+
+    return obstructions;
+  }
+}
@@ -0,0 +1,67 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.riepka.postlayoutapi.entity.Obstruction;
+import com.riepka.postlayoutapi.entity.ObstructionType;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ObstructionIndexTest {
+
+  private static final double MAX_ALLOWED_INTERSECTION = 0.1;
+  private static final double POST_INSTALLATION_SIZE = 8;
+
+  @Test
+  void shouldFindFirstIntersectedObstructionInInitialOrder() {
+    // given
+    final var wide = mustAvoid(40, 100);
+    final var narrow = tryToAvoid(4, 95);
+    final var index = index(List.of(wide, narrow, tryToAvoid(4, 200)));
+    // when, then
+    assertThat(index.findIntersectedObstruction(95)).contains(wide);
+    assertThat(index.findIntersectedObstruction(200)).contains(tryToAvoid(4, 200));
+    assertThat(index.findIntersectedObstruction(150)).isEmpty();
+    assertThat(index.findIntersectedObstruction(0)).isEmpty();
+  }
+
+  @Test
+  void shouldNotFindObstructionIntersectedLessThanAllowed() {
+    // given
+    final var index = index(List.of(mustAvoid(10, 100)));
+    // when, then (zone is (0.5 - 0.1) * 10 + 8 / 2 = 8 from each side)
+    assertThat(index.findIntersectedObstruction(92)).isEmpty();
+    assertThat(index.findIntersectedObstruction(92.01)).isPresent();
+    assertThat(index.findIntersectedObstruction(107.99)).isPresent();
+    assertThat(index.findIntersectedObstruction(108)).isEmpty();
+  }
+
+  @Test
+  void shouldSliceObstructionsLocatedInsideSegment() {
+    // given
+    final var index = index(List.of(
+        mustAvoid(4, 300),
+        tryToAvoid(4, 99),
+        mustAvoid(4, 150),
+        tryToAvoid(4, 120),
+        mustAvoid(4, 298)
+    ));
+    // when
+    final var segment = index.slice(100, 300);
+    // then
+    assertThat(segment.obstructions()).isEqualTo(List.of(mustAvoid(4, 50), tryToAvoid(4, 20)));
+    assertThat(segment.findIntersectedObstruction(51)).contains(mustAvoid(4, 50));
+  }
+
+  private ObstructionIndex index(List<Obstruction> obstructions) {
+    return new ObstructionIndex(obstructions, MAX_ALLOWED_INTERSECTION, POST_INSTALLATION_SIZE);
+  }
+
+  private Obstruction mustAvoid(double size, double location) {
+    return new Obstruction(size, location, ObstructionType.MUST_AVOID);
+  }
+
+  private Obstruction tryToAvoid(double size, double location) {
+    return new Obstruction(size, location, ObstructionType.TRY_TO_AVOID);
+  }
+}
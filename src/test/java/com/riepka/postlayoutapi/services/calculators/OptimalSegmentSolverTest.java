@@ -0,0 +1,67 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.riepka.postlayoutapi.entity.Obstruction;
+import com.riepka.postlayoutapi.entity.ObstructionType;
+import com.riepka.postlayoutapi.services.calculators.PostLayoutCalculator.SegmentSolution;
+import com.riepka.postlayoutapi.services.calculators.PostLayoutCalculator.SolutionOptions;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class OptimalSegmentSolverTest {
+
+  private static final double MAX_CENTER_TO_CENTER = 100;
+  private static final double POST_INSTALLATION_SIZE = 8;
+
+  @Test
+  void shouldFindBestGridLayoutsForEachPostsNumber() {
+    // given
+    final var solver = new OptimalSegmentSolver(MAX_CENTER_TO_CENTER, 1, 1, 10, Deadline.NONE);
+    final var obstructions = index(List.of(new Obstruction(4, 100, ObstructionType.MUST_AVOID)));
+    // when
+    final var actual = solver.solve(200, 1, obstructions);
+    // then
+    // the only layout with one post falls on obstruction
+    assertThat(actual.getFirst().postLocations()).containsExactly(100);
+    assertThat(actual.getFirst().options()).isEqualTo(new SolutionOptions(false, 0, 0, 1));
+    assertThat(actual.get(1).options()).isEqualTo(new SolutionOptions(false, 1, 0, 0));
+    assertThat(actual.get(1).panelsSquareSum()).isEqualTo(67 * 67 + 66 * 66 + 67 * 67);
+    assertThat(actual.stream().filter(solution -> solution.postLocations().length == 2)).hasSize(10);
+  }
+
+  @Test
+  void shouldKeepOneOfLayoutsEqualByRanking() {
+    // given
+    final var solver = new OptimalSegmentSolver(MAX_CENTER_TO_CENTER, 0.5, 2, 10, Deadline.NONE);
+    // when
+    final var actual = solver.solve(250, 2, index(List.of()));
+    // then
+    assertThat(actual).hasSize(30);
+    for (int postsNumber = 2; postsNumber <= 4; postsNumber++) {
+      final var postsNumberSolutions = postsNumber;
+
+      assertThat(actual.stream()
+          .filter(solution -> solution.postLocations().length == postsNumberSolutions)
+          .map(SegmentSolution::panelsSquareSum))
+          .hasSize(10)
+          .doesNotHaveDuplicates()
+          .isSorted();
+    }
+  }
+
+  @Test
+  void shouldStopSearchAtDeadline() {
+    // given
+    final var solver = new OptimalSegmentSolver(MAX_CENTER_TO_CENTER, 0.5, 2, 10, Deadline.after(Duration.ZERO));
+    // when
+    final var actual = solver.solve(1000, 9, index(List.of()));
+    // then
+    assertThat(actual).isNull();
+  }
+
+  private ObstructionIndex index(List<Obstruction> obstructions) {
+    return new ObstructionIndex(obstructions, PostLayoutCalculator.MAX_ALLOWED_INTERSECTION, POST_INSTALLATION_SIZE);
+  }
+}
@@ -2,12 +2,21 @@ package com.riepka.postlayoutapi.services.calculators;
 
 import static java.util.Collections.emptyList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 
 import com.riepka.postlayoutapi.entity.Obstruction;
 import com.riepka.postlayoutapi.entity.ObstructionType;
 import com.riepka.postlayoutapi.entity.PostLayoutDescription;
 import com.riepka.postlayoutapi.entity.PostLayoutOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.assertj.core.util.DoubleComparator;
 import org.junit.jupiter.api.Test;
 
@@ -197,6 +206,469 @@ class PostLayoutCalculatorTest {
     ));
   }
 
+  @Test
+  void shouldCombineTryToAvoidObstructionsCorrectly() {
+    // given
+    final var runLength = 540;
+    init(runLength, List.of(placePost(270), tryToAvoid(4, 360)));
+    // when
+    final var actual = calculator.calculate();
+    // then
+    assertThat(actual).isEqualTo(List.of(
+        option(List.of(0.0, 90.0, 180.0, 270.0, 337.5, 405.0, 472.5, 540.0), true, 1, 0, 0),
+        option(List.of(0.0, 90.0, 180.0, 270.0, 354.0, 447.0, 540.0), false, 0, 0, 0),
+        option(List.of(0.0, 90.0, 180.0, 270.0, 366.0, 453.0, 540.0), false, 0, 0, 0),
+        option(List.of(0.0, 67.5, 135.0, 202.5, 270.0, 337.5, 405.0, 472.5, 540.0), true, 2, 0, 0),
+        option(List.of(0.0, 67.5, 135.0, 202.5, 270.0, 354.0, 447.0, 540.0), false, 1, 0, 0),
+        option(List.of(0.0, 67.5, 135.0, 202.5, 270.0, 366.0, 453.0, 540.0), false, 1, 0, 0),
+        option(List.of(0.0, 90.0, 180.0, 270.0, 360.0, 450.0, 540.0), true, 0, 1, 0),
+        option(List.of(0.0, 67.5, 135.0, 202.5, 270.0, 360.0, 450.0, 540.0), true, 1, 1, 0)
+    ));
+  }
+
+  @Test
+  void shouldCombineResultsForManySegments() {
+    // given
+    final var segmentLength = 270;
+    final var segmentsNumber = 13;
+    final List<Obstruction> obstructions = new ArrayList<>();
+    for (int i = 1; i < segmentsNumber; i++) {
+      obstructions.add(placePost(i * segmentLength));
+      obstructions.add(mustAvoid(4, i * segmentLength - 180));
+      obstructions.add(mustAvoid(4, i * segmentLength - 90));
+    }
+    init(segmentLength * segmentsNumber, obstructions);
+    // when
+    final var actual = calculator.calculate();
+    // then
+    assertThat(actual).hasSize(10);
+    assertThat(actual).allSatisfy(option -> assertThat(option.getDescription())
+        .isEqualTo(new PostLayoutDescription(0, false, 0, 0)));
+    assertThat(actual.get(0).getPostLocations()).startsWith(0.0, 84.0, 174.0, 270.0, 354.0, 444.0, 540.0);
+  }
+
+  @Test
+  void shouldCombineResultsSameAsExhaustiveMergeForRandomRuns() {
+    // given
+    final var random = new Random(20_241_017L);
+
+    for (int run = 0; run < 200; run++) {
+      final var segmentsNumber = 3 + random.nextInt(3);
+      final var segmentLength = 150 + random.nextInt(250);
+      final var obstructions = randomSegmentsObstructions(random, segmentsNumber, segmentLength);
+      init(segmentLength * segmentsNumber, obstructions);
+      final var segmentResults = calculator.solveSegments(calculator.splitIntoSegments());
+      // when
+      final var actual = calculator.rankSolutions(calculator.combineSegmentResults(segmentResults));
+      // then
+      assertThat(actual)
+          .as("run %d x %d with obstructions %s", segmentsNumber, segmentLength, obstructions)
+          .isEqualTo(calculator.rankSolutions(combineAllSegmentsSolutions(segmentResults)));
+    }
+  }
+
+  @Test
+  void shouldNotCountTryToAvoidObstructionsOfNextSegmentAsMustAvoid() {
+    // given (bug fix: next segment "Try to avoid" posts number was added to "Must avoid" one)
+    final var options = new PostLayoutCalculator.SolutionOptions(false, 1, 2, 3);
+    final var nextOptions = new PostLayoutCalculator.SolutionOptions(true, 1, 4, 0);
+    // when
+    final var actual = options.combine(nextOptions);
+    // then
+    assertThat(actual).isEqualTo(new PostLayoutCalculator.SolutionOptions(false, 2, 6, 3));
+  }
+
+  @Test
+  void shouldBuildCombinedSolutionsLayoutsFromSegmentsSolutions() {
+    // given
+    final var segmentLength = 270;
+    final List<Obstruction> obstructions = new ArrayList<>();
+    for (int i = 1; i < 4; i++) {
+      obstructions.add(placePost(i * segmentLength));
+      obstructions.add(mustAvoid(4, i * segmentLength - 180));
+      obstructions.add(tryToAvoid(6, i * segmentLength - 100));
+    }
+    init(segmentLength * 4 + 100, obstructions);
+    // when
+    final var actual = calculator.combineSegmentResults(calculator.solveSegments(calculator.splitIntoSegments()));
+    // then
+    assertThat(actual).isNotEmpty();
+    assertThat(actual).allSatisfy(solution -> {
+      final var postLocations = solution.buildPostLocations();
+
+      assertThat(solution.length()).isEqualTo(segmentLength * 4 + 100);
+      assertThat(postLocations).hasSize(solution.postsNumber());
+      assertThat(postLocations).contains(270.0, 540.0, 810.0);
+      assertThat(postLocations).isSorted();
+      assertThat(solution.calcDispersion()).isEqualTo(calcDispersion(solution.length(), postLocations));
+    });
+  }
+
+  @Test
+  void shouldCalculateSegmentsInParallelSameAsSequentially() {
+    // given
+    final var runLength = 2000;
+    final List<Obstruction> obstructions = new ArrayList<>();
+    for (int i = 1; i < 10; i++) {
+      obstructions.add(placePost(i * 200 + i));
+      obstructions.add(mustAvoid(4, i * 200 - 67));
+      obstructions.add(tryToAvoid(6, i * 200 - 110));
+    }
+    init(runLength, obstructions);
+    final var expected = calculator.calculate();
+
+    try (final var executor = Executors.newFixedThreadPool(4)) {
+      final var parallelCalculator = PostLayoutCalculator.builder()
+          .postSize(POST_SIZE)
+          .panelMaxLength(PANEL_MAX_LENGTH)
+          .runLength(runLength)
+          .obstructions(obstructions)
+          .segmentExecutor(executor)
+          .parallelSegmentsThreshold(2)
+          .build();
+      // when
+      final var actual = parallelCalculator.calculate();
+      // then
+      assertThat(actual).hasSize(10);
+      assertThat(actual).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  void shouldCalculateInFixedPointSameAsInDoublesIfLayoutsAreOnUnitsGrid() {
+    // given
+    final var runLength = 300;
+    final var obstructions = List.of(placePost(150), placePost(150), mustAvoid(4, 75));
+    init(runLength, obstructions);
+    final var expected = calculator.calculate();
+    final var fixedPointCalculator = PostLayoutCalculator.builder()
+        .postSize(POST_SIZE)
+        .panelMaxLength(PANEL_MAX_LENGTH)
+        .runLength(runLength)
+        .obstructions(obstructions)
+        .fixedPoint(FixedPointScale.ofResolution(0.001))
+        .build();
+    // when
+    final var actual = fixedPointCalculator.calculate();
+    // then
+    assertThat(actual).isEqualTo(expected);
+  }
+
+  @Test
+  void shouldRoundFixedPointLayoutsToResolution() {
+    // given
+    final var runLength = 1000.1;
+    final var obstructions = List.of(mustAvoid(4, 363.7), tryToAvoid(6, 636.4));
+    init(runLength, obstructions);
+    final var expected = calculator.calculate();
+    final var fixedPointCalculator = PostLayoutCalculator.builder()
+        .postSize(POST_SIZE)
+        .panelMaxLength(PANEL_MAX_LENGTH)
+        .runLength(runLength)
+        .obstructions(obstructions)
+        .fixedPoint(FixedPointScale.ofResolution(0.001))
+        .build();
+    // when
+    final var actual = fixedPointCalculator.calculate();
+    // then
+    assertThat(actual).hasSameSizeAs(expected);
+    for (int i = 0; i < actual.size(); i++) {
+      final var actualLocations = actual.get(i).getPostLocations();
+      final var expectedLocations = expected.get(i).getPostLocations();
+
+      assertThat(actual.get(i).getDescription()).isEqualTo(expected.get(i).getDescription());
+      assertThat(actualLocations).hasSameSizeAs(expectedLocations);
+      for (int j = 0; j < actualLocations.size(); j++) {
+        assertThat(actualLocations.get(j)).isEqualTo(Math.round(actualLocations.get(j) * 1000) / 1000.0);
+        assertThat(actualLocations.get(j)).isCloseTo(expectedLocations.get(j), within(0.0005));
+      }
+    }
+  }
+
+  @Test
+  void shouldFindLayoutsAvoidingObstructionsMissedByPostsShifting() {
+    // given
+    final var runLength = 300;
+    final var obstructions = List.of(
+        mustAvoid(6, 30),
+        tryToAvoid(10, 80),
+        mustAvoid(4, 80),
+        mustAvoid(8, 80),
+        mustAvoid(4, 100),
+        mustAvoid(10, 210),
+        tryToAvoid(4, 230),
+        mustAvoid(8, 230)
+    );
+    init(runLength, obstructions);
+    final var heuristicBest = calculator.calculate().getFirst().getDescription();
+    final var optimalCalculator = PostLayoutCalculator.builder()
+        .postSize(POST_SIZE)
+        .panelMaxLength(PANEL_MAX_LENGTH)
+        .runLength(runLength)
+        .obstructions(obstructions)
+        .optimalSearch(new OptimalSearch(1, 2))
+        .build();
+    // when
+    final var actual = optimalCalculator.calculate();
+    // then
+    assertThat(heuristicBest.getPostsFallOnTryToAvoid()).isEqualTo(1);
+    assertThat(actual.getFirst()).isEqualTo(option(List.of(0.0, 72.0, 147.0, 222.0, 300.0), false, 1, 0, 0));
+    assertThat(actual).hasSize(10);
+  }
+
+  @Test
+  void shouldReportEvenLayoutsOptionsBeforeFinalOptions() {
+    // given
+    final List<Obstruction> obstructions = new ArrayList<>();
+    for (int i = 1; i < 4; i++) {
+      obstructions.add(placePost(i * 300));
+      obstructions.add(mustAvoid(4, i * 300 - 200));
+      obstructions.add(mustAvoid(4, i * 300 - 100));
+    }
+    init(1200, obstructions);
+    final var expected = calculator.calculate();
+    final List<List<PostLayoutOption>> progress = new ArrayList<>();
+    // when
+    final var actual = calculator.calculateWithStatus(progress::add);
+    // then
+    assertThat(actual.options()).isEqualTo(expected);
+    assertThat(progress).isNotEmpty();
+    assertThat(progress.get(0)).isNotEmpty();
+    assertThat(progress.get(0)).allSatisfy(option -> assertThat(option.getDescription().isEvenLayout()).isTrue());
+  }
+
+  @Test
+  void shouldReportBetterOptionsFoundInsideSegmentSearch() {
+    // given
+    final var runLength = 1710;
+    final List<Obstruction> obstructions = new ArrayList<>();
+    for (int i = 1; i <= 18; i++) {
+      obstructions.add(mustAvoid(2, i * 90));
+    }
+    for (int i = 1; i <= 19; i++) {
+      obstructions.add(mustAvoid(2, i * 1710.0 / 20));
+    }
+    // posts shifting takes longer than progress interval
+    final var metrics = new CalculationMetrics() {
+
+      @Override
+      public void recordShiftCombinations(int number) {
+        try {
+          Thread.sleep(60);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+    final var singleSegmentCalculator = PostLayoutCalculator.builder()
+        .postSize(POST_SIZE)
+        .panelMaxLength(PANEL_MAX_LENGTH)
+        .runLength(runLength)
+        .obstructions(obstructions.stream()
+            .sorted(Comparator.comparingDouble(Obstruction::location))
+            .toList())
+        .metrics(metrics)
+        .build();
+    final List<List<PostLayoutOption>> progress = new ArrayList<>();
+    // when
+    final var actual = singleSegmentCalculator.calculateWithStatus(progress::add);
+    // then
+    assertThat(actual.options().getFirst().getDescription().getPostsFallOnMustAvoid()).isZero();
+    // the only segment isn't reported on completion, so options found by posts shifting come from segment search
+    assertThat(progress).hasSizeGreaterThan(1);
+    assertThat(progress.getFirst().getFirst().getDescription().getPostsFallOnMustAvoid()).isPositive();
+    assertThat(progress.getLast().getFirst().getDescription().getPostsFallOnMustAvoid()).isZero();
+  }
+
+  @Test
+  void shouldCalculateCorrectlyWithPostsShiftingForManyMustAvoidObstructions() {
+    // given
+    final var runLength = 1710;
+    final var postsNumber = 18;
+    final List<Obstruction> obstructions = new ArrayList<>();
+    for (int i = 1; i <= postsNumber; i++) {
+      obstructions.add(mustAvoid(2, i * 90));
+    }
+    for (int i = 1; i <= postsNumber + 1; i++) {
+      obstructions.add(mustAvoid(2, i * 1710.0 / 20));
+    }
+    init(runLength, obstructions);
+    // when
+    final var actual = calculator.calculate();
+    // then
+    assertThat(actual).hasSize(10);
+    assertThat(actual.subList(0, 2)).isEqualTo(List.of(
+        option(
+            List.of(0.0, 95.0, 190.0, 285.0, 380.0, 475.0, 570.0, 665.0, 760.0, 850.0,
+                950.0, 1045.0, 1140.0, 1235.0, 1330.0, 1425.0, 1520.0, 1615.0, 1710.0),
+            false, 0, 0, 0
+        ),
+        option(
+            List.of(0.0, 95.0, 190.0, 285.0, 380.0, 475.0, 570.0, 665.0, 760.0, 860.0,
+                950.0, 1045.0, 1140.0, 1235.0, 1330.0, 1425.0, 1520.0, 1615.0, 1710.0),
+            false, 0, 0, 0
+        )
+    ));
+  }
+
+  @Test
+  void shouldNotBuildShiftedLayoutsThatCantGetIntoResults() {
+    // given
+    final var runLength = 1710;
+    final var postsNumber = 18;
+    final List<Obstruction> obstructions = new ArrayList<>();
+    for (int i = 1; i <= postsNumber; i++) {
+      obstructions.add(mustAvoid(2, i * 90));
+    }
+    for (int i = 1; i <= postsNumber + 1; i++) {
+      obstructions.add(mustAvoid(2, i * 1710.0 / 20));
+    }
+    final var candidates = new AtomicInteger();
+    final var pruned = new AtomicInteger();
+    final var metrics = new CalculationMetrics() {
+
+      @Override
+      public void recordCandidateSolutions(int number) {
+        candidates.addAndGet(number);
+      }
+
+      @Override
+      public void recordPrunedCandidates(int number) {
+        pruned.addAndGet(number);
+      }
+    };
+    final var boundedCalculator = PostLayoutCalculator.builder()
+        .postSize(POST_SIZE)
+        .panelMaxLength(PANEL_MAX_LENGTH)
+        .runLength(runLength)
+        .obstructions(obstructions.stream()
+            .sorted(Comparator.comparingDouble(Obstruction::location))
+            .toList())
+        .metrics(metrics)
+        .build();
+    // when
+    final var actual = boundedCalculator.calculate();
+    // then
+    assertThat(actual).hasSize(10);
+    assertThat(actual.get(0)).isEqualTo(option(
+        List.of(0.0, 95.0, 190.0, 285.0, 380.0, 475.0, 570.0, 665.0, 760.0, 850.0,
+            950.0, 1045.0, 1140.0, 1235.0, 1330.0, 1425.0, 1520.0, 1615.0, 1710.0),
+        false, 0, 0, 0
+    ));
+    // 1000 layouts are found by shifting posts, only the best of them are built (shifted posts of +1 post layout
+    // fall on other "Must avoid" obstructions, layouts with the same options and close dispersions aren't dropped)
+    assertThat(candidates.get()).isLessThan(50);
+    assertThat(candidates.get() + pruned.get()).isGreaterThanOrEqualTo(1000);
+  }
+
+  @Test
+  void shouldFindSameOptionsWithAndWithoutCandidatesPruningForRandomRuns() {
+    // given
+    final var random = new Random(20_241_018L);
+
+    for (int run = 0; run < 100; run++) {
+      final var runLength = Math.rint(300 + random.nextDouble() * 1700);
+      final var obstructions = randomObstructions(random, runLength, 5 + random.nextInt(40));
+      final var exhaustiveCalculator = new PostLayoutCalculator(POST_SIZE, PANEL_MAX_LENGTH, runLength, obstructions) {
+        @Override
+        boolean prunesCandidates() {
+          return false;
+        }
+      };
+      // when
+      final var actual = new PostLayoutCalculator(POST_SIZE, PANEL_MAX_LENGTH, runLength, obstructions).calculate();
+      // then
+      assertThat(actual)
+          .as("run %s with obstructions %s", runLength, obstructions)
+          .isEqualTo(exhaustiveCalculator.calculate());
+    }
+  }
+
+  @Test
+  void shouldCountObstructionsOfShiftedPosts() {
+    // given (bug fix: layouts with posts shifted from "Must avoid" obstructions had obstructions of the base layout)
+    final var random = new Random(20_241_018L);
+
+    for (int run = 0; run < 100; run++) {
+      final var runLength = Math.rint(300 + random.nextDouble() * 1700);
+      final var obstructions = randomObstructions(random, runLength, 5 + random.nextInt(40)).stream()
+          .filter(obstruction -> obstruction.type() != ObstructionType.PLACE_POST)
+          .toList();
+      final var obstructionIndex = new ObstructionIndex(
+          obstructions,
+          PostLayoutCalculator.MAX_ALLOWED_INTERSECTION,
+          POST_SIZE + PostLayoutCalculator.POST_INSTALLATION_EXTENSION
+      );
+      init(runLength, obstructions);
+      // when
+      final var actual = calculator.calculate();
+      // then
+      for (final PostLayoutOption option : actual) {
+        final var locations = option.getPostLocations();
+        final var intersectedTypes = locations.subList(1, locations.size() - 1).stream()
+            .map(obstructionIndex::findIntersectedObstruction)
+            .flatMap(Optional::stream)
+            .map(Obstruction::type)
+            .toList();
+
+        assertThat(option.getDescription())
+            .as("run %s with obstructions %s, option %s", runLength, obstructions, locations)
+            .returns(Collections.frequency(intersectedTypes, ObstructionType.MUST_AVOID),
+                PostLayoutDescription::getPostsFallOnMustAvoid)
+            .returns(Collections.frequency(intersectedTypes, ObstructionType.TRY_TO_AVOID),
+                PostLayoutDescription::getPostsFallOnTryToAvoid);
+      }
+    }
+  }
+
+  @Test
+  void shouldReturnBestSoFarOptionsIfDeadlineIsReached() {
+    // given
+    final var runLength = 1710;
+    final List<Obstruction> obstructions = new ArrayList<>();
+    for (int i = 1; i <= 18; i++) {
+      obstructions.add(mustAvoid(2, i * 90));
+    }
+    for (int i = 1; i <= 19; i++) {
+      obstructions.add(mustAvoid(2, i * 1710.0 / 20));
+    }
+    final var calculator = PostLayoutCalculator.builder()
+        .postSize(POST_SIZE)
+        .panelMaxLength(PANEL_MAX_LENGTH)
+        .runLength(runLength)
+        .obstructions(obstructions)
+        .deadline(Deadline.after(Duration.ZERO))
+        .build();
+    // when
+    final var actual = calculator.calculateWithStatus();
+    // then
+    assertThat(actual.truncated()).isTrue();
+    assertThat(actual.options()).isNotEmpty();
+    assertThat(actual.options()).allSatisfy(option -> {
+      assertThat(option.getPostLocations()).first().isEqualTo(0.0);
+      assertThat(option.getPostLocations()).last().isEqualTo(1710.0);
+    });
+  }
+
+  @Test
+  void shouldNotTruncateResultIfDeadlineIsNotReached() {
+    // given
+    init(540, List.of(mustAvoid(4, 100), mustAvoid(4, 200)));
+    final var expected = calculator.calculate();
+    final var calculatorWithDeadline = PostLayoutCalculator.builder()
+        .postSize(POST_SIZE)
+        .panelMaxLength(PANEL_MAX_LENGTH)
+        .runLength(540)
+        .obstructions(List.of(mustAvoid(4, 100), mustAvoid(4, 200)))
+        .deadline(Deadline.after(Duration.ofMinutes(1)))
+        .build();
+    // when
+    final var actual = calculatorWithDeadline.calculateWithStatus();
+    // then
+    assertThat(actual.truncated()).isFalse();
+    assertThat(actual.options()).isEqualTo(expected);
+  }
+
   @Test
   void shouldCalculateCorrectlyWithOneMustAvoidObstruction() {
     // given
@@ -241,6 +713,104 @@ class PostLayoutCalculatorTest {
     );
   }
 
+  @Test
+  void shouldNotReturnDuplicateLayouts() {
+    // given
+    final var runLength = 300;
+    init(runLength, List.of(placePost(150), placePost(150), mustAvoid(4, 75)));
+    // when
+    final var actual = calculator.calculate();
+    // then
+    assertThat(extractLayouts(actual)).doesNotHaveDuplicates();
+    assertThat(actual).isEqualTo(List.of(
+        option(List.of(0.0, 50.0, 100.0, 150.0, 150.0, 225.0, 300.0), true, 1, 0, 0),
+        option(List.of(0.0, 69.0, 150.0, 150.0, 225.0, 300.0), false, 0, 0, 0),
+        option(List.of(0.0, 81.0, 150.0, 150.0, 225.0, 300.0), false, 0, 0, 0),
+        option(List.of(0.0, 50.0, 100.0, 150.0, 150.0, 200.0, 250.0, 300.0), true, 2, 0, 0),
+        option(List.of(0.0, 69.0, 150.0, 150.0, 200.0, 250.0, 300.0), false, 1, 0, 0),
+        option(List.of(0.0, 81.0, 150.0, 150.0, 200.0, 250.0, 300.0), false, 1, 0, 0)
+    ));
+  }
+
+  /**
+   * @return randomly located "Must avoid"/"Try to avoid" obstructions (sizes 2-12) with a few PLACE_POST ones,
+   * sorted by location
+   */
+  private List<Obstruction> randomObstructions(Random random, double runLength, int obstructionsNumber) {
+    final List<Obstruction> obstructions = new ArrayList<>();
+
+    for (int i = 0; i < obstructionsNumber; i++) {
+      final var size = 2 + random.nextInt(11);
+      final var location = Math.rint(size + random.nextDouble() * (runLength - 2 * size));
+      final var type = random.nextInt(10) == 0
+          ? ObstructionType.PLACE_POST
+          : random.nextBoolean() ? ObstructionType.MUST_AVOID : ObstructionType.TRY_TO_AVOID;
+
+      obstructions.add(type == ObstructionType.PLACE_POST
+          ? placePost(location)
+          : new Obstruction(size, location, type));
+    }
+    obstructions.sort(Comparator.comparingDouble(Obstruction::location));
+
+    return obstructions;
+  }
+
+  /**
+   * @return obstructions of run with PLACE_POST posts between equal segments: random "Must avoid"/"Try to avoid"
+   * obstructions or the same obstructions in every segment (so combinations have equal dispersions)
+   */
+  private List<Obstruction> randomSegmentsObstructions(Random random, int segmentsNumber, int segmentLength) {
+    final List<Obstruction> obstructions = new ArrayList<>();
+    for (int i = 1; i < segmentsNumber; i++) {
+      obstructions.add(placePost(i * segmentLength));
+    }
+
+    final var repeated = random.nextBoolean();
+    final var obstructionsNumber = repeated
+        ? 1 + random.nextInt(3)
+        : 2 * segmentsNumber + random.nextInt(4 * segmentsNumber);
+    for (int i = 0; i < obstructionsNumber; i++) {
+      final var size = 2 + random.nextInt(8);
+      final var type = random.nextBoolean() ? ObstructionType.MUST_AVOID : ObstructionType.TRY_TO_AVOID;
+
+      if (repeated) {
+        final var location = Math.rint(10 + random.nextDouble() * (segmentLength - 20));
+        for (int segment = 0; segment < segmentsNumber; segment++) {
+          obstructions.add(new Obstruction(size, segment * segmentLength + location, type));
+        }
+      } else {
+        final var location = Math.rint(10 + random.nextDouble() * (segmentLength * segmentsNumber - 20));
+        obstructions.add(new Obstruction(size, location, type));
+      }
+    }
+    obstructions.sort(Comparator.comparingDouble(Obstruction::location));
+
+    return obstructions;
+  }
+
+  /**
+   * @return all combinations of segments solutions (cartesian product in combination order)
+   */
+  private List<PostLayoutCalculator.CombinedSolution> combineAllSegmentsSolutions(
+      List<PostLayoutCalculator.SegmentResult> segmentResults
+  ) {
+    List<PostLayoutCalculator.CombinedSolution> combinedSolutions = segmentResults.getFirst().solutions().stream()
+        .map(PostLayoutCalculator.CombinedSolution::of)
+        .toList();
+
+    for (final PostLayoutCalculator.SegmentResult segmentResult : segmentResults.subList(1, segmentResults.size())) {
+      final List<PostLayoutCalculator.CombinedSolution> nextCombinedSolutions = new ArrayList<>();
+      for (final PostLayoutCalculator.CombinedSolution combinedSolution : combinedSolutions) {
+        for (final PostLayoutCalculator.SegmentSolution solution : segmentResult.solutions()) {
+          nextCombinedSolutions.add(combinedSolution.combine(segmentResult.location(), solution));
+        }
+      }
+      combinedSolutions = nextCombinedSolutions;
+    }
+
+    return combinedSolutions;
+  }
+
   private List<List<Double>> extractLayouts(List<PostLayoutOption> options) {
     return options.stream()
         .map(PostLayoutOption::getPostLocations)
@@ -271,6 +841,24 @@ class PostLayoutCalculatorTest {
         .build();
   }
 
+  /**
+   * @return standard deviation of panels lengths of flat layout (calculated as for segment solution)
+   */
+  private double calcDispersion(double length, double[] layout) {
+    final var average = length / (layout.length + 1);
+    double deviationSum = 0;
+
+    for (int i = 0; i <= layout.length; i++) {
+      final var prevLocation = i == 0 ? 0 : layout[i - 1];
+      final var currLocation = i == layout.length ? length : layout[i];
+      final var deviation = currLocation - prevLocation - average;
+
+      deviationSum += deviation * deviation;
+    }
+
+    return Math.sqrt(deviationSum / layout.length);
+  }
+
   private <T> void assertRecursivelyEquals(T actual, T expected) {
     assertThat(actual)
         .usingRecursiveComparison()
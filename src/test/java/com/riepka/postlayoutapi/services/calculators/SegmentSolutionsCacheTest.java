@@ -0,0 +1,68 @@
+package com.riepka.postlayoutapi.services.calculators;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.riepka.postlayoutapi.entity.Obstruction;
+import com.riepka.postlayoutapi.entity.ObstructionType;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SegmentSolutionsCacheTest {
+
+  private static final double POST_SIZE = 4;
+  private static final double PANEL_MAX_LENGTH = 96.0;
+
+  @Test
+  void shouldReuseSegmentSolutionsBetweenCalculations() {
+    // given
+    final var cache = new SegmentSolutionsCache(100);
+    final var firstRun = run(3, 0);
+    final var secondRun = run(5, 135);
+    // when
+    final var firstActual = calculator(firstRun, 270 * 3, cache).calculate();
+    final var secondActual = calculator(secondRun, 270 * 5 + 135, cache).calculate();
+    // then
+    assertThat(firstActual).isEqualTo(new PostLayoutCalculator(POST_SIZE, PANEL_MAX_LENGTH, 270 * 3, firstRun)
+        .calculate());
+    assertThat(secondActual).isEqualTo(new PostLayoutCalculator(POST_SIZE, PANEL_MAX_LENGTH, 270 * 5 + 135, secondRun)
+        .calculate());
+    // repeated segment is solved once, tail segment of the second run once
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.stats().missCount()).isEqualTo(2);
+    assertThat(cache.stats().hitCount()).isEqualTo(7);
+  }
+
+  private PostLayoutCalculator calculator(
+      List<Obstruction> obstructions,
+      double runLength,
+      SegmentSolutionsCache cache
+  ) {
+    return PostLayoutCalculator.builder()
+        .postSize(POST_SIZE)
+        .panelMaxLength(PANEL_MAX_LENGTH)
+        .runLength(runLength)
+        .obstructions(obstructions)
+        .segmentCache(cache)
+        .build();
+  }
+
+  /**
+   * @return obstructions for run of repeated 270 long segments (with two "Must avoid" obstructions) and optional tail
+   */
+  private List<Obstruction> run(int segmentsNumber, double tailLength) {
+    final List<Obstruction> obstructions = new ArrayList<>();
+
+    for (int i = 0; i < segmentsNumber; i++) {
+      final var segmentStart = i * 270;
+      obstructions.add(new Obstruction(4, segmentStart + 90, ObstructionType.MUST_AVOID));
+      obstructions.add(new Obstruction(4, segmentStart + 180, ObstructionType.MUST_AVOID));
+
+      if (i < segmentsNumber - 1 || tailLength > 0) {
+        obstructions.add(new Obstruction(POST_SIZE, segmentStart + 270, ObstructionType.PLACE_POST));
+      }
+    }
+
+    return obstructions;
+  }
+}